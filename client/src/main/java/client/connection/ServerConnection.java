@@ -0,0 +1,334 @@
+package client.connection;
+
+import common.interfaces.AuthInterface;
+import common.interfaces.InventoryInterface;
+import common.util.Logger;
+import server.util.DatabaseConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.rmi.UnknownHostException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The ServerConnection class is the single connection of the client to the server, shared by
+ * every controller.
+ *
+ * The services are looked up once per connection, and the controllers hold proxies of them
+ * ({@link #inventory()}, {@link #auth()}) rather than the RMI stubs themselves. A call made
+ * through a proxy goes to the stub of the current connection. When it fails because the
+ * server cannot be reached, the proxy reconnects and makes the call again:
+ * - A call that never reached the server (connection refused, or a server restarted since
+ *   the lookup) is always made again.
+ * - A call that may have reached the server (connection lost during the call) is only made
+ *   again if it does not change anything, i.e. for getters and searches; otherwise the
+ *   error is thrown, and the next call reconnects.
+ * Errors thrown by the services themselves are never retried.
+ *
+ * The servers are configured as a list of endpoints (rmi.endpoints). Reconnecting tries the
+ * endpoint after the one that failed first, so that the client fails over to another server,
+ * and goes around the list until one answers. After each round, it waits for an exponential
+ * backoff with random jitter, so that the clients of a restarted server do not all come back
+ * at the same moment, and gives up after a configured time. Only one thread reconnects at
+ * a time; the others wait for its connection.
+ *
+ * A background probe checks the connection at a fixed interval and reconnects it in
+ * advance, so that a user action rarely waits for a reconnection.
+ */
+public final class ServerConnection {
+    private static final String INVENTORY_SERVICE = "InventoryService";
+    private static final String AUTH_SERVICE = "AuthService";
+
+    private static ServerConnection instance;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long reconnectTimeoutMillis;
+    private final ReentrantLock connectLock = new ReentrantLock();
+    private final InventoryInterface inventory;
+    private final AuthInterface auth;
+    private volatile Session session;
+    private int nextEndpoint; // guarded by connectLock
+
+    private ServerConnection(DatabaseConfig config) {
+        for (String endpoint : config.getRmiEndpoints()) {
+            endpoints.add(Endpoint.parse(endpoint, config.getRmiPort()));
+        }
+        this.initialBackoffMillis = Math.max(1, config.getRmiReconnectInitialBackoffMillis());
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, config.getRmiReconnectMaxBackoffMillis());
+        this.reconnectTimeoutMillis = config.getRmiReconnectTimeoutMillis();
+        this.inventory = proxy(InventoryInterface.class, s -> s.inventory);
+        this.auth = proxy(AuthInterface.class, s -> s.auth);
+
+        long probeInterval = config.getRmiProbeIntervalMillis();
+        if (probeInterval > 0) {
+            ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "rmi-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prober.scheduleWithFixedDelay(this::probe, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static synchronized ServerConnection getInstance() {
+        if (instance == null) {
+            instance = new ServerConnection(DatabaseConfig.getInstance());
+        }
+        return instance;
+    }
+
+    public InventoryInterface inventory() {
+        return inventory;
+    }
+
+    public AuthInterface auth() {
+        return auth;
+    }
+
+    /**
+     * Connects to a server now rather than on the first call, e.g. to report early that no
+     * server can be reached.
+     *
+     * @throws RemoteException if no server could be reached before the reconnect timeout
+     */
+    public void connect() throws RemoteException {
+        current();
+    }
+
+    private Session current() throws RemoteException {
+        Session current = session;
+        return current != null ? current : reconnect(null);
+    }
+
+    /**
+     * Replaces the given failed connection, or returns the connection another thread has
+     * opened meanwhile.
+     */
+    private Session reconnect(Session failed) throws RemoteException {
+        try {
+            connectLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while connecting to the server", e);
+        }
+        try {
+            Session current = session;
+            if (current != null && current != failed) {
+                return current;
+            }
+            session = null;
+            if (failed != null) {
+                nextEndpoint = (failed.endpointIndex + 1) % endpoints.size();
+            }
+
+            long deadline = System.currentTimeMillis() + reconnectTimeoutMillis;
+            long backoff = initialBackoffMillis;
+            while (true) {
+                Session opened = connectRound();
+                if (opened != null) {
+                    return opened;
+                }
+                // Equal jitter: wait between half the backoff and the whole of it
+                long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+                if (System.currentTimeMillis() + delay > deadline) {
+                    throw new ConnectException("No server reachable at " + endpoints);
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RemoteException("Interrupted while connecting to the server", e);
+                }
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    // Tries every endpoint once, starting with the next one; must hold connectLock
+    private Session connectRound() {
+        for (int i = 0; i < endpoints.size(); i++) {
+            int index = nextEndpoint;
+            Endpoint endpoint = endpoints.get(index);
+            try {
+                Registry registry = LocateRegistry.getRegistry(endpoint.host, endpoint.port);
+                Session opened = new Session(index, registry,
+                        (InventoryInterface) registry.lookup(INVENTORY_SERVICE),
+                        (AuthInterface) registry.lookup(AUTH_SERVICE));
+                session = opened;
+                Logger.log("CONNECTION", "Connected to server " + endpoint, "system");
+                return opened;
+            } catch (RemoteException | NotBoundException e) {
+                Logger.log("CONNECTION", "Server " + endpoint + " unreachable: " + e.getMessage(), "system");
+                nextEndpoint = (index + 1) % endpoints.size();
+            }
+        }
+        return null;
+    }
+
+    private void probe() {
+        try {
+            Session current = session;
+            if (current != null) {
+                try {
+                    current.registry.list();
+                    return;
+                } catch (RemoteException e) {
+                    Logger.log("CONNECTION", "Lost connection to server " + endpoints.get(current.endpointIndex)
+                            + ": " + e.getMessage(), "system");
+                    discard(current);
+                }
+            }
+            // Leave the reconnection to a waiting call, if there is one
+            if (connectLock.tryLock()) {
+                try {
+                    if (session == null) {
+                        connectRound();
+                    }
+                } finally {
+                    connectLock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            Logger.log("ERROR", "Connection probe failed: " + e.getMessage(), "system");
+        }
+    }
+
+    // Makes the next call reconnect, unless another thread already replaced this connection
+    private void discard(Session failed) {
+        connectLock.lock();
+        try {
+            if (session == failed) {
+                session = null;
+                nextEndpoint = (failed.endpointIndex + 1) % endpoints.size();
+            }
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    private <T> T proxy(Class<T> type, Function<Session, Object> stub) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return invokeOnProxy(proxy, method, args);
+                    }
+                    return invoke(stub, method, args);
+                }));
+    }
+
+    private Object invoke(Function<Session, Object> stub, Method method, Object[] args) throws Throwable {
+        Session current = current();
+        try {
+            return method.invoke(stub.apply(current), args);
+        } catch (InvocationTargetException e) {
+            Throwable failure = e.getCause();
+            if (!isConnectionFailure(failure)) {
+                throw failure;
+            }
+            Logger.log("CONNECTION", "Call " + method.getName() + " failed on server "
+                    + endpoints.get(current.endpointIndex) + ": " + failure.getMessage(), "system");
+            if (!neverReachedServer(failure) && !isReadOnly(method)) {
+                discard(current);
+                throw failure;
+            }
+            Session replacement = reconnect(current);
+            try {
+                return method.invoke(stub.apply(replacement), args);
+            } catch (InvocationTargetException again) {
+                if (isConnectionFailure(again.getCause())) {
+                    discard(replacement);
+                }
+                throw again.getCause();
+            }
+        }
+    }
+
+    private Object invokeOnProxy(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "ServerConnection proxy of " + proxy.getClass().getInterfaces()[0].getSimpleName();
+        }
+    }
+
+    // Errors thrown by the service itself reach the client wrapped in a ServerException or ServerError
+    private static boolean isConnectionFailure(Throwable failure) {
+        return failure instanceof RemoteException
+                && !(failure instanceof ServerException)
+                && !(failure instanceof ServerError);
+    }
+
+    private static boolean neverReachedServer(Throwable failure) {
+        return failure instanceof ConnectException
+                || failure instanceof ConnectIOException
+                || failure instanceof UnknownHostException
+                || failure instanceof NoSuchObjectException;
+    }
+
+    private static boolean isReadOnly(Method method) {
+        String name = method.getName();
+        return name.startsWith("get") || name.startsWith("search") || name.startsWith("count")
+                || name.startsWith("query");
+    }
+
+    private static final class Endpoint {
+        final String host;
+        final int port;
+
+        Endpoint(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        static Endpoint parse(String endpoint, int defaultPort) {
+            int colon = endpoint.lastIndexOf(':');
+            if (colon < 0) {
+                return new Endpoint(endpoint, defaultPort);
+            }
+            return new Endpoint(endpoint.substring(0, colon), Integer.parseInt(endpoint.substring(colon + 1).trim()));
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
+    private static final class Session {
+        final int endpointIndex;
+        final Registry registry;
+        final InventoryInterface inventory;
+        final AuthInterface auth;
+
+        Session(int endpointIndex, Registry registry, InventoryInterface inventory, AuthInterface auth) {
+            this.endpointIndex = endpointIndex;
+            this.registry = registry;
+            this.inventory = inventory;
+            this.auth = auth;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package client.ui.async;
+
+import javafx.beans.binding.BooleanBinding;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The AsyncExecutor class runs the remote calls of a controller off the JavaFX application
+ * thread, so that the UI stays responsive for the whole round trip to the server.
+ *
+ * Each call is wrapped in a JavaFX Task and run on its own virtual thread. Its result, or
+ * its failure, is handed to the given callback on the JavaFX application thread, where the
+ * controller may update the scene directly.
+ *
+ * A call submitted under a key supersedes the previous call with the same key: the previous
+ * task is cancelled and its result, should it still arrive, is discarded. This keeps a slow,
+ * stale response from overwriting the result of a newer request (e.g. two searches in a row).
+ * Cancelling never interrupts the thread of a call: a virtual thread interrupted in socket I/O
+ * closes its socket, which would tear down the pooled RMI connection the call is using. The
+ * call runs to completion in the background instead.
+ *
+ * {@link #busyProperty()} is true while any call of this executor is running, for binding
+ * loading indicators and disabling controls.
+ *
+ * Instances are meant to be used from the JavaFX application thread only.
+ */
+public class AsyncExecutor {
+    private static final ExecutorService VIRTUAL_THREADS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ui-call-", 0).factory());
+
+    private final Set<Task<?>> active = new HashSet<>();
+    private final IntegerProperty running = new SimpleIntegerProperty();
+    private final BooleanBinding busy = running.greaterThan(0);
+    private final Map<String, Task<?>> latest = new HashMap<>();
+
+    /**
+     * Runs the call in the background.
+     *
+     * @param call the remote call
+     * @param onSuccess receives the result on the JavaFX application thread
+     * @param onFailure receives the exception thrown by the call on the JavaFX application thread
+     * @return the task running the call, which may be cancelled
+     */
+    public <T> Task<T> submit(RemoteCall<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return call.call();
+            }
+        };
+        active.add(task);
+        running.set(active.size());
+        task.setOnSucceeded(event -> {
+            finished(task);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            finished(task);
+            onFailure.accept(task.getException());
+        });
+        task.setOnCancelled(event -> finished(task));
+        VIRTUAL_THREADS.execute(task);
+        return task;
+    }
+
+    /**
+     * Runs the call in the background, cancelling the previous call submitted with the same key.
+     */
+    public <T> Task<T> submitLatest(String key, RemoteCall<T> call, Consumer<T> onSuccess,
+                                    Consumer<Throwable> onFailure) {
+        cancel(key);
+        Task<T> task = submit(call, onSuccess, onFailure);
+        latest.put(key, task);
+        return task;
+    }
+
+    /**
+     * Cancels the call submitted with the given key, if it is still running, e.g. when its
+     * result was meanwhile found locally.
+     */
+    public void cancel(String key) {
+        Task<?> previous = latest.remove(key);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Cancels every call still running, e.g. when the view is closed.
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(active)) {
+            task.cancel(false);
+        }
+        latest.clear();
+    }
+
+    public BooleanBinding busyProperty() {
+        return busy;
+    }
+
+    private void finished(Task<?> task) {
+        active.remove(task);
+        latest.values().remove(task);
+        running.set(active.size());
+    }
+}
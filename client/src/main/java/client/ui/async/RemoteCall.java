@@ -0,0 +1,11 @@
+package client.ui.async;
+
+/**
+ * A call to a remote service, run off the JavaFX application thread by {@link AsyncExecutor}.
+ *
+ * @param <T> the type of the result
+ */
+@FunctionalInterface
+public interface RemoteCall<T> {
+    T call() throws Exception;
+}
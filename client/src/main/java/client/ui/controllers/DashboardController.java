@@ -1,8 +1,16 @@
 package client.ui.controllers;
 
+import client.connection.ServerConnection;
+import client.ui.async.AsyncExecutor;
+import client.ui.async.RemoteCall;
+import client.ui.search.ProductSearchCache;
+import client.ui.table.PagedProductList;
+import client.ui.table.ProductList;
 import common.interfaces.InventoryInterface;
 import common.util.Logger;
 
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -10,25 +18,26 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import common.models.Product;
+import common.models.ProductQuery;
 import common.models.Employee;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.geometry.Insets;
+import javafx.util.Duration;
 
 import javafx.scene.control.Alert.AlertType;
-import server.util.DatabaseConfig;
 
 import java.io.IOException;
-import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.time.LocalDateTime;
 
 /**
@@ -44,14 +53,41 @@ import java.time.LocalDateTime;
  * - Allowing employee operations such as adding and updating employees, with restricted access for non-admin users.
  * - Switching between user-friendly product and employee dashboard views.
  *
+ * The inventory service is reached through the shared ServerConnection, which connects on
+ * the first call and reconnects when needed. Every call runs in the background through an
+ * AsyncExecutor, and the loading indicator is shown meanwhile.
+ * Loading and searching products share one request slot, so only the latest request
+ * fills the product table.
+ *
+ * Products are searched as the user types: the search starts once the search field has been
+ * left untouched for a short delay, or at once on Enter or the Search button. The server is
+ * asked for at most SEARCH_RESULT_LIMIT matching products; a result within that limit is
+ * kept in a ProductSearchCache, so refining a term is filtered locally instead of asking the
+ * server again; the cache is cleared whenever the products are reloaded after a change.
+ *
+ * Without a search term, the table shows the whole catalog through a PagedProductList, which
+ * only loads the pages scrolled to and lets the server sort them; so does a search matching
+ * more products than the limit. Other search results are shown through a ProductList sorted
+ * locally in the same order. Both lists report only the rows
+ * that changed when reloaded, and cells read the products through direct getters.
+ *
  * This class utilizes JavaFX annotations and components for UI management and user interaction.
  */
 public class DashboardController {
+    private static final int SEARCH_DELAY_MILLIS = 250;
+    private static final int SEARCH_CACHE_SIZE = 32;
+    private static final long SEARCH_CACHE_TTL_MILLIS = 30_000;
+    private static final int SEARCH_RESULT_LIMIT = 1000;
+    private static final ProductQuery ALL_PRODUCTS = new ProductQuery();
+    private static final int PRODUCT_PAGE_SIZE = 200;
+    private static final int PRODUCT_CACHED_PAGES = 50;
+    private static final double PRODUCT_ROW_HEIGHT = 24;
+
     @FXML private VBox productContainer;
     @FXML private VBox employeeContainer;
     @FXML private TextField searchField;
     @FXML private ComboBox filterComboBox;
-    @FXML private TableColumn employeeFullnameColumn;
+    @FXML private TableColumn<Employee, String> employeeFullnameColumn;
     @FXML private Label employeeNameLabel;
     @FXML private VBox vboxContainer;
     @FXML private TableView<Product> productTable;
@@ -59,32 +95,31 @@ public class DashboardController {
     @FXML private TableColumn<Product, String> nameColumn;
     @FXML private TableColumn<Product, String> categoryColumn;
     @FXML private TableColumn<Product, Integer> quantityColumn;
-    @FXML private TableColumn<Product, Double> priceColumn;
+    @FXML private TableColumn<Product, BigDecimal> priceColumn;
     @FXML private TableView<Employee> employeeTable;
     @FXML private TableColumn<Employee, String> employeeUsernameColumn;
     @FXML private TableColumn<Employee, String> employeeRoleColumn;
-
-    private ObservableList<Product> productData;
+    @FXML private ProgressIndicator loadingIndicator;
+
+    private final ProductList searchResults = new ProductList();
+    private PagedProductList catalog;
+    private ProductQuery catalogFilter = ALL_PRODUCTS;
+    private final Map<TableColumn<Product, ?>, ProductQuery.SortField> sortFields = new HashMap<>();
+    private ProductQuery.SortField productSort = ProductQuery.SortField.ID;
+    private boolean productSortAscending = true;
     private ObservableList<Employee> employeeData;
-    private InventoryInterface inventoryService;
+    private final InventoryInterface inventoryService = ServerConnection.getInstance().inventory();
+    private final AsyncExecutor async = new AsyncExecutor();
+    private final ProductSearchCache searchCache = new ProductSearchCache(SEARCH_CACHE_SIZE, SEARCH_CACHE_TTL_MILLIS);
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
     private Boolean isAdmin;
     private String currentUsername;
     private double height = 400;
     private double width = 500;
 
-    public DashboardController() {
-        try {
-            DatabaseConfig config = DatabaseConfig.getInstance();
-            int port = config.getRmiPort();
-            Registry registry = LocateRegistry.getRegistry("localhost",port);
-            inventoryService = (InventoryInterface) registry.lookup("InventoryService");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
     @FXML
     public void initialize() {
+        loadingIndicator.visibleProperty().bind(async.busyProperty());
         productContainer.setVisible(true);
         productContainer.setManaged(true);
         employeeContainer.setVisible(false);
@@ -92,25 +127,73 @@ public class DashboardController {
         initializeProductTable();
         initializeEmployeeTable();
         filterComboBox.getSelectionModel().selectFirst();
+        searchDelay.setOnFinished(event -> searchProducts(false));
+        searchField.textProperty().addListener((observable, oldValue, newValue) -> searchDelay.playFromStart());
+        filterComboBox.valueProperty().addListener((observable, oldValue, newValue) -> searchDelay.playFromStart());
         loadProducts();
     }
 
     private void initializeProductTable() {
-        idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
-        categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
-        quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
-        priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
+        idColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Product::getId));
+        nameColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Product::getName));
+        categoryColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Product::getCategory));
+        quantityColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Product::getQuantity));
+        priceColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Product::getPrice));
         productTable.getColumns().forEach(column -> column.setPrefWidth(width/5));
+        // A fixed row height spares the table from measuring rows to size its scroll bar
+        productTable.setFixedCellSize(PRODUCT_ROW_HEIGHT);
+
+        sortFields.put(idColumn, ProductQuery.SortField.ID);
+        sortFields.put(nameColumn, ProductQuery.SortField.NAME);
+        sortFields.put(categoryColumn, ProductQuery.SortField.CATEGORY);
+        sortFields.put(quantityColumn, ProductQuery.SortField.QUANTITY);
+        sortFields.put(priceColumn, ProductQuery.SortField.PRICE);
+        productTable.setSortPolicy(this::sortProducts);
+
+        catalog = new PagedProductList(async, new PagedProductList.PageSource() {
+            @Override
+            public int count(ProductQuery query) throws Exception {
+                return inventoryService.countProducts(query);
+            }
+
+            @Override
+            public List<Product> fetch(ProductQuery page) throws Exception {
+                return inventoryService.searchProducts(page);
+            }
+        }, PRODUCT_PAGE_SIZE, PRODUCT_CACHED_PAGES, e -> {
+            e.printStackTrace();
+            showAlert(AlertType.ERROR, "Error", "Failed to load products");
+        });
     }
 
     private void initializeEmployeeTable() {
-        employeeUsernameColumn.setCellValueFactory(new PropertyValueFactory<>("username"));
-        employeeFullnameColumn.setCellValueFactory(new PropertyValueFactory<>("fullname"));
-        employeeRoleColumn.setCellValueFactory(new PropertyValueFactory<>("role"));
+        employeeUsernameColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Employee::getUsername));
+        employeeFullnameColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Employee::getFullname));
+        employeeRoleColumn.setCellValueFactory(cell -> cellValue(cell.getValue(), Employee::getRole));
         employeeTable.getColumns().forEach(column -> column.setPrefWidth(width/3));
     }
 
+    // Reads a cell with a direct getter; a product whose page is not loaded yet is null
+    private static <S, T> ObservableValue<T> cellValue(S row, Function<S, T> getter) {
+        return new ReadOnlyObjectWrapper<>(row == null ? null : getter.apply(row));
+    }
+
+    // Sorts on the first column of the sort order only, like the server
+    private Boolean sortProducts(TableView<Product> table) {
+        productSort = ProductQuery.SortField.ID;
+        productSortAscending = true;
+        if (!table.getSortOrder().isEmpty()) {
+            TableColumn<Product, ?> column = table.getSortOrder().get(0);
+            productSort = sortFields.getOrDefault(column, ProductQuery.SortField.ID);
+            productSortAscending = column.getSortType() == TableColumn.SortType.ASCENDING;
+        }
+        searchResults.setSort(productSort, productSortAscending);
+        if (table.getItems() == catalog && !isCatalogSorted()) {
+            catalog.setQuery(catalogQuery());
+        }
+        return true;
+    }
+
     @FXML
     public void handleProductDashboard() {
         productContainer.setVisible(true);
@@ -136,25 +219,19 @@ public class DashboardController {
     }
 
     private void loadEmployees() {
-        try {
-            List<Employee> employees = inventoryService.getAllEmployees();
+        async.submitLatest("employees", () -> inventoryService.getAllEmployees(), employees -> {
             employeeData = FXCollections.observableArrayList(employees);
             employeeTable.setItems(employeeData);
-        } catch (Exception e) {
+        }, e -> {
             e.printStackTrace();
             showAlert(AlertType.ERROR, "Error", "Failed to load employees");
-        }
+        });
     }
 
+    // Reloads the products matching the current search from the server
     private void loadProducts() {
-        try {
-            List<Product> products = inventoryService.getAllProducts();
-            productData = FXCollections.observableArrayList(products);
-            productTable.setItems(productData);
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert(AlertType.ERROR, "Error", "Failed to load products");
-        }
+        searchCache.clear();
+        searchProducts(false);
     }
 
     @FXML
@@ -223,14 +300,16 @@ public class DashboardController {
         confirmationAlert.showAndWait();
 
         if (confirmationAlert.getResult() == ButtonType.YES) {
-            try {
+            async.submit(() -> {
                 inventoryService.deleteProduct(selectedProduct.getId(), currentUsername);
+                return null;
+            }, ignored -> {
                 loadProducts();
                 Logger.log("PRODUCT", "Deleted product: " + selectedProduct.getName(), currentUsername);
-            } catch (Exception e) {
+            }, e -> {
                 e.printStackTrace();
                 showAlert(AlertType.ERROR, "Deletion Error", "Could not delete the product.");
-            }
+            });
         }
     }
 
@@ -317,14 +396,16 @@ public class DashboardController {
         confirmationAlert.showAndWait();
 
         if (confirmationAlert.getResult() == ButtonType.YES) {
-            try {
+            async.submit(() -> {
                 inventoryService.deleteEmployee(selectedEmployee.getId(), currentUsername);
+                return null;
+            }, ignored -> {
                 loadEmployees();
                 Logger.log("EMPLOYEE", "Deleted employee: " + selectedEmployee.getUsername(), currentUsername);
-            } catch (Exception e) {
+            }, e -> {
                 e.printStackTrace();
                 showAlert(AlertType.ERROR, "Deletion Error", "Could not delete the employee.");
-            }
+            });
         }
     }
 
@@ -344,42 +425,113 @@ public class DashboardController {
     }
 
     @FXML
-    public void handleSearch(ActionEvent actionEvent) throws RemoteException {
-        String filter = filterComboBox.getSelectionModel().getSelectedItem().toString();
-        List<Product> filteredProducts = null;
+    public void handleSearch(ActionEvent actionEvent) {
+        searchProducts(true);
+    }
 
-        try {
-            switch (filter) {
-                case "Name":
-                    filteredProducts = inventoryService.getProductsByName(searchField.getText());
-                    break;
-                case "Category":
-                    filteredProducts = inventoryService.getProductsByCategory(searchField.getText());
-                    break;
-                case "Quantity":
-                    try {
-                        int quantity = Integer.parseInt(searchField.getText());
-                        filteredProducts = inventoryService.getProductsByQuantity(quantity);
-                    } catch (NumberFormatException e) {
+    /**
+     * Shows the products matching the current filter and search term, from the search cache
+     * if possible, and from the server otherwise. An empty term shows every product.
+     *
+     * @param explicit whether the search was asked for (Enter or the Search button) rather
+     *                 than triggered by typing; only then is an invalid quantity reported
+     */
+    private void searchProducts(boolean explicit) {
+        searchDelay.stop();
+        String filter = String.valueOf(filterComboBox.getSelectionModel().getSelectedItem());
+        String value = searchField.getText() == null ? "" : searchField.getText();
+
+        if (value.isEmpty()) {
+            async.cancel("products");
+            showCatalog(ALL_PRODUCTS);
+            return;
+        }
+
+        List<Product> cached = searchCache.get(filter, value);
+        if (cached != null) {
+            // A remote search for an older term must not overwrite this result
+            async.cancel("products");
+            showProducts(cached);
+            return;
+        }
+
+        ProductQuery query = new ProductQuery();
+        switch (filter) {
+            case "Name":
+                query.setNameContains(value);
+                break;
+            case "Category":
+                query.setCategoryContains(value);
+                break;
+            case "Quantity":
+                try {
+                    int quantity = Integer.parseInt(value.trim());
+                    query.setQuantityRange(quantity, quantity);
+                } catch (NumberFormatException e) {
+                    if (explicit) {
                         showAlert(AlertType.ERROR, "Invalid Input", "Please enter a valid number for quantity");
-                        return;
                     }
-                    break;
-            }
+                    return;
+                }
+                break;
+            default:
+                return;
+        }
 
-            if (filteredProducts != null) {
-                productTable.setItems(FXCollections.observableArrayList(filteredProducts));
-                Logger.log("SEARCH", "Searched products with filter: " + filter + ", value: " + searchField.getText(), currentUsername);
+        // One row past the limit tells a complete result from a truncated one
+        ProductQuery firstRows = query.page(0, SEARCH_RESULT_LIMIT + 1);
+        RemoteCall<List<Product>> search = () -> inventoryService.searchProducts(firstRows);
+        async.submitLatest("products", search, products -> {
+            if (products.size() > SEARCH_RESULT_LIMIT) {
+                showCatalog(query);
+            } else {
+                searchCache.put(filter, value, products);
+                showProducts(products);
             }
-        } catch (Exception e) {
+            Logger.log("SEARCH", "Searched products with filter: " + filter + ", value: " + value, currentUsername);
+        }, e -> {
             e.printStackTrace();
             showAlert(AlertType.ERROR, "Search Error", "An error occurred while searching");
+        });
+    }
+
+    private void showProducts(List<Product> products) {
+        searchResults.update(products);
+        if (productTable.getItems() != searchResults) {
+            productTable.setItems(searchResults);
         }
     }
 
+    // Shows the products matching the filter page by page, reloading the pages in view
+    private void showCatalog(ProductQuery filter) {
+        if (productTable.getItems() != catalog) {
+            productTable.setItems(catalog);
+        }
+        // The same search, e.g. after a change, keeps the scroll position
+        if (filter.toString().equals(catalogFilter.toString()) && isCatalogSorted()) {
+            catalog.refresh();
+        } else {
+            catalogFilter = filter;
+            catalog.setQuery(catalogQuery());
+        }
+    }
+
+    private boolean isCatalogSorted() {
+        ProductQuery shown = catalog.getQuery();
+        return shown != null && shown.getSortField() == productSort && shown.isAscending() == productSortAscending;
+    }
+
+    private ProductQuery catalogQuery() {
+        ProductQuery query = catalogFilter.page(0, 0);
+        query.setSort(productSort, productSortAscending);
+        return query;
+    }
+
     @FXML
     public void logout(ActionEvent actionEvent) throws IOException {
         Logger.log("LOGOUT", "User logged out", currentUsername);
+        searchDelay.stop();
+        async.cancelAll();
         Stage stage = (Stage) productTable.getScene().getWindow();
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/client/ui/views/LoginView.fxml"));
         Parent root = loader.load();
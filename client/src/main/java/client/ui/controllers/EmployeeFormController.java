@@ -1,5 +1,6 @@
 package client.ui.controllers;
 
+import client.ui.async.AsyncExecutor;
 import common.interfaces.InventoryInterface;
 import common.util.Logger;
 import javafx.event.ActionEvent;
@@ -21,6 +22,9 @@ import java.time.format.DateTimeFormatter;
  * This controller handles the interaction logic for the GUI components and communicates
  * with the remote InventoryInterface to perform operations on employee data. It uses
  * logging for tracking user actions and errors.
+ *
+ * The employee is saved in the background; the form is disabled until the server answers
+ * and closes once the employee is saved.
  */
 public class EmployeeFormController {
     @FXML private TextField employeeFullnameField;
@@ -33,6 +37,7 @@ public class EmployeeFormController {
     private InventoryInterface inventoryService;
     private Employee employeeToUpdate;
     private String currentUsername;
+    private final AsyncExecutor async = new AsyncExecutor();
 
     public void initialize() {
         employeeRoleField.getSelectionModel().selectFirst();
@@ -70,36 +75,39 @@ public class EmployeeFormController {
 
     @FXML
     public void handleSave(ActionEvent actionEvent) {
-        try {
-            String username = employeeUsernameField.getText();
-            String fullname = employeeFullnameField.getText();
-            String password = employeePasswordField.getText();
-            String role = employeeRoleField.getSelectionModel().getSelectedItem().toString();
+        String username = employeeUsernameField.getText();
+        String fullname = employeeFullnameField.getText();
+        String password = employeePasswordField.getText();
+        String role = employeeRoleField.getSelectionModel().getSelectedItem().toString();
 
+        employeeUsernameField.getScene().getRoot().setDisable(true);
+        async.submit(() -> {
             if (employeeToUpdate == null) {
                 Employee newEmployee = new Employee(username, fullname, password, role);
                 inventoryService.addEmployee(newEmployee, currentUsername);
-                Logger.log("EMPLOYEE", "Created new employee: " + username, currentUsername);
-            } else {
-                boolean updatePassword = !employeeToUpdate.getPassword().equals(password);
-                Employee updatedEmployee = updatePassword ?
-                        new Employee(employeeToUpdate.getId(), username, fullname, password, role, null) :
-                        new Employee(employeeToUpdate.getId(), username, fullname, role);
-
-                inventoryService.updateEmployee(updatedEmployee, updatePassword, currentUsername);
-                Logger.log("EMPLOYEE", "Updated employee: " + username + (updatePassword ? " (password changed)" : ""), currentUsername);
+                return "Created new employee: " + username;
             }
-
+            boolean updatePassword = !employeeToUpdate.getPassword().equals(password);
+            Employee updatedEmployee = updatePassword ?
+                    new Employee(employeeToUpdate.getId(), username, fullname, password, role, null) :
+                    new Employee(employeeToUpdate.getId(), username, fullname, role);
+
+            inventoryService.updateEmployee(updatedEmployee, updatePassword, currentUsername);
+            return "Updated employee: " + username + (updatePassword ? " (password changed)" : "");
+        }, message -> {
+            Logger.log("EMPLOYEE", message, currentUsername);
             closeForm();
-        } catch (Exception e) {
+        }, e -> {
+            employeeUsernameField.getScene().getRoot().setDisable(false);
             Logger.log("ERROR", "Error saving employee: " + e.getMessage(), currentUsername);
             e.printStackTrace();
-        }
+        });
     }
 
     @FXML
     public void handleCancel(ActionEvent actionEvent) {
         Logger.log("CANCEL", "Cancelled employee form", currentUsername);
+        async.cancelAll();
         closeForm();
     }
 
@@ -1,20 +1,21 @@
 package client.ui.controllers;
 
+import client.connection.ServerConnection;
+import client.ui.async.AsyncExecutor;
 import common.interfaces.AuthInterface;
 import common.util.Logger;
-import common.models.Employee;
-import server.util.DatabaseConfig;
+import common.models.AuthResult;
 import javafx.fxml.FXML;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import javafx.fxml.FXMLLoader;
 
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
 
 /**
  * The LoginController class handles the user login functionality of the application.
@@ -37,40 +38,56 @@ import java.rmi.registry.Registry;
  * - authService: An instance of the AuthInterface used for remote authentication.
  *
  * Methods:
- * - initialize(): Sets up the authentication service by connecting to an RMI registry. Handles
+ * - initialize(): Connects to the server through the shared ServerConnection. Handles
  *   connection errors by displaying relevant messages.
  * - handleLogin(): Captures the user input, sends it to the authentication service, and handles
  *   the response. Provides feedback through the UI or navigates to the dashboard for successful login.
+ *
+ * The connection and the authentication (which includes the server-side BCrypt check) run
+ * in the background; the login button is disabled and a progress indicator is shown meanwhile.
  */
 public class LoginController {
     @FXML private TextField usernameField;
     @FXML private PasswordField passwordField;
     @FXML private Label errorLabel;
+    @FXML private Button loginButton;
+    @FXML private ProgressIndicator loginProgress;
 
-    private AuthInterface authService;
+    private final AuthInterface authService = ServerConnection.getInstance().auth();
+    private final AsyncExecutor async = new AsyncExecutor();
 
     @FXML
     public void initialize() {
-        try {
-            DatabaseConfig config = DatabaseConfig.getInstance();
-            int port = config.getRmiPort();
-            Registry registry = LocateRegistry.getRegistry("localhost",port);
-            authService = (AuthInterface) registry.lookup("AuthService");
-        } catch (Exception e) {
+        loginProgress.visibleProperty().bind(async.busyProperty());
+        loginButton.disableProperty().bind(async.busyProperty());
+        async.submit(() -> {
+            ServerConnection.getInstance().connect();
+            return null;
+        }, connected -> { }, e -> {
             Logger.log("ERROR", "Failed to connect to RMI registry: " + e.getMessage(), "system");
             this.errorLabel.setText("Error connecting to server");
             this.errorLabel.setVisible(true);
-        }
+        });
     }
 
-
     @FXML
     public void handleLogin() {
         String username = usernameField.getText();
         String password = passwordField.getText();
+        errorLabel.setVisible(false);
+
+        async.submit(() -> authService.authenticate(username, password),
+                employee -> showLoginResult(username, employee),
+                e -> {
+                    Logger.log("ERROR", "Login error: " + e.getMessage(), "system");
+                    e.printStackTrace();
+                    errorLabel.setText("Error connecting to server");
+                    errorLabel.setVisible(true);
+                });
+    }
 
+    private void showLoginResult(String username, AuthResult employee) {
         try {
-            Employee employee = authService.authenticate(username, password);
             if (employee == null) {
                 Logger.log("LOGIN_FAILED", "Invalid login attempt for username: " + username, "system");
                 errorLabel.setText("Invalid username or password");
@@ -98,9 +115,9 @@ public class LoginController {
                 errorLabel.setVisible(true);
             }
         } catch (Exception e) {
-            Logger.log("ERROR", "Login error: " + e.getMessage(), "system");
+            Logger.log("ERROR", "Failed to open dashboard: " + e.getMessage(), "system");
             e.printStackTrace();
-            errorLabel.setText("Error connecting to server");
+            errorLabel.setText("Could not open the dashboard");
             errorLabel.setVisible(true);
         }
     }
@@ -1,5 +1,6 @@
 package client.ui.controllers;
 
+import client.ui.async.AsyncExecutor;
 import common.interfaces.InventoryInterface;
 import common.util.Logger;
 import javafx.event.ActionEvent;
@@ -22,6 +23,9 @@ import java.math.BigDecimal;
  * - Populating the form fields with existing product data for updates.
  * - Handling user actions for saving or cancelling form operations.
  * - Validating and processing user input to ensure correct product data before saving.
+ *
+ * The product is saved in the background; the form is disabled until the server answers
+ * and closes once the product is saved.
  */
 public class ProductFormController {
     @FXML private TextField nameField;
@@ -32,6 +36,7 @@ public class ProductFormController {
     private InventoryInterface inventoryService;
     private Product productToUpdate;
     private String currentUsername;
+    private final AsyncExecutor async = new AsyncExecutor();
 
     public void setInventoryService(InventoryInterface inventoryService) {
         this.inventoryService = inventoryService;
@@ -58,20 +63,34 @@ public class ProductFormController {
             int quantity = Integer.parseInt(quantityField.getText());
             BigDecimal price = new BigDecimal(priceField.getText());
 
+            Product product;
             if (productToUpdate == null) {
-                Product newProduct = new Product(name, category, quantity, price);
-                inventoryService.addProduct(newProduct, currentUsername);
-                Logger.log("PRODUCT", "Created new product: " + name, currentUsername);
+                product = new Product(name, category, quantity, price);
             } else {
-                productToUpdate.setName(name);
-                productToUpdate.setCategory(category);
-                productToUpdate.setQuantity(quantity);
-                productToUpdate.setPrice(price);
-                inventoryService.updateProduct(productToUpdate, currentUsername);
-                Logger.log("PRODUCT", "Updated product: " + name, currentUsername);
+                product = productToUpdate;
+                product.setName(name);
+                product.setCategory(category);
+                product.setQuantity(quantity);
+                product.setPrice(price);
             }
 
-            closeForm();
+            boolean isNew = productToUpdate == null;
+            nameField.getScene().getRoot().setDisable(true);
+            async.submit(() -> {
+                if (isNew) {
+                    inventoryService.addProduct(product, currentUsername);
+                } else {
+                    inventoryService.updateProduct(product, currentUsername);
+                }
+                return null;
+            }, ignored -> {
+                Logger.log("PRODUCT", (isNew ? "Created new product: " : "Updated product: ") + name, currentUsername);
+                closeForm();
+            }, e -> {
+                nameField.getScene().getRoot().setDisable(false);
+                Logger.log("ERROR", "Error saving product: " + e.getMessage(), currentUsername);
+                e.printStackTrace();
+            });
         } catch (NumberFormatException e) {
             Logger.log("ERROR", "Invalid number format in product form", currentUsername);
             // Show error alert
@@ -84,6 +103,7 @@ public class ProductFormController {
     @FXML
     public void handleCancel(ActionEvent actionEvent) {
         Logger.log("CANCEL", "Cancelled product form", currentUsername);
+        async.cancelAll();
         closeForm();
     }
 
@@ -0,0 +1,152 @@
+package client.ui.search;
+
+import common.models.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The ProductSearchCache class keeps the results of the recent product searches of the
+ * dashboard, keyed by filter and search term, so that typing in the search field does not
+ * cost a remote call per keystroke.
+ *
+ * The Name and Category searches of the server match every product whose field contains
+ * the term (SQL LIKE '%term%', case-insensitive). The result for a term is therefore a
+ * subset of the result for any of its prefixes, and a refined term is answered by filtering
+ * the cached result of its longest cached prefix; a result cached under the empty term, i.e.
+ * the whole catalog, refines every such search. Quantity searches match an exact value and are only
+ * answered from the cache for the very same term.
+ *
+ * A result is only refined when the term and the searched field of every cached product are
+ * ASCII: the server compares them with an accent-insensitive collation, which a local
+ * lower-case comparison cannot reproduce. Only complete results may be cached, since a
+ * truncated result cannot be refined.
+ *
+ * Entries expire after a fixed time, so that changes made by other clients show up again,
+ * and the least recently used entries are dropped beyond a fixed count. The cache must be
+ * cleared after each change made by this client.
+ *
+ * Instances are meant to be used from the JavaFX application thread only.
+ */
+public class ProductSearchCache {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public ProductSearchCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ProductSearchCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the products matching the search, from the cached result of the same search or
+     * of a shorter term, or null if the server has to be asked.
+     *
+     * @param filter the search filter ("Name", "Category" or "Quantity")
+     * @param term the search term; an empty term means the whole catalog
+     */
+    public List<Product> get(String filter, String term) {
+        String normalized = normalize(term);
+        Entry exact = fresh(key(filter, normalized));
+        if (exact != null) {
+            return exact.products;
+        }
+        if (!isRefinable(filter, normalized)) {
+            return null;
+        }
+        for (int length = normalized.length() - 1; length >= 0; length--) {
+            Entry prefix = fresh(key(filter, normalized.substring(0, length)));
+            if (prefix != null) {
+                // A row the term cannot be compared with locally sends the search to the server
+                return refine(prefix.products, filter, normalized);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches the complete result of a search made on the server.
+     */
+    public void put(String filter, String term, List<Product> products) {
+        entries.put(key(filter, normalize(term)),
+                new Entry(List.copyOf(products), System.currentTimeMillis()));
+    }
+
+    /**
+     * Drops every cached result, e.g. after a product was added, updated or deleted.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry fresh(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.createdAt > ttlMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    // Returns null if a product cannot be compared with the term locally
+    private static List<Product> refine(List<Product> products, String filter, String term) {
+        List<Product> refined = new ArrayList<>();
+        for (Product product : products) {
+            String value = "Name".equals(filter) ? product.getName() : product.getCategory();
+            if (value == null) {
+                continue;
+            }
+            if (!isAscii(value)) {
+                return null;
+            }
+            if (value.toLowerCase(Locale.ROOT).contains(term)) {
+                refined.add(product);
+            }
+        }
+        return refined;
+    }
+
+    // LIKE wildcards and non-ASCII characters in the term have no local equivalent, so such
+    // terms always go to the server
+    private static boolean isRefinable(String filter, String term) {
+        return ("Name".equals(filter) || "Category".equals(filter)) && isAscii(term)
+                && term.indexOf('%') < 0 && term.indexOf('_') < 0 && term.indexOf('\\') < 0;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Every filter of the empty term is the whole catalog
+    private static String key(String filter, String term) {
+        return term.isEmpty() ? "" : filter + '\u0000' + term;
+    }
+
+    private static String normalize(String term) {
+        return term == null ? "" : term.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        final List<Product> products;
+        final long createdAt;
+
+        Entry(List<Product> products, long createdAt) {
+            this.products = products;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package client.ui.table;
+
+import client.ui.async.AsyncExecutor;
+import common.models.Product;
+import common.models.ProductQuery;
+
+import javafx.concurrent.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The PagedProductList class presents every product matching a query, however many there
+ * are, while only holding the rows around those the table displays.
+ *
+ * The list knows its size from a count made on the server, and loads its rows by pages of
+ * a fixed size. A row whose page is not loaded yet reads as null, which the table shows as
+ * an empty row, and its page is requested from the server in the background; when the page
+ * arrives, its rows are reported as changed and the table redraws them. Since the table
+ * only reads the rows it displays, scrolling only loads the pages scrolled to. Pages that
+ * have not been read for a while are dropped beyond a fixed count, and when more pages are
+ * requested at once than a fixed limit (e.g. while dragging the scroll bar), the oldest
+ * requests are cancelled: their pages are discarded when they arrive, and their threads are
+ * not interrupted, so that the pooled RMI connections they use stay open.
+ *
+ * The rows are sorted by the server, on its indexes, in the order given by the query.
+ *
+ * {@link #refresh()} reloads the count and the most recently read pages and only reports
+ * the rows that changed, so the table keeps its scroll position and selection.
+ *
+ * Instances are meant to be used from the JavaFX application thread only.
+ */
+public class PagedProductList extends ProductRowList {
+    private static final int MAX_PAGE_REQUESTS = 4;
+    private static final int REFRESHED_PAGES = 3;
+    private static final String REQUEST_KEY = "paged-products";
+
+    /**
+     * Counts and fetches the products of a query; called on a background thread.
+     */
+    public interface PageSource {
+        int count(ProductQuery query) throws Exception;
+
+        List<Product> fetch(ProductQuery page) throws Exception;
+    }
+
+    private final AsyncExecutor async;
+    private final PageSource source;
+    private final int pageSize;
+    private final Consumer<Throwable> onFailure;
+    private final Map<Integer, List<Product>> pages;
+    private final Map<Integer, Task<List<Product>>> requests = new LinkedHashMap<>();
+    private ProductQuery query;
+    private int size;
+    private int generation;
+
+    /**
+     * @param async runs the calls to the server
+     * @param source counts and fetches the products
+     * @param pageSize the number of rows fetched at once
+     * @param maxPages the number of pages kept in memory
+     * @param onFailure receives the errors of the server on the JavaFX application thread
+     */
+    public PagedProductList(AsyncExecutor async, PageSource source, int pageSize, int maxPages,
+                            Consumer<Throwable> onFailure) {
+        this.async = async;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.onFailure = onFailure;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Product>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    @Override
+    public Product get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int page = index / pageSize;
+        List<Product> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = index % pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Shows the products matching the given query. The current rows stay shown until the
+     * count and the first page of the new query have arrived.
+     */
+    public void setQuery(ProductQuery query) {
+        ProductQuery first = query.page(0, pageSize);
+        async.submitLatest(REQUEST_KEY, () -> new Snapshot(source.count(query), Map.of(0, source.fetch(first))), snapshot -> {
+            int previousSize = size;
+            reset(query, snapshot.count);
+            pages.putAll(snapshot.pages);
+            if (previousSize > 0 || size > 0) {
+                beginChange();
+                nextReplace(0, size, Collections.nCopies(previousSize, null));
+                endChange();
+            }
+        }, onFailure);
+    }
+
+    /**
+     * Returns the query of the rows shown, or null if none was shown yet.
+     */
+    public ProductQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Reloads the count and the most recently read pages, and reports the rows that changed.
+     * Loads the first page if no query was shown yet.
+     */
+    public void refresh() {
+        if (query == null) {
+            setQuery(new ProductQuery());
+            return;
+        }
+        ProductQuery current = query;
+        List<Integer> recent = new ArrayList<>(pages.keySet());
+        List<Integer> refreshed = recent.subList(Math.max(0, recent.size() - REFRESHED_PAGES), recent.size());
+        Map<Integer, List<Product>> previous = new LinkedHashMap<>();
+        for (Integer page : refreshed) {
+            previous.put(page, pages.get(page));
+        }
+
+        async.submitLatest(REQUEST_KEY, () -> {
+            Map<Integer, List<Product>> reloaded = new LinkedHashMap<>();
+            for (Integer page : previous.keySet()) {
+                reloaded.put(page, source.fetch(current.page(page * pageSize, pageSize)));
+            }
+            return new Snapshot(source.count(current), reloaded);
+        }, snapshot -> {
+            int previousSize = size;
+            reset(current, snapshot.count);
+            pages.putAll(snapshot.pages);
+
+            beginChange();
+            for (Map.Entry<Integer, List<Product>> entry : snapshot.pages.entrySet()) {
+                int from = entry.getKey() * pageSize;
+                List<Product> before = clip(previous.get(entry.getKey()), from, previousSize);
+                List<Product> after = clip(entry.getValue(), from, size);
+                nextChangedRows(from, before, after);
+            }
+            if (size > previousSize) {
+                nextAdd(previousSize, size);
+            } else if (size < previousSize) {
+                nextRemove(size, Collections.nCopies(previousSize - size, null));
+            }
+            endChange();
+        }, onFailure);
+    }
+
+    private void requestPage(int page) {
+        // A page that failed to load is only requested again by the next refresh
+        if (requests.containsKey(page)) {
+            return;
+        }
+        int requestedGeneration = generation;
+        ProductQuery window = query.page(page * pageSize, pageSize);
+        requests.put(page, async.submit(() -> source.fetch(window), rows -> {
+            if (requestedGeneration != generation) {
+                return;
+            }
+            requests.remove(page);
+            pages.put(page, rows);
+            int from = page * pageSize;
+            List<Product> after = clip(rows, from, size);
+            beginChange();
+            nextChangedRows(from, Collections.nCopies(after.size(), null), after);
+            endChange();
+        }, e -> {
+            if (requestedGeneration == generation) {
+                onFailure.accept(e);
+            }
+        }));
+        cancelOldestRequests();
+    }
+
+    // The pages requested first were most likely scrolled past already
+    private void cancelOldestRequests() {
+        int pending = 0;
+        for (Task<List<Product>> task : requests.values()) {
+            if (!task.isDone()) {
+                pending++;
+            }
+        }
+        for (Iterator<Task<List<Product>>> it = requests.values().iterator(); it.hasNext() && pending > MAX_PAGE_REQUESTS; ) {
+            Task<List<Product>> task = it.next();
+            if (!task.isDone()) {
+                task.cancel(false);
+                it.remove();
+                pending--;
+            }
+        }
+    }
+
+    private void reset(ProductQuery query, int size) {
+        for (Task<List<Product>> task : requests.values()) {
+            task.cancel(false);
+        }
+        requests.clear();
+        pages.clear();
+        generation++;
+        this.query = query;
+        this.size = size;
+    }
+
+    // Keeps the rows of a page that fall within the list
+    private static List<Product> clip(List<Product> rows, int from, int size) {
+        if (rows == null) {
+            return Collections.emptyList();
+        }
+        return rows.subList(0, Math.max(0, Math.min(rows.size(), size - from)));
+    }
+
+    private static final class Snapshot {
+        final int count;
+        final Map<Integer, List<Product>> pages;
+
+        Snapshot(int count, Map<Integer, List<Product>> pages) {
+            this.count = count;
+            this.pages = pages;
+        }
+    }
+}
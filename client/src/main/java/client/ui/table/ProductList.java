@@ -0,0 +1,61 @@
+package client.ui.table;
+
+import common.models.Product;
+import common.models.ProductQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ProductList class holds a list of products loaded at once, such as the result of a
+ * search, sorted locally in the order the server would use.
+ *
+ * {@link #update(List)} replaces the content of the list but only reports the rows that
+ * changed, and the rows added or removed at its end.
+ */
+public class ProductList extends ProductRowList {
+    private List<Product> rows = new ArrayList<>();
+    private ProductQuery.SortField sortField = ProductQuery.SortField.ID;
+    private boolean ascending = true;
+
+    @Override
+    public Product get(int index) {
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Shows the given products, in the current sort order.
+     */
+    public void update(List<Product> products) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(comparator(sortField, ascending));
+        List<Product> previous = rows;
+        rows = sorted;
+
+        beginChange();
+        nextChangedRows(0, previous, sorted);
+        if (sorted.size() > previous.size()) {
+            nextAdd(previous.size(), sorted.size());
+        } else if (sorted.size() < previous.size()) {
+            nextRemove(sorted.size(), previous.subList(sorted.size(), previous.size()));
+        }
+        endChange();
+    }
+
+    /**
+     * Sorts the list by the given field.
+     */
+    public void setSort(ProductQuery.SortField sortField, boolean ascending) {
+        if (this.sortField == sortField && this.ascending == ascending) {
+            return;
+        }
+        this.sortField = sortField;
+        this.ascending = ascending;
+        update(rows);
+    }
+}
@@ -0,0 +1,79 @@
+package client.ui.table;
+
+import common.models.Product;
+import common.models.ProductQuery;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Base class of the read-only product lists shown by the product table.
+ *
+ * The lists are never replaced as a whole: when their rows are reloaded, only the rows that
+ * actually changed are reported to the table, so that it keeps its scroll position and
+ * selection and only redraws the cells that changed.
+ */
+abstract class ProductRowList extends ObservableListBase<Product> {
+
+    /**
+     * Reports the rows of a range that differ between its previous and its current content.
+     * Must be called between beginChange() and endChange(); only the indices present in both
+     * lists are compared, a change of size is reported by the caller.
+     *
+     * @param from the index of the first row of the range
+     * @param before the previous rows of the range (null for a row that was not loaded)
+     * @param after the current rows of the range
+     */
+    protected void nextChangedRows(int from, List<Product> before, List<Product> after) {
+        int common = Math.min(before.size(), after.size());
+        for (int i = 0; i < common; i++) {
+            if (!sameRow(before.get(i), after.get(i))) {
+                nextSet(from + i, before.get(i));
+            }
+        }
+    }
+
+    static boolean sameRow(Product a, Product b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        return a.getId() == b.getId()
+                && a.getQuantity() == b.getQuantity()
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getCategory(), b.getCategory())
+                && (a.getPrice() == null ? b.getPrice() == null
+                        : b.getPrice() != null && a.getPrice().compareTo(b.getPrice()) == 0);
+    }
+
+    /**
+     * Returns the order the server uses for the given sort field, ties broken by ID.
+     */
+    static Comparator<Product> comparator(ProductQuery.SortField field, boolean ascending) {
+        Comparator<Product> comparator;
+        switch (field) {
+            case NAME:
+                comparator = Comparator.comparing(Product::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                break;
+            case CATEGORY:
+                comparator = Comparator.comparing(Product::getCategory, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                break;
+            case QUANTITY:
+                comparator = Comparator.comparingInt(Product::getQuantity);
+                break;
+            case PRICE:
+                comparator = Comparator.comparing(Product::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            default:
+                comparator = Comparator.comparingInt(Product::getId);
+                break;
+        }
+        comparator = comparator.thenComparingInt(Product::getId);
+        return ascending ? comparator : comparator.reversed();
+    }
+}
@@ -1,6 +1,6 @@
 package common.interfaces;
 
-import common.models.Employee;
+import common.models.AuthResult;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.Map;
@@ -8,12 +8,12 @@ import java.util.Map;
 /**
  * The AuthInterface defines the remote methods required for handling user authentication
  * in a distributed system. Implementations of this interface are responsible for verifying
- * user credentials and returning the relevant Employee object upon successful authentication.
+ * user credentials and returning an AuthResult describing the authenticated user.
  *
  * This interface extends the Remote interface, indicating compliance with RMI requirements
  * for supporting remote method invocation.
  */
 public interface AuthInterface extends Remote {
-    Employee authenticate(String username, String password) throws RemoteException;
+    AuthResult authenticate(String username, String password) throws RemoteException;
     // Additional methods if required
 }
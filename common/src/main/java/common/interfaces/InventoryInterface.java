@@ -1,9 +1,16 @@
 package common.interfaces;
 
+import common.models.AuditEvent;
+import common.models.AuditFilter;
 import common.models.Employee;
+import common.models.InventoryStats;
 import common.models.Product;
+import common.models.ProductQuery;
+import common.models.StockAlert;
+import common.models.StockMovement;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,6 +26,9 @@ public interface InventoryInterface extends Remote {
     List<Product> getProductsByCategory(String category) throws RemoteException;
     List<Product> getProductsByName(String productName) throws RemoteException;
     List<Product> getProductsByQuantity(int quantity) throws RemoteException;
+    List<Product> searchProducts(ProductQuery query) throws RemoteException;
+    int countProducts(ProductQuery query) throws RemoteException;
+    InventoryStats getInventoryStats() throws RemoteException;
     List<Employee> getAllEmployees() throws RemoteException;
     void addProduct(Product product, String username) throws RemoteException;
     void updateProduct(Product product, String username) throws RemoteException;
@@ -26,4 +36,12 @@ public interface InventoryInterface extends Remote {
     void addEmployee(Employee employee, String username) throws RemoteException;
     void updateEmployee(Employee employee, boolean updatePassword, String username) throws RemoteException;
     void deleteEmployee(int id, String username) throws RemoteException;
+    void setReorderPoint(int productId, int reorderPoint, String username) throws RemoteException;
+    void removeReorderPoint(int productId, String username) throws RemoteException;
+    List<StockAlert> getLowStockAlerts(int limit) throws RemoteException;
+    List<StockMovement> getStockMovements(int productId, int limit) throws RemoteException;
+    Integer getQuantityAt(int productId, LocalDateTime at) throws RemoteException;
+    List<AuditEvent> queryAudit(AuditFilter filter) throws RemoteException;
+    void subscribeStockAlerts(StockAlertListener listener) throws RemoteException;
+    void unsubscribeStockAlerts(StockAlertListener listener) throws RemoteException;
 }
\ No newline at end of file
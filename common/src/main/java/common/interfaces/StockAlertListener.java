@@ -0,0 +1,17 @@
+package common.interfaces;
+
+import common.models.StockAlert;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The StockAlertListener defines the remote callback used by the server to push
+ * low-stock notifications to subscribed clients. Clients export an implementation
+ * of this interface and register it through the InventoryInterface.
+ *
+ * The listener is called when a product falls to or below its reorder point, and
+ * again when it is restocked above it (see {@link StockAlert#isBelowReorderPoint()}).
+ */
+public interface StockAlertListener extends Remote {
+    void onStockAlert(StockAlert alert) throws RemoteException;
+}
@@ -0,0 +1,70 @@
+package common.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a single audit record: an action performed by a user on an entity
+ * of the system (for example ADD_PRODUCT on product 42 by "admin").
+ *
+ * Audit events are written to the structured audit log by the server and can be
+ * retrieved by clients through an AuditFilter.
+ *
+ * This class implements Serializable so that it can be sent to clients over RMI.
+ */
+public class AuditEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final LocalDateTime timestamp;
+    private final String action;
+    private final String username;
+    private final String entityType;
+    private final String entityId;
+    private final String details;
+
+    public AuditEvent(LocalDateTime timestamp, String action, String username,
+                      String entityType, String entityId, String details) {
+        this.timestamp = timestamp;
+        this.action = action;
+        this.username = username;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.details = details;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEvent{" +
+                "timestamp=" + timestamp +
+                ", action='" + action + '\'' +
+                ", username='" + username + '\'' +
+                ", entityType='" + entityType + '\'' +
+                ", entityId='" + entityId + '\'' +
+                ", details='" + details + '\'' +
+                '}';
+    }
+}
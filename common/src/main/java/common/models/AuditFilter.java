@@ -0,0 +1,120 @@
+package common.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Represents the criteria of an audit log query. Every criterion is optional:
+ * a null value means "no restriction". The time range is inclusive on both ends.
+ *
+ * Example: all the changes made to product 42 last week
+ * <pre>
+ *     AuditFilter filter = new AuditFilter();
+ *     filter.setEntity("PRODUCT", "42");
+ *     filter.setTimeRange(LocalDateTime.now().minusWeeks(1), null);
+ * </pre>
+ *
+ * This class implements Serializable so that it can be passed over RMI.
+ */
+public class AuditFilter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String action;
+    private String username;
+    private String entityType;
+    private String entityId;
+    private int limit = 1000; // 0 means no limit
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setTimeRange(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setEntity(String entityType, String entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Checks whether the given event satisfies every criterion of this filter.
+     *
+     * @param event the audit event to test
+     * @return true if the event matches the filter
+     */
+    public boolean matches(AuditEvent event) {
+        if (from != null && event.getTimestamp().isBefore(from)) {
+            return false;
+        }
+        if (to != null && event.getTimestamp().isAfter(to)) {
+            return false;
+        }
+        if (action != null && !action.equals(event.getAction())) {
+            return false;
+        }
+        if (username != null && !username.equals(event.getUsername())) {
+            return false;
+        }
+        if (entityType != null && !entityType.equals(event.getEntityType())) {
+            return false;
+        }
+        if (entityId != null && !entityId.equals(event.getEntityId())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditFilter{" +
+                "from=" + from +
+                ", to=" + to +
+                ", action='" + action + '\'' +
+                ", username='" + username + '\'' +
+                ", entityType='" + entityType + '\'' +
+                ", entityId='" + entityId + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package common.models;
+
+import java.io.Serializable;
+
+/**
+ * Represents the outcome of an authentication attempt.
+ * It only carries what the client needs after logging in (identity, display name and role)
+ * and never contains the password hash.
+ *
+ * This class implements Serializable so that it can be returned to clients over RMI.
+ */
+public class AuthResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private final String username;
+    private final String fullname;
+    private final String role;
+    private final boolean authenticated;
+
+    public AuthResult(int id, String username, String fullname, String role, boolean authenticated) {
+        this.id = id;
+        this.username = username;
+        this.fullname = fullname;
+        this.role = role;
+        this.authenticated = authenticated;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullname() {
+        return fullname;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    public boolean isAdmin() {
+        return authenticated && "admin".equalsIgnoreCase(role);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthResult{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", fullname='" + fullname + '\'' +
+                ", role='" + role + '\'' +
+                ", authenticated=" + authenticated +
+                '}';
+    }
+}
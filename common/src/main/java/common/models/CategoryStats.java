@@ -0,0 +1,53 @@
+package common.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Represents the aggregated stock figures of a single product category:
+ * the number of products, the total number of units on hand and the
+ * total stock value (sum of quantity * price).
+ *
+ * This class implements Serializable so that it can be sent to clients over RMI.
+ */
+public class CategoryStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String category;
+    private final long productCount;
+    private final long totalUnits;
+    private final BigDecimal stockValue;
+
+    public CategoryStats(String category, long productCount, long totalUnits, BigDecimal stockValue) {
+        this.category = category;
+        this.productCount = productCount;
+        this.totalUnits = totalUnits;
+        this.stockValue = stockValue;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public BigDecimal getStockValue() {
+        return stockValue;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryStats{" +
+                "category='" + category + '\'' +
+                ", productCount=" + productCount +
+                ", totalUnits=" + totalUnits +
+                ", stockValue=" + stockValue +
+                '}';
+    }
+}
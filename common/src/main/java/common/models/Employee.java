@@ -37,6 +37,9 @@ public class Employee implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public Employee() {
+    }
+
     public Employee(String username, String fullname, String password, String role) {
         this(0,username, fullname, password, role, null);
     }
@@ -78,6 +81,10 @@ public class Employee implements Serializable {
         return authenticated;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setUsername(String username) {
         this.username = username;
     }
@@ -86,6 +93,10 @@ public class Employee implements Serializable {
         this.password = password;
     }
 
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public void setRole(String role) {
         this.role = role;
     }
@@ -0,0 +1,59 @@
+package common.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Represents a snapshot of the inventory totals, broken down per category.
+ * The overall totals are derived from the per-category figures.
+ *
+ * This class implements Serializable so that it can be sent to clients over RMI.
+ */
+public class InventoryStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<CategoryStats> categories;
+
+    public InventoryStats(List<CategoryStats> categories) {
+        this.categories = categories;
+    }
+
+    public List<CategoryStats> getCategories() {
+        return categories;
+    }
+
+    public long getProductCount() {
+        long count = 0;
+        for (CategoryStats stats : categories) {
+            count += stats.getProductCount();
+        }
+        return count;
+    }
+
+    public long getTotalUnits() {
+        long units = 0;
+        for (CategoryStats stats : categories) {
+            units += stats.getTotalUnits();
+        }
+        return units;
+    }
+
+    public BigDecimal getStockValue() {
+        BigDecimal value = BigDecimal.ZERO;
+        for (CategoryStats stats : categories) {
+            value = value.add(stats.getStockValue());
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryStats{" +
+                "productCount=" + getProductCount() +
+                ", totalUnits=" + getTotalUnits() +
+                ", stockValue=" + getStockValue() +
+                ", categories=" + categories +
+                '}';
+    }
+}
@@ -34,6 +34,9 @@ public class Product implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public Product() {
+    }
+
     public Product(String name, String category, int quantity, BigDecimal price) {
         this(0, name, category, quantity, price, null);
     }
@@ -0,0 +1,210 @@
+package common.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a combined product search sent from the client to the server.
+ * A ProductQuery groups several optional predicates (name contains, category contains,
+ * category in, quantity range and price range) together with a sort order and a row window
+ * (offset and limit), so that a composite search, or one page of it, can be
+ * answered with a single remote call. Rows that are equal on the sort field are
+ * ordered by ID, so that successive pages neither overlap nor skip rows.
+ *
+ * Every predicate is optional: a null (or empty) value means "no restriction".
+ * Ranges are inclusive on both ends.
+ *
+ * This class implements Serializable so that it can be passed over RMI.
+ */
+public class ProductQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The fields a search result can be ordered by.
+     */
+    public enum SortField {
+        ID, NAME, CATEGORY, QUANTITY, PRICE
+    }
+
+    private String nameContains;
+    private String categoryContains;
+    private List<String> categories = new ArrayList<>();
+    private Integer minQuantity;
+    private Integer maxQuantity;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private SortField sortField = SortField.ID;
+    private boolean ascending = true;
+    private int limit = 0; // 0 means no limit
+    private int offset = 0;
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    public String getCategoryContains() {
+        return categoryContains;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public Integer getMinQuantity() {
+        return minQuantity;
+    }
+
+    public Integer getMaxQuantity() {
+        return maxQuantity;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setNameContains(String nameContains) {
+        this.nameContains = nameContains;
+    }
+
+    public void setCategoryContains(String categoryContains) {
+        this.categoryContains = categoryContains;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories == null ? new ArrayList<>() : new ArrayList<>(categories);
+    }
+
+    public void addCategory(String category) {
+        this.categories.add(category);
+    }
+
+    public void setQuantityRange(Integer minQuantity, Integer maxQuantity) {
+        this.minQuantity = minQuantity;
+        this.maxQuantity = maxQuantity;
+    }
+
+    public void setPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public void setSort(SortField sortField, boolean ascending) {
+        this.sortField = sortField == null ? SortField.ID : sortField;
+        this.ascending = ascending;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(0, limit);
+    }
+
+    /**
+     * Sets the number of matching rows to skip, in sort order, before the first returned row.
+     */
+    public void setOffset(int offset) {
+        this.offset = Math.max(0, offset);
+    }
+
+    /**
+     * Returns a copy of this query restricted to the given window of rows.
+     */
+    public ProductQuery page(int offset, int limit) {
+        ProductQuery page = new ProductQuery();
+        page.nameContains = nameContains;
+        page.categoryContains = categoryContains;
+        page.categories = new ArrayList<>(categories);
+        page.minQuantity = minQuantity;
+        page.maxQuantity = maxQuantity;
+        page.minPrice = minPrice;
+        page.maxPrice = maxPrice;
+        page.sortField = sortField;
+        page.ascending = ascending;
+        page.setOffset(offset);
+        page.setLimit(limit);
+        return page;
+    }
+
+    /**
+     * Checks whether the given product satisfies every predicate of this query.
+     * Sort order, offset and limit are not taken into account. Name matching is
+     * case-insensitive, like the SQL LIKE comparison used on the server, and so is the
+     * category containment.
+     *
+     * @param product the product to test
+     * @return true if the product matches all predicates of this query
+     */
+    public boolean matches(Product product) {
+        if (nameContains != null && !nameContains.isEmpty()) {
+            if (product.getName() == null
+                    || !product.getName().toLowerCase().contains(nameContains.toLowerCase())) {
+                return false;
+            }
+        }
+        if (categoryContains != null && !categoryContains.isEmpty()) {
+            if (product.getCategory() == null
+                    || !product.getCategory().toLowerCase().contains(categoryContains.toLowerCase())) {
+                return false;
+            }
+        }
+        if (!categories.isEmpty()) {
+            boolean found = false;
+            for (String category : categories) {
+                if (category.equalsIgnoreCase(product.getCategory())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        if (minQuantity != null && product.getQuantity() < minQuantity) {
+            return false;
+        }
+        if (maxQuantity != null && product.getQuantity() > maxQuantity) {
+            return false;
+        }
+        if (minPrice != null && (product.getPrice() == null || product.getPrice().compareTo(minPrice) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && (product.getPrice() == null || product.getPrice().compareTo(maxPrice) > 0)) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductQuery{" +
+                "nameContains='" + nameContains + '\'' +
+                ", categoryContains='" + categoryContains + '\'' +
+                ", categories=" + categories +
+                ", quantity=[" + minQuantity + ", " + maxQuantity + "]" +
+                ", price=[" + minPrice + ", " + maxPrice + "]" +
+                ", sort=" + sortField + (ascending ? " ASC" : " DESC") +
+                ", offset=" + offset +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package common.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Represents the stock state of a product that has a reorder point configured.
+ * A StockAlert pairs the current quantity of a product with its reorder point,
+ * which lets the server and clients decide whether the product needs restocking.
+ *
+ * A product is considered low on stock when its quantity is at or below its reorder point.
+ * The lower the ratio between quantity and reorder point, the more critical the alert.
+ *
+ * This class implements Serializable so that alerts can be sent to clients over RMI.
+ */
+public class StockAlert implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int productId;
+    private final String productName;
+    private final int quantity;
+    private final int reorderPoint;
+    private final LocalDateTime createdAt;
+
+    public StockAlert(int productId, String productName, int quantity, int reorderPoint, LocalDateTime createdAt) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.reorderPoint = reorderPoint;
+        this.createdAt = createdAt;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isBelowReorderPoint() {
+        return quantity <= reorderPoint;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAlert{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", quantity=" + quantity +
+                ", reorderPoint=" + reorderPoint +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package common.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a single entry of the stock movement ledger: a change of the quantity
+ * of a product, along with the reason for the change, the user who made it and
+ * the moment it happened.
+ *
+ * Ledger entries are append-only: they are never updated or deleted, so the
+ * quantity of a product at any point in time can be reconstructed from them.
+ *
+ * This class implements Serializable so that it can be sent to clients over RMI.
+ */
+public class StockMovement implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String REASON_ADD = "ADD";
+    public static final String REASON_UPDATE = "UPDATE";
+    public static final String REASON_DELETE = "DELETE";
+
+    private final long id;
+    private final int productId;
+    private final int delta;
+    private final String reason;
+    private final String username;
+    private final LocalDateTime createdAt;
+
+    public StockMovement(long id, int productId, int delta, String reason, String username, LocalDateTime createdAt) {
+        this.id = id;
+        this.productId = productId;
+        this.delta = delta;
+        this.reason = reason;
+        this.username = username;
+        this.createdAt = createdAt;
+    }
+
+    public StockMovement(int productId, int delta, String reason, String username) {
+        this(0, productId, delta, reason, username, null);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StockMovement{" +
+                "id=" + id +
+                ", productId=" + productId +
+                ", delta=" + delta +
+                ", reason='" + reason + '\'' +
+                ", username='" + username + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
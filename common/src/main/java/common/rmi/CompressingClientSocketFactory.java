@@ -0,0 +1,48 @@
+package common.rmi;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+
+/**
+ * The CompressingClientSocketFactory class opens the client side of the RMI connections to
+ * services exported with a CompressingServerSocketFactory (see FramedSocket).
+ *
+ * The server creates it with its own options and RMI serializes it into the stubs of the
+ * services, so a client needs no configuration of its own.
+ */
+public final class CompressingClientSocketFactory implements RMIClientSocketFactory, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final TransportOptions options;
+
+    public CompressingClientSocketFactory(TransportOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        FramedSocket socket = new FramedSocket(options, TransportMetrics.CLIENT, false);
+        try {
+            socket.connect(new InetSocketAddress(host, port));
+            socket.opened();
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressingClientSocketFactory
+                && options.equals(((CompressingClientSocketFactory) o).options);
+    }
+
+    @Override
+    public int hashCode() {
+        return options.hashCode();
+    }
+}
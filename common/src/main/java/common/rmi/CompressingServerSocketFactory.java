@@ -0,0 +1,70 @@
+package common.rmi;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIServerSocketFactory;
+
+/**
+ * The CompressingServerSocketFactory class accepts the RMI connections of the services
+ * exported with it, with the options it was created with (see FramedSocket).
+ *
+ * A service must be exported with this factory and with the client factory returned by
+ * {@link #clientSocketFactory()}, so that both ends of its connections frame their messages
+ * the same way.
+ */
+public final class CompressingServerSocketFactory implements RMIServerSocketFactory {
+    private static final int BACKLOG = 128;
+
+    private final TransportOptions options;
+
+    public CompressingServerSocketFactory(TransportOptions options) {
+        this.options = options;
+    }
+
+    public CompressingClientSocketFactory clientSocketFactory() {
+        return new CompressingClientSocketFactory(options);
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket() {
+            @Override
+            public Socket accept() throws IOException {
+                FramedSocket socket = new FramedSocket(options, TransportMetrics.SERVER, true);
+                try {
+                    implAccept(socket);
+                    socket.opened();
+                    return socket;
+                } catch (IOException e) {
+                    socket.close();
+                    throw e;
+                }
+            }
+        };
+        try {
+            if (options.getBufferBytes() > 0) {
+                // Inherited by the accepted sockets; must be set before binding to take effect
+                serverSocket.setReceiveBufferSize(options.getBufferBytes());
+            }
+            serverSocket.bind(new InetSocketAddress(port), BACKLOG);
+            return serverSocket;
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    // RMI shares a listening port between the objects exported with equal factories
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CompressingServerSocketFactory
+                && options.equals(((CompressingServerSocketFactory) o).options);
+    }
+
+    @Override
+    public int hashCode() {
+        return options.hashCode();
+    }
+}
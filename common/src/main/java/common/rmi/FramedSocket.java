@@ -0,0 +1,323 @@
+package common.rmi;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The FramedSocket class is the socket of an RMI connection opened by the socket factories
+ * of this package. It sends what RMI writes as frames, each one either raw or compressed,
+ * and counts the traffic of the connection (see TransportMetrics).
+ *
+ * RMI flushes its stream at the end of each message, so a frame is normally one message, or
+ * one chunk of a message larger than the frame buffer. A frame of at least the compression
+ * threshold is compressed with the Deflate stream of the connection, flushed after each frame
+ * (SYNC_FLUSH), so that later frames can refer to the data of earlier ones. Smaller frames
+ * are sent raw, so that short calls do not pay for compression.
+ *
+ * Frame format: a type byte (RAW or DEFLATE), the length of the payload on the wire, then for
+ * a compressed frame the length of the payload once inflated, and the payload.
+ */
+final class FramedSocket extends Socket {
+    static final int FRAME_BYTES = 64 * 1024;
+    private static final byte RAW = 0;
+    private static final byte DEFLATE = 1;
+    private static final int RAW_HEADER = 5;
+    private static final int DEFLATE_HEADER = 9;
+    // Deflate may expand incompressible data slightly
+    private static final int MAX_WIRE_BYTES = FRAME_BYTES + FRAME_BYTES / 2 + 64;
+
+    private final TransportOptions options;
+    private final TransportMetrics metrics;
+    private final boolean serverSide;
+    // Set once connected
+    private volatile TransportMetrics.Connection connection;
+    private InputStream in;
+    private OutputStream out;
+    private boolean closed;
+    private boolean awaitingReply;
+    private long requestStart;
+
+    FramedSocket(TransportOptions options, TransportMetrics metrics, boolean serverSide) throws SocketException {
+        this.options = options;
+        this.metrics = metrics;
+        this.serverSide = serverSide;
+        if (options.getBufferBytes() > 0) {
+            // Set before connecting, so that the TCP window scale covers the receive buffer
+            setReceiveBufferSize(options.getBufferBytes());
+        }
+    }
+
+    /**
+     * Applies the socket options and starts counting the connection; called once connected.
+     */
+    void opened() throws SocketException {
+        setTcpNoDelay(options.isTcpNoDelay());
+        if (options.getBufferBytes() > 0) {
+            setSendBufferSize(options.getBufferBytes());
+        }
+        connection = metrics.connectionOpened(getRemoteSocketAddress());
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() throws IOException {
+        if (in == null) {
+            in = new FrameInputStream(super.getInputStream());
+        }
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() throws IOException {
+        if (out == null) {
+            out = new FrameOutputStream(super.getOutputStream());
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (connection != null) {
+                connection.closed();
+            }
+        }
+        super.close();
+    }
+
+    // A request starts with its first frame and ends with the first frame of the reply
+    private void frameRead() {
+        if (serverSide && !awaitingReply) {
+            awaitingReply = true;
+            requestStart = System.nanoTime();
+        }
+    }
+
+    private void frameWritten() {
+        if (serverSide && awaitingReply) {
+            awaitingReply = false;
+            connection.call(System.nanoTime() - requestStart);
+        }
+    }
+
+    private final class FrameOutputStream extends OutputStream {
+        private final OutputStream socket;
+        private final Deflater deflater;
+        // The header of the frame is written in front of its payload, to send both at once
+        private final byte[] frame = new byte[DEFLATE_HEADER + FRAME_BYTES];
+        private byte[] compressed;
+        private int count;
+
+        FrameOutputStream(OutputStream socket) {
+            this.socket = socket;
+            this.deflater = options.isCompression() ? new Deflater(options.getCompressionLevel()) : null;
+            this.compressed = deflater != null ? new byte[DEFLATE_HEADER + FRAME_BYTES] : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == FRAME_BYTES) {
+                writeFrame();
+            }
+            frame[DEFLATE_HEADER + count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == FRAME_BYTES) {
+                    writeFrame();
+                }
+                int n = Math.min(len, FRAME_BYTES - count);
+                System.arraycopy(b, off, frame, DEFLATE_HEADER + count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeFrame();
+            }
+            socket.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+                socket.close();
+            }
+        }
+
+        private void writeFrame() throws IOException {
+            frameWritten();
+            if (deflater != null && count >= options.getCompressionThreshold()) {
+                deflater.setInput(frame, DEFLATE_HEADER, count);
+                int length = DEFLATE_HEADER;
+                while (true) {
+                    if (length == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    int n = deflater.deflate(compressed, length, compressed.length - length, Deflater.SYNC_FLUSH);
+                    length += n;
+                    if (length < compressed.length) {
+                        break;
+                    }
+                }
+                compressed[0] = DEFLATE;
+                putInt(compressed, 1, length - DEFLATE_HEADER);
+                putInt(compressed, 5, count);
+                socket.write(compressed, 0, length);
+                connection.wrote(count, length, true);
+            } else {
+                int start = DEFLATE_HEADER - RAW_HEADER;
+                frame[start] = RAW;
+                putInt(frame, start + 1, count);
+                socket.write(frame, start, RAW_HEADER + count);
+                connection.wrote(count, RAW_HEADER + count, false);
+            }
+            count = 0;
+        }
+    }
+
+    private final class FrameInputStream extends InputStream {
+        private final DataInputStream socket;
+        private Inflater inflater;
+        private byte[] frame = new byte[FRAME_BYTES];
+        private byte[] compressed;
+        private final byte[] drain = new byte[1];
+        private int position;
+        private int limit;
+
+        FrameInputStream(InputStream socket) {
+            this.socket = new DataInputStream(new BufferedInputStream(socket, 8192));
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !nextFrame()) {
+                return -1;
+            }
+            return frame[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && !nextFrame()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(frame, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (inflater != null) {
+                inflater.end();
+            }
+            socket.close();
+        }
+
+        private boolean nextFrame() throws IOException {
+            do {
+                int type = socket.read();
+                if (type < 0) {
+                    return false;
+                }
+                int length = socket.readInt();
+                if (length < 0 || length > MAX_WIRE_BYTES) {
+                    throw new IOException("Corrupt RMI frame: length " + length);
+                }
+                if (type == RAW) {
+                    ensureCapacity(length);
+                    socket.readFully(frame, 0, length);
+                    limit = length;
+                    connection.read(length, RAW_HEADER + length);
+                } else if (type == DEFLATE) {
+                    int inflatedLength = socket.readInt();
+                    if (inflatedLength < 0 || inflatedLength > FRAME_BYTES) {
+                        throw new IOException("Corrupt RMI frame: inflated length " + inflatedLength);
+                    }
+                    inflate(length, inflatedLength);
+                    limit = inflatedLength;
+                    connection.read(inflatedLength, DEFLATE_HEADER + length);
+                } else {
+                    throw new IOException("Corrupt RMI frame: type " + type);
+                }
+                position = 0;
+                frameRead();
+            } while (limit == 0);
+            return true;
+        }
+
+        private void inflate(int length, int inflatedLength) throws IOException {
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            if (compressed == null || compressed.length < length) {
+                compressed = new byte[Math.max(length, FRAME_BYTES)];
+            }
+            socket.readFully(compressed, 0, length);
+            inflater.setInput(compressed, 0, length);
+            ensureCapacity(inflatedLength);
+            int done = 0;
+            try {
+                while (done < inflatedLength) {
+                    int n = inflater.inflate(frame, done, inflatedLength - done);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflater.finished())) {
+                        throw new EOFException("Truncated compressed RMI frame");
+                    }
+                    done += n;
+                }
+                // Consume the end of the flush, which inflates to nothing, before the next frame
+                while (!inflater.needsInput()) {
+                    if (inflater.inflate(drain) != 0 || inflater.finished()) {
+                        throw new IOException("Corrupt compressed RMI frame: longer than announced");
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed RMI frame", e);
+            }
+        }
+
+        private void ensureCapacity(int length) {
+            if (frame.length < length) {
+                frame = new byte[length];
+            }
+        }
+    }
+
+    private static void putInt(byte[] b, int off, int value) {
+        b[off] = (byte) (value >>> 24);
+        b[off + 1] = (byte) (value >>> 16);
+        b[off + 2] = (byte) (value >>> 8);
+        b[off + 3] = (byte) value;
+    }
+}
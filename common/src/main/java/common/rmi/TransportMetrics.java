@@ -0,0 +1,257 @@
+package common.rmi;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TransportMetrics class counts the traffic of the RMI connections opened by the socket
+ * factories of this package, separately for the server and the client side of this process.
+ *
+ * Each connection has its own counters (see {@link Connection}). Bytes are counted twice: as
+ * written and read by RMI ("message" bytes) and as sent on the network after compression
+ * ("wire" bytes). On the server side, the latency of each call is measured on its connection,
+ * from the arrival of the request to the first bytes of the reply.
+ *
+ * The counters, except the number of open connections, cover the period since the last
+ * {@link #reportAndReset()}, which reports the totals of the side and the busiest connections.
+ * A closed connection is forgotten at once: its last counters are added to those of the closed
+ * connections of the side, which the next report includes in the totals. Memory therefore stays
+ * bounded by the open connections even if no report is ever made.
+ */
+public final class TransportMetrics {
+    public static final TransportMetrics SERVER = new TransportMetrics("server");
+    public static final TransportMetrics CLIENT = new TransportMetrics("client");
+
+    private static final int REPORTED_CONNECTIONS = 10;
+
+    private final String side;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong openConnections = new AtomicLong();
+    private final AtomicLong nextConnectionId = new AtomicLong(1);
+    private final LongAdder openedConnections = new LongAdder();
+    // The traffic of the connections closed since the last report, guarded by this
+    private Period closedTraffic = new Period("closed");
+    private long closedConnections;
+
+    private TransportMetrics(String side) {
+        this.side = side;
+    }
+
+    /**
+     * Starts counting a new connection.
+     *
+     * @param remote the address of the other end of the connection
+     * @return the counters of the connection
+     */
+    Connection connectionOpened(SocketAddress remote) {
+        Connection connection = new Connection(nextConnectionId.getAndIncrement(), String.valueOf(remote));
+        connections.add(connection);
+        openConnections.incrementAndGet();
+        openedConnections.increment();
+        return connection;
+    }
+
+    public long getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public long getMessageBytesIn() {
+        long sum;
+        synchronized (this) {
+            sum = closedTraffic.messageIn;
+        }
+        for (Connection connection : connections) {
+            sum += connection.messageBytesIn.sum();
+        }
+        return sum;
+    }
+
+    public long getWireBytesIn() {
+        long sum;
+        synchronized (this) {
+            sum = closedTraffic.wireIn;
+        }
+        for (Connection connection : connections) {
+            sum += connection.wireBytesIn.sum();
+        }
+        return sum;
+    }
+
+    public long getMessageBytesOut() {
+        long sum;
+        synchronized (this) {
+            sum = closedTraffic.messageOut;
+        }
+        for (Connection connection : connections) {
+            sum += connection.messageBytesOut.sum();
+        }
+        return sum;
+    }
+
+    public long getWireBytesOut() {
+        long sum;
+        synchronized (this) {
+            sum = closedTraffic.wireOut;
+        }
+        for (Connection connection : connections) {
+            sum += connection.wireBytesOut.sum();
+        }
+        return sum;
+    }
+
+    public long getCalls() {
+        long sum;
+        synchronized (this) {
+            sum = closedTraffic.calls;
+        }
+        for (Connection connection : connections) {
+            sum += connection.calls.sum();
+        }
+        return sum;
+    }
+
+    /**
+     * Returns a summary of the period and starts a new one: one line with the totals of this
+     * side, then one line for each of the connections that sent the most bytes in the period.
+     */
+    public List<String> reportAndReset() {
+        List<Period> periods = new ArrayList<>(connections.size());
+        for (Connection connection : connections) {
+            Period period = connection.takePeriod();
+            if (period.isActive()) {
+                periods.add(period);
+            }
+        }
+        Period total = new Period(side);
+        long closed;
+        synchronized (this) {
+            total.add(closedTraffic);
+            closed = closedConnections;
+            closedTraffic = new Period("closed");
+            closedConnections = 0;
+        }
+        for (Period period : periods) {
+            total.add(period);
+        }
+        List<String> lines = new ArrayList<>(1 + Math.min(REPORTED_CONNECTIONS, periods.size()));
+        lines.add(String.format(Locale.ROOT, "RMI %s: %d open connection(s), %d opened, %d closed, %d active, %s",
+                side, openConnections.get(), openedConnections.sumThenReset(), closed, periods.size(),
+                total.format()));
+        periods.sort((a, b) -> Long.compare(b.wireOut + b.wireIn, a.wireOut + a.wireIn));
+        for (int i = 0; i < Math.min(REPORTED_CONNECTIONS, periods.size()); i++) {
+            lines.add(String.format(Locale.ROOT, "RMI %s connection %s: %s",
+                    side, periods.get(i).name, periods.get(i).format()));
+        }
+        return lines;
+    }
+
+    /**
+     * The counters of one connection, updated by its socket.
+     */
+    final class Connection {
+        private final String name;
+        private final LongAdder messageBytesIn = new LongAdder();
+        private final LongAdder wireBytesIn = new LongAdder();
+        private final LongAdder messageBytesOut = new LongAdder();
+        private final LongAdder wireBytesOut = new LongAdder();
+        private final LongAdder compressedFrames = new LongAdder();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder callNanos = new LongAdder();
+        private final AtomicLong maxCallNanos = new AtomicLong();
+
+        private Connection(long id, String remote) {
+            this.name = "#" + id + " " + remote;
+        }
+
+        void read(int messageBytes, int wireBytes) {
+            messageBytesIn.add(messageBytes);
+            wireBytesIn.add(wireBytes);
+        }
+
+        void wrote(int messageBytes, int wireBytes, boolean compressed) {
+            messageBytesOut.add(messageBytes);
+            wireBytesOut.add(wireBytes);
+            if (compressed) {
+                compressedFrames.increment();
+            }
+        }
+
+        void call(long nanos) {
+            calls.increment();
+            callNanos.add(nanos);
+            maxCallNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void closed() {
+            // Only the first call finds the connection in the set
+            if (connections.remove(this)) {
+                openConnections.decrementAndGet();
+                Period period = takePeriod();
+                synchronized (TransportMetrics.this) {
+                    closedTraffic.add(period);
+                    closedConnections++;
+                }
+            }
+        }
+
+        private Period takePeriod() {
+            Period period = new Period(name);
+            period.calls = calls.sumThenReset();
+            period.callNanos = callNanos.sumThenReset();
+            period.maxCallNanos = maxCallNanos.getAndSet(0);
+            period.messageIn = messageBytesIn.sumThenReset();
+            period.wireIn = wireBytesIn.sumThenReset();
+            period.messageOut = messageBytesOut.sumThenReset();
+            period.wireOut = wireBytesOut.sumThenReset();
+            period.compressedFrames = compressedFrames.sumThenReset();
+            return period;
+        }
+    }
+
+    // The counters of a connection, or of a whole side, over one reporting period
+    private static final class Period {
+        private final String name;
+        private long calls;
+        private long callNanos;
+        private long maxCallNanos;
+        private long messageIn;
+        private long wireIn;
+        private long messageOut;
+        private long wireOut;
+        private long compressedFrames;
+
+        private Period(String name) {
+            this.name = name;
+        }
+
+        private boolean isActive() {
+            return wireIn > 0 || wireOut > 0;
+        }
+
+        private void add(Period other) {
+            calls += other.calls;
+            callNanos += other.callNanos;
+            maxCallNanos = Math.max(maxCallNanos, other.maxCallNanos);
+            messageIn += other.messageIn;
+            wireIn += other.wireIn;
+            messageOut += other.messageOut;
+            wireOut += other.wireOut;
+            compressedFrames += other.compressedFrames;
+        }
+
+        private String format() {
+            return String.format(Locale.ROOT,
+                    "%d call(s), mean %.2f ms, max %.2f ms, "
+                            + "in %d B (%d B on wire), out %d B (%d B on wire, %d compressed frame(s), ratio %.2f)",
+                    calls, calls == 0 ? 0 : callNanos / 1e6 / calls, maxCallNanos / 1e6,
+                    messageIn, wireIn, messageOut, wireOut, compressedFrames,
+                    messageOut == 0 ? 1 : (double) wireOut / messageOut);
+        }
+    }
+}
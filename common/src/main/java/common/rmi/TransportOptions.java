@@ -0,0 +1,89 @@
+package common.rmi;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The TransportOptions class holds the settings of the RMI socket factories: message
+ * compression and socket tuning.
+ *
+ * The options are chosen by the server and travel to the client inside the stubs of the
+ * services (see CompressingClientSocketFactory), so both ends of a connection always use
+ * the same ones.
+ */
+public final class TransportOptions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean compression;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+    private final boolean tcpNoDelay;
+    private final int bufferBytes;
+
+    /**
+     * @param compression whether messages may be Deflate-compressed
+     * @param compressionThreshold the size in bytes from which a message is compressed
+     * @param compressionLevel the Deflate level, from 1 (fastest) to 9 (smallest)
+     * @param tcpNoDelay whether small messages are sent at once rather than coalesced (Nagle)
+     * @param bufferBytes the socket send and receive buffer sizes, or 0 for the system default
+     */
+    public TransportOptions(boolean compression, int compressionThreshold, int compressionLevel,
+                            boolean tcpNoDelay, int bufferBytes) {
+        this.compression = compression;
+        this.compressionThreshold = Math.max(0, compressionThreshold);
+        this.compressionLevel = Math.max(1, Math.min(9, compressionLevel));
+        this.tcpNoDelay = tcpNoDelay;
+        this.bufferBytes = Math.max(0, bufferBytes);
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    // RMI reuses a connection only for stubs whose socket factories are equal
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TransportOptions)) {
+            return false;
+        }
+        TransportOptions other = (TransportOptions) o;
+        return compression == other.compression
+                && compressionThreshold == other.compressionThreshold
+                && compressionLevel == other.compressionLevel
+                && tcpNoDelay == other.tcpNoDelay
+                && bufferBytes == other.bufferBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(compression, compressionThreshold, compressionLevel, tcpNoDelay, bufferBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "TransportOptions{" +
+                "compression=" + (compression ? "deflate level " + compressionLevel + " from " + compressionThreshold + " bytes" : "none") +
+                ", tcpNoDelay=" + tcpNoDelay +
+                ", bufferBytes=" + bufferBytes +
+                '}';
+    }
+}
@@ -1,34 +1,467 @@
 package common.util;
 
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The Logger class provides functionality to log operations, user actions, and details
  * into a persistent log file while also printing the log entries to the console.
  *
- * This class maintains a log file named "system.log" and uses a specific date-time format
- * ("yyyy-MM-dd HH:mm:ss") for consistent timestamping of log entries.
+ * This class maintains a log file named "system.log" by default and uses a specific date-time
+ * format ("yyyy-MM-dd HH:mm:ss") for consistent timestamping of log entries.
+ *
+ * Log entries are encoded by the caller straight into pre-allocated byte slots (with a timestamp
+ * prefix formatted once per second) and handed over to a background writer thread, so logging
+ * allocates nothing in the common case and callers never wait on file I/O. The copy of each
+ * entry to the console can be turned off with {@link #setConsoleEcho}.
+ * The writer keeps the log file open and rotates it when it exceeds a maximum size or when the
+ * rotation interval elapses. Rotated files are renamed with a timestamp suffix, gzip-compressed
+ * in the background, and deleted once they are older than the retention period or once the
+ * archived files exceed the retention size. See {@link #configure}.
  *
  * It is primarily designed to be used for tracking user activity and other important events
  * in the application.
  */
 public class Logger {
-    private static final String LOG_FILE = "system.log";
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter archiveFormatter = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int RING_CAPACITY = 8192; // must be a power of two
+    private static final int SLOT_BYTES = 256;
+    private static final byte[] USER_SEPARATOR = " - User: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DETAILS_SEPARATOR = " - ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_TEXT = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static volatile Settings settings = new Settings("system.log", 100L * 1024 * 1024, 1440, 30, 1024L * 1024 * 1024, true);
+    private static volatile boolean consoleEcho = true;
+    private static volatile TimestampPrefix timestampPrefix = new TimestampPrefix(Long.MIN_VALUE, new byte[0]);
+
+    // Ring of pre-allocated entry slots: producers claim sequences from head, the writer consumes from tail
+    private static final Slot[] slots = new Slot[RING_CAPACITY];
+    private static final AtomicLong head = new AtomicLong();
+    private static volatile long tail;
+    private static volatile boolean writerParked;
+    private static final AtomicLong droppedEntries = new AtomicLong();
+    private static final ExecutorService archiver = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "logger-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Thread writer;
+
+    static {
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+        writer = new Thread(Logger::writeLoop, "logger-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(2000)));
+    }
+
+    // Only accessed by the writer thread
+    private static Settings openSettings;
+    private static OutputStream fileOutput;
+    private static long fileSize;
+    private static long nextRotationMillis;
+
+    /**
+     * Rotation and retention settings of the log file.
+     */
+    private static class Settings {
+        final Path logFile;
+        final long maxFileBytes;
+        final long rotationIntervalMillis;
+        final long retentionMillis;
+        final long retentionMaxBytes;
+        final boolean compress;
+
+        Settings(String logFile, long maxFileBytes, long rotationIntervalMinutes,
+                 int retentionDays, long retentionMaxBytes, boolean compress) {
+            this.logFile = Paths.get(logFile);
+            this.maxFileBytes = maxFileBytes;
+            this.rotationIntervalMillis = TimeUnit.MINUTES.toMillis(rotationIntervalMinutes);
+            this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+            this.retentionMaxBytes = retentionMaxBytes;
+            this.compress = compress;
+        }
+    }
 
+    /**
+     * A pre-allocated, reusable buffer holding one encoded log entry.
+     * The entry is published to the writer by setting its sequence number.
+     */
+    private static class Slot {
+        byte[] data = new byte[SLOT_BYTES];
+        int length;
+        volatile long sequence = -1;
+    }
+
+    /**
+     * The encoded "[yyyy-MM-dd HH:mm:ss] " prefix of a given second, shared by every entry of that second.
+     */
+    private static class TimestampPrefix {
+        final long epochSecond;
+        final byte[] bytes;
+
+        TimestampPrefix(long epochSecond, byte[] bytes) {
+            this.epochSecond = epochSecond;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Logs an entry. The entry is encoded directly into a pre-allocated slot and written by a
+     * background thread, so in the common case this method allocates nothing and never blocks.
+     * If the writer falls behind and every slot is in use, the entry is dropped and counted.
+     */
     public static void log(String operation, String details, String user) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(LOG_FILE, true))) {
-            LocalDateTime now = LocalDateTime.now();
-            String logEntry = String.format("[%s] %s - User: %s - %s",
-                    now.format(formatter), operation, user, details);
-            writer.println(logEntry);
-            System.out.println(logEntry);
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= RING_CAPACITY) {
+                droppedEntries.incrementAndGet();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & (RING_CAPACITY - 1))];
+        byte[] prefix = currentPrefix();
+        int length = prefix.length + encodedLength(operation) + USER_SEPARATOR.length + encodedLength(user)
+                + DETAILS_SEPARATOR.length + encodedLength(details) + 1;
+        if (slot.data.length < length) {
+            slot.data = new byte[Math.max(length, slot.data.length * 2)];
+        }
+        byte[] data = slot.data;
+        System.arraycopy(prefix, 0, data, 0, prefix.length);
+        int position = prefix.length;
+        position = encode(operation, data, position);
+        System.arraycopy(USER_SEPARATOR, 0, data, position, USER_SEPARATOR.length);
+        position += USER_SEPARATOR.length;
+        position = encode(user, data, position);
+        System.arraycopy(DETAILS_SEPARATOR, 0, data, position, DETAILS_SEPARATOR.length);
+        position += DETAILS_SEPARATOR.length;
+        position = encode(details, data, position);
+        data[position++] = '\n';
+        slot.length = position;
+        slot.sequence = sequence; // publishes the entry
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Changes the log file and its rotation and retention policy. Takes effect with the
+     * next log entry; the current file is closed and the new one is opened in append mode.
+     *
+     * @param logFile the path of the active log file
+     * @param maxFileBytes the size above which the log file is rotated, or 0 to disable size rotation
+     * @param rotationIntervalMinutes the period after which the log file is rotated, or 0 to disable
+     * @param retentionDays the number of days rotated files are kept, or 0 to keep them forever
+     * @param retentionMaxBytes the maximum total size of rotated files, or 0 for no limit
+     * @param compress whether rotated files are gzip-compressed
+     */
+    public static void configure(String logFile, long maxFileBytes, long rotationIntervalMinutes,
+                                 int retentionDays, long retentionMaxBytes, boolean compress) {
+        settings = new Settings(logFile, maxFileBytes, rotationIntervalMinutes, retentionDays, retentionMaxBytes, compress);
+    }
+
+    /**
+     * Enables or disables the copy of every log entry to the standard output.
+     */
+    public static void setConsoleEcho(boolean enabled) {
+        consoleEcho = enabled;
+    }
+
+    /**
+     * Waits until the entries logged before this call have been written, up to the given timeout.
+     */
+    public static void flush(long timeoutMillis) {
+        long target = head.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (tail < target && System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(writer);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static byte[] currentPrefix() {
+        long epochSecond = Math.floorDiv(System.currentTimeMillis(), 1000L);
+        TimestampPrefix prefix = timestampPrefix;
+        if (prefix.epochSecond != epochSecond) {
+            // At most once per second: format the new prefix and share it
+            LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+            prefix = new TimestampPrefix(epochSecond,
+                    ("[" + now.format(formatter) + "] ").getBytes(StandardCharsets.US_ASCII));
+            timestampPrefix = prefix;
+        }
+        return prefix.bytes;
+    }
+
+    private static int encodedLength(String text) {
+        if (text == null) {
+            return NULL_TEXT.length;
+        }
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    // Encodes text as UTF-8 into the buffer, which must be large enough (see encodedLength)
+    private static int encode(String text, byte[] buffer, int position) {
+        if (text == null) {
+            System.arraycopy(NULL_TEXT, 0, buffer, position, NULL_TEXT.length);
+            return position + NULL_TEXT.length;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private static void writeLoop() {
+        boolean dirty = false;
+        while (true) {
+            long sequence = tail;
+            Slot slot = slots[(int) (sequence & (RING_CAPACITY - 1))];
+            if (slot.sequence != sequence) {
+                if (dirty) {
+                    flushOutputs();
+                    dirty = false;
+                    reportDroppedEntries();
+                    continue;
+                }
+                writerParked = true;
+                if (slot.sequence != sequence) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                }
+                writerParked = false;
+                continue;
+            }
+            write(slot.data, slot.length);
+            tail = sequence + 1; // releases the slot to producers
+            dirty = true;
+        }
+    }
+
+    private static void write(byte[] data, int length) {
+        try {
+            rotateIfNeeded();
+            fileOutput.write(data, 0, length);
+            fileSize += length;
         } catch (IOException e) {
             e.printStackTrace();
+            closeQuietly();
+        }
+        if (consoleEcho) {
+            System.out.write(data, 0, length);
+        }
+    }
+
+    private static void flushOutputs() {
+        try {
+            if (fileOutput != null) {
+                fileOutput.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            closeQuietly();
+        }
+        if (consoleEcho) {
+            System.out.flush();
+        }
+    }
+
+    private static void reportDroppedEntries() {
+        long dropped = droppedEntries.getAndSet(0);
+        if (dropped > 0) {
+            byte[] entry = String.format("[%s] LOGGER - User: system - %d log entries dropped%n",
+                    LocalDateTime.now().format(formatter), dropped).getBytes(StandardCharsets.UTF_8);
+            write(entry, entry.length);
+            flushOutputs();
+        }
+    }
+
+    private static void rotateIfNeeded() throws IOException {
+        Settings current = settings;
+        if (current != openSettings) {
+            closeQuietly();
+            open(current);
+        }
+        long now = System.currentTimeMillis();
+        boolean sizeExceeded = current.maxFileBytes > 0 && fileSize >= current.maxFileBytes;
+        boolean intervalElapsed = current.rotationIntervalMillis > 0 && now >= nextRotationMillis;
+        if (sizeExceeded || intervalElapsed) {
+            closeQuietly();
+            if (Files.exists(current.logFile) && Files.size(current.logFile) > 0) {
+                Path archived = archivePath(current.logFile);
+                Files.move(current.logFile, archived, StandardCopyOption.ATOMIC_MOVE);
+                archiver.execute(() -> archive(archived, current));
+            }
+            open(current);
+        }
+    }
+
+    private static void open(Settings current) throws IOException {
+        Path parent = current.logFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long now = System.currentTimeMillis();
+        fileSize = Files.exists(current.logFile) ? Files.size(current.logFile) : 0;
+        nextRotationMillis = current.rotationIntervalMillis > 0 ? nextBoundary(now, current.rotationIntervalMillis) : Long.MAX_VALUE;
+        if (fileSize > 0 && current.rotationIntervalMillis > 0) {
+            // A file left over from a previous period is rotated right away
+            long lastModified = Files.getLastModifiedTime(current.logFile).toMillis();
+            if (lastModified < nextRotationMillis - current.rotationIntervalMillis) {
+                nextRotationMillis = now;
+            }
         }
+        fileOutput = new BufferedOutputStream(Files.newOutputStream(current.logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        openSettings = current;
+    }
+
+    private static void closeQuietly() {
+        if (fileOutput != null) {
+            try {
+                fileOutput.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            fileOutput = null;
+        }
+        openSettings = null;
+    }
+
+    // Rotation boundaries are aligned on local time, so that a daily interval rotates at midnight
+    private static long nextBoundary(long now, long interval) {
+        long offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochMilli(now)).getTotalSeconds() * 1000L;
+        return ((now + offset) / interval + 1) * interval - offset;
+    }
+
+    private static Path archivePath(Path logFile) {
+        String[] nameParts = splitName(logFile);
+        String stamp = LocalDateTime.now().format(archiveFormatter);
+        Path archived = logFile.resolveSibling(nameParts[0] + "-" + stamp + nameParts[1]);
+        for (int i = 1; Files.exists(archived) || Files.exists(archived.resolveSibling(archived.getFileName() + ".gz")); i++) {
+            archived = logFile.resolveSibling(nameParts[0] + "-" + stamp + "-" + i + nameParts[1]);
+        }
+        return archived;
+    }
+
+    // Runs on the archiver thread: compresses a rotated file, then applies the retention policy
+    private static void archive(Path archived, Settings current) {
+        try {
+            if (current.compress) {
+                Path compressed = archived.resolveSibling(archived.getFileName() + ".gz");
+                try (InputStream in = Files.newInputStream(archived);
+                     OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), 64 * 1024)) {
+                    in.transferTo(out);
+                }
+                Files.delete(archived);
+            }
+            applyRetention(current);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void applyRetention(Settings current) throws IOException {
+        if (current.retentionMillis <= 0 && current.retentionMaxBytes <= 0) {
+            return;
+        }
+        String[] nameParts = splitName(current.logFile);
+        Path directory = current.logFile.toAbsolutePath().getParent();
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, nameParts[0] + "-*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(nameParts[1]) || name.endsWith(nameParts[1] + ".gz")) {
+                    archives.add(path);
+                }
+            }
+        }
+        // Newest first: they are the ones kept when the size limit is reached
+        archives.sort((a, b) -> {
+            try {
+                return Files.getLastModifiedTime(b).compareTo(Files.getLastModifiedTime(a));
+            } catch (IOException e) {
+                return 0;
+            }
+        });
+        long now = System.currentTimeMillis();
+        long totalBytes = 0;
+        for (Path path : archives) {
+            long size = Files.size(path);
+            totalBytes += size;
+            boolean tooOld = current.retentionMillis > 0
+                    && now - Files.getLastModifiedTime(path).toMillis() > current.retentionMillis;
+            boolean overSize = current.retentionMaxBytes > 0 && totalBytes > current.retentionMaxBytes;
+            if (tooOld || overSize) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Splits "system.log" into {"system", ".log"}
+    private static String[] splitName(Path logFile) {
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? new String[]{name.substring(0, dot), name.substring(dot)} : new String[]{name, ""};
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,117 @@
+package loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The LoadReport class collects the outcome of every measured operation of a load test
+ * and formats the throughput and latency report.
+ *
+ * Two latencies are kept per operation. The response time is measured from the moment the
+ * operation was scheduled to start, so an operation delayed by a slow predecessor counts
+ * its waiting time; this corrects the coordinated omission of a closed-loop client, which
+ * would otherwise stop sending requests exactly while the server is slow. The service time
+ * is measured from the moment the call was actually made, as a closed-loop client sees it.
+ */
+final class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    LoadReport() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    void recordSuccess(Operation operation, long responseNanos, long serviceNanos) {
+        Stats s = stats.get(operation);
+        s.responseTime.record(responseNanos);
+        s.serviceTime.record(serviceNanos);
+    }
+
+    void recordError(Operation operation) {
+        stats.get(operation).errors.incrementAndGet();
+    }
+
+    long getCompleted() {
+        long total = 0;
+        for (Stats s : stats.values()) {
+            total += s.responseTime.getCount();
+        }
+        return total;
+    }
+
+    String format(String label, String settings, double seconds) {
+        StringBuilder out = new StringBuilder();
+        out.append("Load test ").append(label).append(" - ").append(LocalDateTime.now().withNano(0)).append('\n');
+        out.append(settings).append('\n');
+        out.append(String.format(Locale.ROOT, "Measured %.1f s%n%n", seconds));
+        out.append(String.format(Locale.ROOT, "%-10s %10s %8s %10s %9s %9s %9s %9s %9s %11s %11s%n",
+                "operation", "ops", "errors", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "svc p50 ms", "svc p99 ms"));
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            LatencyHistogram response = entry.getValue().responseTime;
+            LatencyHistogram service = entry.getValue().serviceTime;
+            long errors = entry.getValue().errors.get();
+            if (response.getCount() == 0 && errors == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%-10s %10d %8d %10.1f", entry.getKey().getKey(),
+                    response.getCount(), errors, response.getCount() / seconds));
+            for (double percentile : PERCENTILES) {
+                out.append(String.format(Locale.ROOT, " %9.2f", millis(response.getValueAtPercentile(percentile))));
+            }
+            out.append(String.format(Locale.ROOT, " %9.2f %11.2f %11.2f%n", millis(response.getMax()),
+                    millis(service.getValueAtPercentile(50)), millis(service.getValueAtPercentile(99))));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Appends one line per operation to a CSV file, writing the header if the file is new,
+     * so that the runs of successive releases can be compared side by side.
+     */
+    void appendCsv(Path file, String label, double seconds) throws IOException {
+        StringBuilder out = new StringBuilder();
+        if (!Files.exists(file)) {
+            out.append("label,time,operation,ops,errors,ops_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,"
+                    + "service_p50_ms,service_p99_ms\n");
+        }
+        String time = LocalDateTime.now().withNano(0).toString();
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            LatencyHistogram response = entry.getValue().responseTime;
+            LatencyHistogram service = entry.getValue().serviceTime;
+            long errors = entry.getValue().errors.get();
+            if (response.getCount() == 0 && errors == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.1f", label, time, entry.getKey().getKey(),
+                    response.getCount(), errors, response.getCount() / seconds));
+            for (double percentile : PERCENTILES) {
+                out.append(String.format(Locale.ROOT, ",%.3f", millis(response.getValueAtPercentile(percentile))));
+            }
+            out.append(String.format(Locale.ROOT, ",%.3f,%.3f,%.3f%n", millis(response.getMax()),
+                    millis(service.getValueAtPercentile(50)), millis(service.getValueAtPercentile(99))));
+        }
+        Files.writeString(file, out, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Stats {
+        final LatencyHistogram responseTime = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -0,0 +1,208 @@
+package loadtest;
+
+import common.interfaces.AuthInterface;
+import common.interfaces.InventoryInterface;
+import common.models.Product;
+import common.models.ProductQuery;
+import server.Server;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LoadTest class reproduces the load of many clients against the RMI services of a
+ * running server, or of a server it starts in the same process, and reports the throughput
+ * and latency percentiles of every operation (see {@link LoadReport}).
+ *
+ * Each simulated client runs on its own virtual thread, so thousands of clients cost little
+ * more than their sockets. A client performs operations at a fixed rate, on a schedule set
+ * in advance: it picks each operation at random according to the configured mix and, when
+ * an operation completes late, starts the next one immediately rather than skipping its
+ * slot. The first seconds of the run warm the server up and are not measured.
+ *
+ * Options (all optional):
+ * --host localhost --port 1099 --clients 1000 --rate 2 (operations per second per client)
+ * --duration 60 --warmup 10 (seconds) --mix login:5,products:20,search:60,update:15
+ * --username admin --password 123456 --label dev --report loadtest-report.txt
+ * --csv loadtest-history.csv --start-server
+ *
+ * The update operation writes to the database: it sets the quantity of a random product
+ * of the catalog read at startup to a random value.
+ */
+public class LoadTest {
+    private static final String[] SEARCH_TERMS = {"a", "e", "pro", "desk", "lamp", "box", "set", "ultra", "mo", "ch"};
+
+    private final Map<String, String> options;
+    private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    private final LoadReport report = new LoadReport();
+    private int mixTotal;
+
+    private InventoryInterface inventory;
+    private AuthInterface auth;
+    private List<Product> catalog;
+    private List<String> categories;
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+        for (String entry : option("mix", "login:5,products:20,search:60,update:15").split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            mix.put(Operation.fromKey(parts[0]), weight);
+            mixTotal += weight;
+        }
+        if (mixTotal <= 0) {
+            throw new IllegalArgumentException("The operation mix has no weight");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        String host = option("host", "localhost");
+        int port = Integer.parseInt(option("port", "1099"));
+        if (Boolean.parseBoolean(option("start-server", "false"))) {
+            System.out.println("Starting server...");
+            Server.main(new String[0]);
+        }
+
+        Registry registry = LocateRegistry.getRegistry(host, port);
+        inventory = (InventoryInterface) registry.lookup("InventoryService");
+        auth = (AuthInterface) registry.lookup("AuthService");
+        catalog = inventory.getAllProducts();
+        categories = catalog.stream().map(Product::getCategory).distinct().toList();
+
+        int clients = Integer.parseInt(option("clients", "1000"));
+        double rate = Double.parseDouble(option("rate", "2"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("warmup", "10")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "60")));
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        String settings = String.format(Locale.ROOT, "%d clients at %.1f ops/s each, mix %s, server %s:%d, %d products",
+                clients, rate, option("mix", "login:5,products:20,search:60,update:15"), host, port, catalog.size());
+        System.out.println("Running " + settings);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                long seed = i;
+                executor.submit(() -> simulateClient(seed, start, measureFrom, end, intervalNanos));
+            }
+        }
+
+        double seconds = durationNanos / 1e9;
+        String label = option("label", "dev");
+        String text = report.format(label, settings, seconds);
+        System.out.println(text);
+        Path reportFile = Paths.get(option("report", "loadtest-report.txt"));
+        Files.writeString(reportFile, text);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+        if (options.containsKey("csv")) {
+            report.appendCsv(Paths.get(options.get("csv")), label, seconds);
+        }
+    }
+
+    private void simulateClient(long seed, long start, long measureFrom, long end, long intervalNanos) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String username = option("username", "admin");
+        String password = option("password", "123456");
+        // Spread the clients over the first interval rather than firing them all at once
+        long scheduled = start + random.nextLong(intervalNanos);
+        while (scheduled < end) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            Operation operation = pick(random);
+            long callStart = System.nanoTime();
+            try {
+                perform(operation, random, username, password);
+                long done = System.nanoTime();
+                if (scheduled >= measureFrom) {
+                    report.recordSuccess(operation, done - scheduled, done - callStart);
+                }
+            } catch (Exception e) {
+                if (scheduled >= measureFrom) {
+                    report.recordError(operation);
+                }
+            }
+            scheduled += intervalNanos;
+        }
+    }
+
+    private void perform(Operation operation, SplittableRandom random, String username, String password)
+            throws Exception {
+        switch (operation) {
+            case LOGIN:
+                auth.authenticate(username, password);
+                break;
+            case GET_ALL_PRODUCTS:
+                inventory.getAllProducts();
+                break;
+            case SEARCH:
+                ProductQuery query = new ProductQuery();
+                query.setNameContains(SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+                if (!categories.isEmpty() && random.nextBoolean()) {
+                    query.addCategory(categories.get(random.nextInt(categories.size())));
+                }
+                query.setLimit(50);
+                inventory.searchProducts(query);
+                break;
+            case UPDATE_PRODUCT:
+                if (catalog.isEmpty()) {
+                    return;
+                }
+                Product product = catalog.get(random.nextInt(catalog.size()));
+                Product update = new Product(product.getId(), product.getName(), product.getCategory(),
+                        random.nextInt(500), product.getPrice(), product.getCreatedAt());
+                inventory.updateProduct(update, username);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation: " + operation);
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int ticket = random.nextInt(mixTotal);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+}
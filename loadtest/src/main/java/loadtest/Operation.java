@@ -0,0 +1,30 @@
+package loadtest;
+
+/**
+ * The operations a simulated client performs, named in the --mix option by their key.
+ */
+enum Operation {
+    LOGIN("login"),
+    GET_ALL_PRODUCTS("products"),
+    SEARCH("search"),
+    UPDATE_PRODUCT("update");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key.trim())) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
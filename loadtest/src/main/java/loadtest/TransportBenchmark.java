@@ -0,0 +1,169 @@
+package loadtest;
+
+import common.models.Product;
+import common.rmi.CompressingServerSocketFactory;
+import common.rmi.TransportMetrics;
+import common.rmi.TransportOptions;
+import server.util.DatasetGenerator;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The TransportBenchmark class compares the RMI transports on the call that moves the most
+ * data, the product list: it exports a service returning a generated catalog (see
+ * DatasetGenerator) three times in the same process, with the default RMI sockets, with the
+ * framed sockets of common.rmi without compression, and with Deflate compression, then
+ * times the same number of calls to each one.
+ *
+ * The calls go through the loopback interface, where bandwidth is free, so for each transport
+ * the report also gives the bytes received per call and the time they would take on a link
+ * of the given speed. The default transport sends the same messages as the framed one without
+ * compression, minus the frame headers, so it is credited with their message bytes.
+ *
+ * Options (all optional):
+ * --products 20000 --calls 50 --warmup 10 --seed 42 --link-mbps 100 (megabits per second)
+ * --threshold 8192 (bytes) --level 1 (Deflate level, 1-9)
+ */
+public class TransportBenchmark {
+    /**
+     * The remote interface of the benchmarked service; public so that RMI can create its stub.
+     */
+    public interface Catalog extends Remote {
+        List<Product> products() throws RemoteException;
+    }
+
+    private static final class CatalogService implements Catalog {
+        private final List<Product> products;
+
+        CatalogService(List<Product> products) {
+            this.products = products;
+        }
+
+        @Override
+        public List<Product> products() {
+            return products;
+        }
+    }
+
+    private static final class Result {
+        final String transport;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long messageBytes;
+        long wireBytes;
+
+        Result(String transport) {
+            this.transport = transport;
+        }
+    }
+
+    private final Map<String, String> options;
+
+    TransportBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        new TransportBenchmark(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        int productCount = Integer.parseInt(option("products", "20000"));
+        int calls = Integer.parseInt(option("calls", "50"));
+        int warmup = Integer.parseInt(option("warmup", "10"));
+        long seed = Long.parseLong(option("seed", "42"));
+        double linkMbps = Double.parseDouble(option("link-mbps", "100"));
+        int threshold = Integer.parseInt(option("threshold", "8192"));
+        int level = Integer.parseInt(option("level", "1"));
+
+        List<Product> products = new ArrayList<>(productCount);
+        DatasetGenerator generator = new DatasetGenerator(seed, 1, 1);
+        try {
+            for (int i = 0; i < productCount; i++) {
+                Product product = generator.product(i);
+                product.setId(i + 1);
+                products.add(product);
+            }
+        } finally {
+            generator.close();
+        }
+        System.out.printf(Locale.ROOT, "Fetching %d products %d times per transport (%d warm-up calls)%n",
+                productCount, calls, warmup);
+
+        CompressingServerSocketFactory framed =
+                new CompressingServerSocketFactory(new TransportOptions(false, threshold, level, true, 65536));
+        CompressingServerSocketFactory deflate =
+                new CompressingServerSocketFactory(new TransportOptions(true, threshold, level, true, 65536));
+        Result framedResult = measure("framed", products, framed.clientSocketFactory(), framed, warmup, calls);
+        Result deflateResult = measure("deflate level " + level, products, deflate.clientSocketFactory(), deflate,
+                warmup, calls);
+        Result defaultResult = measure("default", products, null, null, warmup, calls);
+        defaultResult.messageBytes = framedResult.messageBytes;
+        defaultResult.wireBytes = framedResult.messageBytes;
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "%-16s %10s %10s %10s %14s %8s %18s%n", "transport", "mean ms",
+                "p50 ms", "p99 ms", "bytes/call", "ratio", "at " + formatMbps(linkMbps) + " Mb/s ms"));
+        for (Result result : List.of(defaultResult, framedResult, deflateResult)) {
+            double transferMillis = result.wireBytes * 8 / (linkMbps * 1e6) * 1000;
+            text.append(String.format(Locale.ROOT, "%-16s %10.2f %10.2f %10.2f %14d %8.2f %18.2f%n",
+                    result.transport, result.latency.getMean() / 1e6,
+                    result.latency.getValueAtPercentile(50) / 1e6, result.latency.getValueAtPercentile(99) / 1e6,
+                    result.wireBytes, result.messageBytes == 0 ? 1 : (double) result.wireBytes / result.messageBytes,
+                    result.latency.getMean() / 1e6 + transferMillis));
+        }
+        System.out.print(text);
+    }
+
+    private Result measure(String transport, List<Product> products, RMIClientSocketFactory clientFactory,
+                           RMIServerSocketFactory serverFactory, int warmup, int calls) throws Exception {
+        CatalogService service = new CatalogService(products);
+        Catalog catalog = (Catalog) UnicastRemoteObject.exportObject(service, 0, clientFactory, serverFactory);
+        try {
+            for (int i = 0; i < warmup; i++) {
+                catalog.products();
+            }
+            TransportMetrics.CLIENT.reportAndReset();
+            Result result = new Result(transport);
+            for (int i = 0; i < calls; i++) {
+                long start = System.nanoTime();
+                catalog.products();
+                result.latency.record(System.nanoTime() - start);
+            }
+            result.messageBytes = TransportMetrics.CLIENT.getMessageBytesIn() / Math.max(1, calls);
+            result.wireBytes = TransportMetrics.CLIENT.getWireBytesIn() / Math.max(1, calls);
+            return result;
+        } finally {
+            UnicastRemoteObject.unexportObject(service, true);
+        }
+    }
+
+    private static String formatMbps(double mbps) {
+        return mbps == Math.rint(mbps) ? String.valueOf((long) mbps) : String.valueOf(mbps);
+    }
+
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+}
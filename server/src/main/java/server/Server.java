@@ -1,29 +1,38 @@
 package server;
 
-import common.interfaces.InventoryInterface;
 import common.interfaces.AuthInterface;
+import common.rmi.TransportMetrics;
 import common.util.Logger;
 
-import server.util.ConnectionPool;
+import server.dao.StorageEngine;
+import server.util.AuditLog;
 import server.util.DatabaseConfig;
 import server.util.DatabaseInitializer;
+import server.util.RmiTransport;
 import server.services.InventoryService;
 import server.services.AuthService;
+import server.services.StockLedgerMaintenance;
 
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.ExportException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Server class initializes and starts an RMI server that hosts multiple services.
  * It performs the following tasks:
  *
  * 1. Loads the database configuration.
- * 2. Initializes the database if necessary.
+ * 2. Initializes the database if necessary, and replays the writes left in the
+ *    write-ahead log by a previous run.
  * 3. Creates and registers RMI services in the RMI registry.
  * 4. Binds the services to the RMI registry.
- * 5. Manages graceful shutdown of the server by unbinding services
- *    and closing database connection pools.
+ * 5. Periodically logs the RMI transport metrics (traffic, compression and call latency)
+ *    the number of product reads collapsed by read coalescing and the query cache activity.
+ * 6. Manages graceful shutdown of the server by unbinding services
+ *    and closing the storage (database connection pool or embedded storage).
  *
  * The server also handles startup and shutdown operations to ensure
  * proper resource management in case of errors.
@@ -34,13 +43,22 @@ public class Server {
             // Load configuration
             DatabaseConfig config = DatabaseConfig.getInstance();
             System.out.println("Using configuration from: " + config.getConfigurationSource());
+            Logger.configure(config.getLogFile(), config.getLogMaxFileBytes(), config.getLogRotationIntervalMinutes(),
+                    config.getLogRetentionDays(), config.getLogRetentionMaxBytes(), config.shouldCompressLogs());
+            Logger.setConsoleEcho(config.shouldEchoLogsToConsole());
 
-            // Initialize database if needed
-            DatabaseInitializer dbInitializer = new DatabaseInitializer();
-            dbInitializer.initializeDatabase();
+            // Initialize database if needed (the embedded storage initializes itself)
+            if (!config.isEmbeddedStorage()) {
+                DatabaseInitializer dbInitializer = new DatabaseInitializer();
+                dbInitializer.initializeDatabase();
+            }
             try {
                 // Create RMI services
-                InventoryInterface inventoryService = new InventoryService();
+                InventoryService inventoryService = new InventoryService();
+                int pendingWrites = inventoryService.replayWriteAheadLog(10000);
+                if (pendingWrites > 0) {
+                    Logger.log("SERVER", pendingWrites + " logged write(s) still waiting for the database", "system");
+                }
                 AuthInterface authService = new AuthService();
                 int port = config.getRmiPort();
                 // Start the RMI registry
@@ -52,6 +70,14 @@ public class Server {
                 registry.rebind("AuthService", authService);
                 Logger.log("SERVER", "Services bound. Server is ready.", "system");
 
+                // Start stock ledger maintenance (partitions and snapshots)
+                StockLedgerMaintenance ledgerMaintenance = new StockLedgerMaintenance();
+                ledgerMaintenance.start();
+
+                // Report the RMI transport, read coalescing and query cache metrics
+                ScheduledExecutorService metricsReporter =
+                        startMetricsReporter(config.getRmiMetricsIntervalSeconds(), inventoryService);
+
                 System.out.println("Server is running on port: " + port + "....");
                 // Add shutdown hook
                 Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -60,25 +86,62 @@ public class Server {
                         registry.unbind("InventoryService");
                         registry.unbind("AuthService");
                         Logger.log("SERVER", "Services unbound", "system");
+                        if (metricsReporter != null) {
+                            metricsReporter.shutdownNow();
+                        }
+                        inventoryService.close();
+                        ledgerMaintenance.stop();
+                        AuditLog.getInstance().close();
 
-                        // Close connection pool
-                        ConnectionPool.closePool();
+                        // Close the storage (connection pool or embedded logs)
+                        StorageEngine.shutdown();
                         Logger.log("SERVER", "Server shutdown completed", "system");
+                        Logger.flush(2000);
                     } catch (Exception e) {
                         Logger.log("ERROR", "Error during shutdown: " + e.getMessage(), "system");
                     }
                 }));
             }catch (ExportException e){
                 Logger.log("ERROR", "Failed to start RMI registry -- Port already in use: "+config.getRmiPort(), "system");
+                Logger.flush(2000);
                 System.exit(1);
             }
 
         } catch (Exception e) {
             Logger.log("ERROR", "Server failed to start: " + e.getMessage(), "system");
+            Logger.flush(2000);
             e.printStackTrace();
-            // Ensure connection pool is closed even if server fails to start
-            ConnectionPool.closePool();
+            // Ensure the storage is closed even if server fails to start
+            StorageEngine.shutdown();
             System.exit(1);
         }
     }
+
+    private static ScheduledExecutorService startMetricsReporter(long intervalSeconds, InventoryService inventoryService) {
+        if (intervalSeconds <= 0) {
+            return null;
+        }
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rmi-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            if (RmiTransport.getInstance().isEnabled()
+                    && (TransportMetrics.SERVER.getCalls() > 0 || TransportMetrics.SERVER.getOpenConnections() > 0)) {
+                for (String line : TransportMetrics.SERVER.reportAndReset()) {
+                    Logger.log("METRICS", line, "system");
+                }
+            }
+            String coalescing = inventoryService.readCoalescingReport();
+            if (coalescing != null) {
+                Logger.log("METRICS", coalescing, "system");
+            }
+            String queryCache = inventoryService.queryCacheReport();
+            if (queryCache != null) {
+                Logger.log("METRICS", queryCache, "system");
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return reporter;
+    }
 }
\ No newline at end of file
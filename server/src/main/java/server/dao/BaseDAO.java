@@ -5,6 +5,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * BaseDAO is an abstract class that provides utility methods for executing
@@ -13,18 +20,29 @@ import java.sql.SQLException;
  *
  * Main Features:
  * - Simplified management of database connections using a connection pool.
+ * - Every operation runs on the connection of the UnitOfWork open on the current thread,
+ *   if any, so that several DAO calls can share one transaction and one commit.
  * - Encapsulation of common operations (query and update) with predefined structures.
  * - Support for functional interfaces to parameterize database operations.
  *
  * Methods:
  * - `executeOperation`: Executes a custom database operation with a managed connection.
+ * - `executeInTransaction`: Executes a custom database operation inside a single transaction.
+ *   Inside a UnitOfWork, the operation joins the unit of work's transaction instead.
  * - `executeQuery`: Executes a SQL query and maps the result set to a desired data structure.
  * - `executeUpdate`: Executes SQL update operations such as INSERT, UPDATE, or DELETE.
+ * - `queryForList`: Executes a SQL query and maps every row with a RowMapper into a list.
+ * - `queryForObject`: Executes a SQL query and maps its first row, if any.
+ * - `queryForStream`: Executes a SQL query and streams its rows without buffering the result.
+ * - `forEachRow`: Executes a SQL query and hands every row to a consumer without buffering the result.
+ * - `beanMapper`: Returns a compiled RowMapper for a model class (see BeanRowMapper).
  *
  * Functional Interfaces:
  * - `DatabaseOperation<T>`: Represents a database operation to be executed.
  * - `PreparedStatementSetter`: Allows setting parameters on a prepared statement.
  * - `ResultSetMapper<T>`: Maps the processed result set into a specific object or data type.
+ * - `RowMapper<T>`: Maps the current row of a result set into an object.
+ * - `RowConsumer<T>`: Receives the rows of a streamed query one at a time.
  *
  * Usage:
  * - Extend this class and use the provided methods to perform database operations.
@@ -36,7 +54,19 @@ import java.sql.SQLException;
  */
 public abstract class BaseDAO {
 
+    // Upper bound for pre-sizing result lists, so a large LIMIT does not allocate up front
+    private static final int MAX_PRESIZED_ROWS = 10_000;
+
     protected <T> T executeOperation(DatabaseOperation<T> operation) throws SQLException {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        if (unitOfWork != null) {
+            try {
+                return operation.execute(unitOfWork.getConnection());
+            } catch (SQLException e) {
+                System.err.println("Database operation failed: " + e.getMessage());
+                throw e;
+            }
+        }
         try (Connection connection = ConnectionPool.getDataSource().getConnection()) {
             return operation.execute(connection);
         } catch (SQLException e) {
@@ -45,6 +75,27 @@ public abstract class BaseDAO {
         }
     }
 
+    protected <T> T executeInTransaction(DatabaseOperation<T> operation) throws SQLException {
+        if (UnitOfWork.current() != null) {
+            // The enclosing unit of work commits or rolls back the whole scope
+            return executeOperation(operation);
+        }
+        return executeOperation(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = operation.execute(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
     protected <T> T executeQuery(String sql, PreparedStatementSetter paramSetter, ResultSetMapper<T> resultMapper)
             throws SQLException {
         return executeOperation(connection -> {
@@ -59,6 +110,154 @@ public abstract class BaseDAO {
         });
     }
 
+    protected <T> List<T> queryForList(String sql, PreparedStatementSetter paramSetter, RowMapper<T> rowMapper)
+            throws SQLException {
+        return queryForList(sql, paramSetter, rowMapper, 0);
+    }
+
+    /**
+     * Executes a query and maps every row into a list.
+     * A BeanRowMapper is compiled against the result set metadata once, before the first row.
+     *
+     * @param sql the SQL query to execute
+     * @param paramSetter sets the query parameters, or null if there are none
+     * @param rowMapper maps the current row into an object
+     * @param expectedRows the expected number of rows (e.g. the LIMIT of the query), used to
+     *                     pre-size the list, or 0 if unknown
+     * @return the mapped rows, in result set order
+     * @throws SQLException if the query or the mapping fails
+     */
+    protected <T> List<T> queryForList(String sql, PreparedStatementSetter paramSetter, RowMapper<T> rowMapper,
+                                       int expectedRows) throws SQLException {
+        return executeQuery(sql, paramSetter, rs -> {
+            RowMapper<T> mapper = rowMapper instanceof BeanRowMapper<T> bean ? bean.compile(rs) : rowMapper;
+            List<T> rows = expectedRows > 0
+                    ? new ArrayList<>(Math.min(expectedRows, MAX_PRESIZED_ROWS))
+                    : new ArrayList<>();
+            while (rs.next()) {
+                rows.add(mapper.mapRow(rs));
+            }
+            return rows;
+        });
+    }
+
+    protected <T> T queryForObject(String sql, PreparedStatementSetter paramSetter, RowMapper<T> rowMapper)
+            throws SQLException {
+        return executeQuery(sql, paramSetter, rs -> rs.next() ? rowMapper.mapRow(rs) : null);
+    }
+
+    /**
+     * Executes a query and returns its rows as a lazily populated stream.
+     * The statement uses a forward-only, read-only result set with a fetch size of
+     * Integer.MIN_VALUE, which makes the MySQL driver stream rows from the server one at a
+     * time instead of buffering the whole result, so memory use does not depend on its size.
+     *
+     * The stream holds a pooled connection until it is closed: callers must consume it in a
+     * try-with-resources block, and must not run other statements on the same thread's
+     * unit of work while it is open. SQL errors raised while reading are rethrown as
+     * IllegalStateException.
+     *
+     * @param sql the SQL query to execute
+     * @param paramSetter sets the query parameters, or null if there are none
+     * @param rowMapper maps the current row into an object
+     * @return a sequential stream of the mapped rows, releasing the connection on close
+     * @throws SQLException if the query cannot be executed
+     */
+    protected <T> Stream<T> queryForStream(String sql, PreparedStatementSetter paramSetter, RowMapper<T> rowMapper)
+            throws SQLException {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        Connection connection = unitOfWork != null
+                ? unitOfWork.getConnection()
+                : ConnectionPool.getDataSource().getConnection();
+        // A connection bound to a unit of work is released by the unit of work, not by the stream
+        Connection owned = unitOfWork != null ? null : connection;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            if (paramSetter != null) {
+                paramSetter.setParameters(stmt);
+            }
+            rs = stmt.executeQuery();
+            RowMapper<T> mapper = rowMapper instanceof BeanRowMapper<T> bean ? bean.compile(rs) : rowMapper;
+            ResultSet rows = rs;
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rows.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.mapRow(rows));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Failed to read streamed row: " + e.getMessage(), e);
+                    }
+                }
+            };
+            PreparedStatement statement = stmt;
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> closeQuietly(rows, statement, owned));
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Database operation failed: " + e.getMessage());
+            closeQuietly(rs, stmt, owned);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a query and hands every row to the consumer as it is read from the server,
+     * without buffering the result (see queryForStream). The connection is released when
+     * the last row has been consumed or the consumer fails.
+     *
+     * @param sql the SQL query to execute
+     * @param paramSetter sets the query parameters, or null if there are none
+     * @param rowMapper maps the current row into an object
+     * @param consumer receives every mapped row, in result set order
+     * @return the number of rows consumed
+     * @throws SQLException if the query, the mapping or the consumer fails
+     */
+    protected <T> long forEachRow(String sql, PreparedStatementSetter paramSetter, RowMapper<T> rowMapper,
+                                  RowConsumer<T> consumer) throws SQLException {
+        return executeOperation(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                if (paramSetter != null) {
+                    paramSetter.setParameters(stmt);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    RowMapper<T> mapper = rowMapper instanceof BeanRowMapper<T> bean ? bean.compile(rs) : rowMapper;
+                    long count = 0;
+                    while (rs.next()) {
+                        consumer.accept(mapper.mapRow(rs));
+                        count++;
+                    }
+                    return count;
+                }
+            }
+        });
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                System.err.println("Failed to release database resource: " + e.getMessage());
+            }
+        }
+    }
+
+    protected static <T> RowMapper<T> beanMapper(Class<T> type) {
+        return BeanRowMapper.forClass(type);
+    }
+
     protected int executeUpdate(String sql, PreparedStatementSetter paramSetter) throws SQLException {
         return executeOperation(connection -> {
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -84,4 +283,14 @@ public abstract class BaseDAO {
     protected interface ResultSetMapper<T> {
         T mapResult(ResultSet rs) throws SQLException;
     }
+
+    @FunctionalInterface
+    protected interface RowMapper<T> {
+        T mapRow(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    protected interface RowConsumer<T> {
+        void accept(T row) throws SQLException;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,207 @@
+package server.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BeanRowMapper maps result set rows onto a model class through its public no-argument
+ * constructor and setters, so that new entities need no hand-written mapping code.
+ *
+ * A column is bound to the setter whose property name equals the column label once
+ * underscores are removed, ignoring case ("created_at" is bound to setCreatedAt).
+ * Columns without a matching setter are ignored.
+ *
+ * The setters are looked up once per model class and turned into method handles.
+ * For every distinct column set a compiled mapper is built once, with the column
+ * ordinals, readers and setters resolved ahead of time; mapping a row is then a
+ * straight loop over arrays, without any lookup by column name.
+ *
+ * Instances are obtained through {@link #forClass(Class)} and are thread-safe.
+ */
+final class BeanRowMapper<T> implements BaseDAO.RowMapper<T> {
+
+    private static final ClassValue<BeanRowMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected BeanRowMapper<?> computeValue(Class<?> type) {
+            return new BeanRowMapper<>(type);
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Map<String, Property> properties = new HashMap<>();
+    private final Map<String, Compiled<T>> compiled = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    static <T> BeanRowMapper<T> forClass(Class<T> type) {
+        return (BeanRowMapper<T>) MAPPERS.get(type);
+    }
+
+    private BeanRowMapper(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+            for (Method method : type.getMethods()) {
+                if (method.getName().length() > 3 && method.getName().startsWith("set")
+                        && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                    Class<?> parameterType = method.getParameterTypes()[0];
+                    ColumnReader reader = readerFor(parameterType);
+                    MethodHandle setter = lookup.unreflect(method).asType(SETTER_TYPE);
+                    properties.put(normalize(method.getName().substring(3)), new Property(setter, reader));
+                }
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " needs a public no-argument constructor", e);
+        }
+    }
+
+    /**
+     * Returns the mapper compiled for the columns of the given result set, building it
+     * on first use of that column set.
+     *
+     * @param rs the result set whose rows will be mapped
+     * @return a mapper bound to the column ordinals of the result set
+     * @throws SQLException if the result set metadata cannot be read
+     */
+    Compiled<T> compile(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        StringBuilder key = new StringBuilder();
+        for (int i = 1; i <= columnCount; i++) {
+            key.append(metaData.getColumnLabel(i)).append(',');
+        }
+        Compiled<T> mapper = compiled.get(key.toString());
+        if (mapper == null) {
+            mapper = compiled.computeIfAbsent(key.toString(), k -> build(metaData, columnCount));
+        }
+        return mapper;
+    }
+
+    // Maps a single row; list queries go through compile() once per result set instead
+    @Override
+    public T mapRow(ResultSet rs) throws SQLException {
+        return compile(rs).mapRow(rs);
+    }
+
+    private Compiled<T> build(ResultSetMetaData metaData, int columnCount) {
+        int[] ordinals = new int[columnCount];
+        MethodHandle[] setters = new MethodHandle[columnCount];
+        ColumnReader[] readers = new ColumnReader[columnCount];
+        int bound = 0;
+        try {
+            for (int i = 1; i <= columnCount; i++) {
+                Property property = properties.get(normalize(metaData.getColumnLabel(i)));
+                if (property != null) {
+                    ordinals[bound] = i;
+                    setters[bound] = property.setter;
+                    readers[bound] = property.reader;
+                    bound++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read result set metadata for " + type.getName(), e);
+        }
+        return new Compiled<>(constructor, ordinals, setters, readers, bound);
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static ColumnReader readerFor(Class<?> parameterType) {
+        if (parameterType == int.class) {
+            return ResultSet::getInt;
+        } else if (parameterType == long.class) {
+            return ResultSet::getLong;
+        } else if (parameterType == double.class) {
+            return ResultSet::getDouble;
+        } else if (parameterType == boolean.class) {
+            return ResultSet::getBoolean;
+        } else if (parameterType == String.class) {
+            return ResultSet::getString;
+        } else if (parameterType == BigDecimal.class) {
+            return ResultSet::getBigDecimal;
+        } else if (parameterType == LocalDateTime.class) {
+            return (rs, column) -> {
+                Timestamp timestamp = rs.getTimestamp(column);
+                return timestamp != null ? timestamp.toLocalDateTime() : null;
+            };
+        } else if (parameterType == LocalDate.class) {
+            return (rs, column) -> {
+                Date date = rs.getDate(column);
+                return date != null ? date.toLocalDate() : null;
+            };
+        }
+        return (rs, column) -> rs.getObject(column, parameterType);
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private static final class Property {
+        private final MethodHandle setter;
+        private final ColumnReader reader;
+
+        private Property(MethodHandle setter, ColumnReader reader) {
+            this.setter = setter;
+            this.reader = reader;
+        }
+    }
+
+    /**
+     * A mapper bound to one column set: ordinals, readers and setters are resolved.
+     */
+    static final class Compiled<T> implements BaseDAO.RowMapper<T> {
+        private final MethodHandle constructor;
+        private final int[] ordinals;
+        private final MethodHandle[] setters;
+        private final ColumnReader[] readers;
+        private final int size;
+
+        private Compiled(MethodHandle constructor, int[] ordinals, MethodHandle[] setters,
+                         ColumnReader[] readers, int size) {
+            this.constructor = constructor;
+            this.ordinals = ordinals;
+            this.setters = setters;
+            this.readers = readers;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T mapRow(ResultSet rs) throws SQLException {
+            try {
+                Object row = (Object) constructor.invokeExact();
+                for (int i = 0; i < size; i++) {
+                    setters[i].invokeExact(row, readers[i].read(rs, ordinals[i]));
+                }
+                return (T) row;
+            } catch (SQLException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException("Failed to map row", e);
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package server.dao;
 
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
+import common.models.AuthResult;
 import common.models.Employee;
 import org.mindrot.jbcrypt.BCrypt;
 
@@ -20,45 +20,44 @@ import org.mindrot.jbcrypt.BCrypt;
  * - Adding new employees to the database, including encrypting their passwords.
  * - Updating employee information, with or without updating the password.
  * - Deleting employee records from the database.
- * - Authenticating an employee using their login credentials.
+ * - Authenticating an employee using their login credentials, through a projection
+ *   that never leaves the password hash in the returned object.
  *
  * This class internally uses methods from BaseDAO to streamline database
  * operations and ensure clean separation of concerns. PreparedStatement
  * parameters are set securely to prevent SQL injection. Passwords are
  * encrypted using the BCrypt algorithm for enhanced security.
  */
-public class EmployeeDAO extends BaseDAO {
+public class EmployeeDAO extends BaseDAO implements EmployeeStore {
+    private static final RowMapper<Employee> EMPLOYEE_MAPPER = beanMapper(Employee.class);
 
     public List<Employee> getAllEmployees() throws SQLException {
-        String sql = "SELECT * FROM employees";
-        return executeQuery(sql,
-                null,
-                rs -> {
-                    List<Employee> employees = new ArrayList<>();
-                    while (rs.next()) {
-                        employees.add(mapResultSetToEmployee(rs));
-                    }
-                    return employees;
-                }
-        );
+        String sql = "SELECT id, username, fullname, password, role, created_at FROM employees";
+        return queryForList(sql, null, EMPLOYEE_MAPPER);
     }
 
     public Employee getEmployeeByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM employees WHERE username = ?";
-        return executeQuery(sql,
-                stmt -> stmt.setString(1, username),
-                rs -> rs.next() ? mapResultSetToEmployee(rs) : null
-        );
+        String sql = "SELECT id, username, fullname, password, role, created_at FROM employees WHERE username = ?";
+        return queryForObject(sql, stmt -> stmt.setString(1, username), EMPLOYEE_MAPPER);
     }
 
     public void addEmployee(Employee employee) throws SQLException {
         String sql = "INSERT INTO employees (username, fullname, password, role) VALUES (?, ?, ?, ?)";
         String hashedPassword = BCrypt.hashpw(employee.getPassword(), BCrypt.gensalt());
-        executeUpdate(sql, stmt -> {
-            stmt.setString(1, employee.getUsername());
-            stmt.setString(2, employee.getFullname());
-            stmt.setString(3, hashedPassword);
-            stmt.setString(4, employee.getRole());
+        executeOperation(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, employee.getUsername());
+                stmt.setString(2, employee.getFullname());
+                stmt.setString(3, hashedPassword);
+                stmt.setString(4, employee.getRole());
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        employee.setId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
         });
     }
 
@@ -89,31 +88,45 @@ public class EmployeeDAO extends BaseDAO {
         executeUpdate(sql, stmt -> stmt.setInt(1, id));
     }
 
-    public Employee authenticate(String username, String password) throws SQLException {
-        Employee employee = getEmployeeByUsername(username);
-
-        if (employee == null) {
+    /**
+     * Verifies the credentials of an employee.
+     * Only the columns needed to check the password and build the result are read; they are
+     * all part of the idx_employees_auth index, so the lookup never touches the table rows.
+     * The hash is checked after the connection is back in the pool: BCrypt takes far longer
+     * than the lookup, and concurrent logins would otherwise hold connections for its duration.
+     *
+     * @param username the username to authenticate
+     * @param password the plain-text password to check against the stored hash
+     * @return the authentication result, or null if the username does not exist
+     * @throws SQLException if the lookup fails
+     */
+    public AuthResult authenticate(String username, String password) throws SQLException {
+        String sql = "SELECT id, username, fullname, password, role FROM employees WHERE username = ?";
+        StoredCredentials stored = queryForObject(sql,
+                stmt -> stmt.setString(1, username),
+                rs -> new StoredCredentials(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                        rs.getString(5)));
+        if (stored == null) {
             return null;
         }
+        boolean isAuthenticated = BCrypt.checkpw(password, stored.passwordHash);
+        return new AuthResult(stored.id, stored.username, stored.fullname, stored.role, isAuthenticated);
+    }
 
-        boolean isAuthenticated = BCrypt.checkpw(password, employee.getPassword());
-        employee.setAuthenticated(isAuthenticated);
+    // The row read by authenticate, before its password hash is checked
+    private static final class StoredCredentials {
+        private final int id;
+        private final String username;
+        private final String fullname;
+        private final String passwordHash;
+        private final String role;
 
-        if (isAuthenticated && "admin".equalsIgnoreCase(employee.getRole())) {
-            employee.setAdmin(true);
+        private StoredCredentials(int id, String username, String fullname, String passwordHash, String role) {
+            this.id = id;
+            this.username = username;
+            this.fullname = fullname;
+            this.passwordHash = passwordHash;
+            this.role = role;
         }
-
-        return employee;
-    }
-
-    private Employee mapResultSetToEmployee(ResultSet rs) throws SQLException {
-        return new Employee(
-                rs.getInt("id"),
-                rs.getString("username"),
-                rs.getString("fullname"),
-                rs.getString("password"),
-                rs.getString("role"),
-                rs.getTimestamp("created_at").toLocalDateTime()
-        );
     }
-}
\ No newline at end of file
+}
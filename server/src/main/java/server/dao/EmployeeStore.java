@@ -0,0 +1,32 @@
+package server.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import common.models.AuthResult;
+import common.models.Employee;
+
+/**
+ * EmployeeStore is the storage interface for employees, implemented by EmployeeDAO (MySQL)
+ * and by EmbeddedEmployeeStore (embedded storage engine).
+ * Passwords are stored as BCrypt hashes by every implementation.
+ */
+public interface EmployeeStore {
+
+    List<Employee> getAllEmployees() throws SQLException;
+
+    Employee getEmployeeByUsername(String username) throws SQLException;
+
+    /**
+     * Inserts an employee, hashing the password, and sets the generated ID.
+     */
+    void addEmployee(Employee employee) throws SQLException;
+
+    void updateEmployee(Employee employee, boolean updatePassword) throws SQLException;
+
+    void deleteEmployee(int id) throws SQLException;
+
+    /**
+     * Verifies credentials; returns null if the username does not exist.
+     */
+    AuthResult authenticate(String username, String password) throws SQLException;
+}
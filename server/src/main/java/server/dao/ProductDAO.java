@@ -3,7 +3,11 @@ package server.dao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
+import common.models.CategoryStats;
 import common.models.Product;
+import common.models.ProductQuery;
+import common.models.StockMovement;
 import java.math.BigDecimal;
 
 /**
@@ -18,109 +22,330 @@ import java.math.BigDecimal;
  *
  * Methods:
  * - getAllProducts: Retrieves all product records from the database.
+ * - getProductById: Retrieves a single product with all of its columns.
  * - getProductsByCategory: Retrieves products filtered by a given category.
  * - getProductsByName: Retrieves products filtered by a given name.
  * - getProductsByQuantity: Retrieves products filtered by a specified quantity.
+ * - searchProducts: Retrieves products matching a combined ProductQuery in a single query.
+ * - streamProducts: Streams the products matching a ProductQuery without buffering them.
+ * - countProducts: Counts the products matching a ProductQuery.
+ * - getCategoryStats: Computes product count, units and stock value per category.
  * - addProduct: Inserts a new product record into the database.
- * - updateProduct: Updates the record of an existing product.
- * - deleteProduct: Removes a product record from the database based on its ID.
+ * - updateProduct: Updates the record of an existing product and returns its previous state.
+ * - deleteProduct: Removes a product record from the database and returns its previous state.
+ *
+ * Every mutation that changes the quantity of a product also appends a stock movement
+ * to the ledger (see StockLedgerDAO) in the same transaction.
+ *
+ * Queries select explicit column lists and rows are mapped by a compiled BeanRowMapper,
+ * which reads every column by position. List queries use LIST_COLUMNS and leave the
+ * creation date unset, since list views do not display it.
  *
  * The class relies on functional interfaces `PreparedStatementSetter` and
  * `ResultSetMapper` (from BaseDAO) for parameter setting and result mapping,
  * respectively.
  */
-public class ProductDAO extends BaseDAO {
+public class ProductDAO extends BaseDAO implements ProductStore {
+    // Explicit column lists: BeanRowMapper resolves their ordinals once per column set
+    private static final String LIST_COLUMNS = "id, name, category, quantity, price";
+    private static final String DETAIL_COLUMNS = LIST_COLUMNS + ", created_at";
+    private static final RowMapper<Product> PRODUCT_MAPPER = beanMapper(Product.class);
+
+    private final StockLedgerDAO stockLedgerDAO = new StockLedgerDAO();
 
     public List<Product> getAllProducts() throws SQLException {
-        String sql = "SELECT * FROM products";
-        return executeQuery(sql,
-                null,
-                rs -> {
-                    List<Product> products = new ArrayList<>();
-                    while (rs.next()) {
-                        products.add(mapResultSetToProduct(rs));
-                    }
-                    return products;
-                }
-        );
+        String sql = "SELECT " + LIST_COLUMNS + " FROM products";
+        return queryForList(sql, null, PRODUCT_MAPPER);
     }
 
     public List<Product> getProductsByCategory(String category) throws SQLException {
-        String sql = "SELECT * FROM products WHERE category LIKE ?";
-        return executeQuery(sql,
-                stmt -> stmt.setString(1, "%" + category + "%"),
-                rs -> {
-                    List<Product> products = new ArrayList<>();
-                    while (rs.next()) {
-                        products.add(mapResultSetToProduct(rs));
-                    }
-                    return products;
-                }
-        );
+        String sql = "SELECT " + LIST_COLUMNS + " FROM products WHERE category LIKE ?";
+        return queryForList(sql, stmt -> stmt.setString(1, "%" + category + "%"), PRODUCT_MAPPER);
     }
 
     public List<Product> getProductsByName(String name) throws SQLException {
-        String sql = "SELECT * FROM products WHERE name LIKE ?";
-        return executeQuery(sql,
-                stmt -> stmt.setString(1, "%" + name + "%"),
-                rs -> {
-                    List<Product> products = new ArrayList<>();
-                    while (rs.next()) {
-                        products.add(mapResultSetToProduct(rs));
-                    }
-                    return products;
-                }
-        );
+        String sql = "SELECT " + LIST_COLUMNS + " FROM products WHERE name LIKE ?";
+        return queryForList(sql, stmt -> stmt.setString(1, "%" + name + "%"), PRODUCT_MAPPER);
     }
 
     public List<Product> getProductsByQuantity(int quantity) throws SQLException {
-        String sql = "SELECT * FROM products WHERE quantity = ?";
-        return executeQuery(sql,
-                stmt -> stmt.setInt(1, quantity),
-                rs -> {
-                    List<Product> products = new ArrayList<>();
-                    while (rs.next()) {
-                        products.add(mapResultSetToProduct(rs));
-                    }
-                    return products;
-                }
+        String sql = "SELECT " + LIST_COLUMNS + " FROM products WHERE quantity = ?";
+        return queryForList(sql, stmt -> stmt.setInt(1, quantity), PRODUCT_MAPPER);
+    }
+
+    /**
+     * Retrieves a single product with all of its columns, including its creation date.
+     *
+     * @param id the ID of the product
+     * @return the product, or null if it does not exist
+     * @throws SQLException if the query fails
+     */
+    public Product getProductById(int id) throws SQLException {
+        String sql = "SELECT " + DETAIL_COLUMNS + " FROM products WHERE id = ?";
+        return queryForObject(sql, stmt -> stmt.setInt(1, id), PRODUCT_MAPPER);
+    }
+
+    /**
+     * Retrieves the products matching every predicate of the given query.
+     * The query is compiled into one parameterized SQL statement, so a combined
+     * search costs a single round trip to the database. Only the predicates that
+     * are set contribute a WHERE clause, letting MySQL pick the most selective
+     * index among the ones declared in the schema migrations.
+     *
+     * @param query the combined search criteria, sort order and limit
+     * @return the matching products, sorted and limited as requested
+     * @throws SQLException if the query fails
+     */
+    public List<Product> searchProducts(ProductQuery query) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = buildSearchSql(query, params);
+        return queryForList(sql, stmt -> setParameters(stmt, params), PRODUCT_MAPPER, query.getLimit());
+    }
+
+    /**
+     * Streams the products matching the given query, sorted and limited like searchProducts,
+     * without buffering the result in memory. Intended for exports and reports over the
+     * whole table. The returned stream holds a database connection and must be closed.
+     *
+     * @param query the combined search criteria, sort order and limit
+     * @return a stream of the matching products
+     * @throws SQLException if the query fails
+     */
+    public Stream<Product> streamProducts(ProductQuery query) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = buildSearchSql(query, params);
+        return queryForStream(sql, stmt -> setParameters(stmt, params), PRODUCT_MAPPER);
+    }
+
+    /**
+     * Counts the products matching every predicate of the given query.
+     * Sort order, offset and limit are ignored; only the count is transferred.
+     *
+     * @param query the search criteria
+     * @return the number of matching products
+     * @throws SQLException if the query fails
+     */
+    public int countProducts(ProductQuery query) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM products WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        appendPredicates(query, sql, params);
+        return executeQuery(sql.toString(),
+                stmt -> setParameters(stmt, params),
+                rs -> rs.next() ? rs.getInt(1) : 0
         );
     }
 
-    public void addProduct(Product product) throws SQLException {
+    /**
+     * Inserts a new product and records its initial quantity in the stock ledger.
+     * The generated ID is set on the given product.
+     *
+     * @param product the product to insert
+     * @param username the user adding the product, recorded in the ledger
+     * @throws SQLException if the insertion fails
+     */
+    public void addProduct(Product product, String username) throws SQLException {
         String sql = "INSERT INTO products (name, category, quantity, price) VALUES (?, ?, ?, ?)";
-        executeUpdate(sql, stmt -> {
-            stmt.setString(1, product.getName());
-            stmt.setString(2, product.getCategory());
-            stmt.setInt(3, product.getQuantity());
-            stmt.setBigDecimal(4, product.getPrice());
+        executeInTransaction(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, product.getName());
+                stmt.setString(2, product.getCategory());
+                stmt.setInt(3, product.getQuantity());
+                stmt.setBigDecimal(4, product.getPrice());
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        product.setId(keys.getInt(1));
+                    }
+                }
+            }
+            recordMovement(connection, product.getId(), product.getQuantity(), StockMovement.REASON_ADD, username);
+            return null;
         });
     }
 
-    public void updateProduct(Product product) throws SQLException {
+    /**
+     * Updates an existing product and returns the row as it was before the update.
+     * The previous row is locked and read in the same transaction as the update,
+     * so callers maintaining derived data (such as aggregates) can apply an exact delta.
+     *
+     * @param product the new state of the product
+     * @param username the user updating the product, recorded in the ledger
+     * @return the previous state of the product, or null if it does not exist
+     * @throws SQLException if the update fails
+     */
+    public Product updateProduct(Product product, String username) throws SQLException {
         String sql = "UPDATE products SET name = ?, category = ?, quantity = ?, price = ? WHERE id = ?";
-        executeUpdate(sql, stmt -> {
-            stmt.setString(1, product.getName());
-            stmt.setString(2, product.getCategory());
-            stmt.setInt(3, product.getQuantity());
-            stmt.setBigDecimal(4, product.getPrice());
-            stmt.setInt(5, product.getId());
+        return executeInTransaction(connection -> {
+            Product previous = selectForUpdate(connection, product.getId());
+            if (previous != null) {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setString(1, product.getName());
+                    stmt.setString(2, product.getCategory());
+                    stmt.setInt(3, product.getQuantity());
+                    stmt.setBigDecimal(4, product.getPrice());
+                    stmt.setInt(5, product.getId());
+                    stmt.executeUpdate();
+                }
+                recordMovement(connection, product.getId(), product.getQuantity() - previous.getQuantity(),
+                        StockMovement.REASON_UPDATE, username);
+            }
+            return previous;
         });
     }
 
-    public void deleteProduct(int id) throws SQLException {
+    /**
+     * Deletes a product and returns the row as it was before the deletion.
+     *
+     * @param id the ID of the product to delete
+     * @param username the user deleting the product, recorded in the ledger
+     * @return the deleted product, or null if it did not exist
+     * @throws SQLException if the deletion fails
+     */
+    public Product deleteProduct(int id, String username) throws SQLException {
         String sql = "DELETE FROM products WHERE id = ?";
-        executeUpdate(sql, stmt -> stmt.setInt(1, id));
+        return executeInTransaction(connection -> {
+            Product previous = selectForUpdate(connection, id);
+            if (previous != null) {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setInt(1, id);
+                    stmt.executeUpdate();
+                }
+                recordMovement(connection, id, -previous.getQuantity(), StockMovement.REASON_DELETE, username);
+            }
+            return previous;
+        });
     }
 
-    private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
-        return new Product(
-                rs.getInt("id"),
-                rs.getString("name"),
-                rs.getString("category"),
-                rs.getInt("quantity"),
-                rs.getBigDecimal("price"),
-                rs.getTimestamp("created_at").toLocalDateTime()
+    /**
+     * Computes the product count, total units and stock value of every category.
+     * This scans the whole table and is only meant to seed in-memory aggregates.
+     */
+    public List<CategoryStats> getCategoryStats() throws SQLException {
+        String sql = "SELECT category, COUNT(*) AS product_count, SUM(quantity) AS total_units, " +
+                "SUM(quantity * price) AS stock_value FROM products GROUP BY category";
+        return executeQuery(sql,
+                null,
+                rs -> {
+                    List<CategoryStats> stats = new ArrayList<>();
+                    while (rs.next()) {
+                        BigDecimal stockValue = rs.getBigDecimal(4);
+                        stats.add(new CategoryStats(
+                                rs.getString(1),
+                                rs.getLong(2),
+                                rs.getLong(3),
+                                stockValue != null ? stockValue : BigDecimal.ZERO
+                        ));
+                    }
+                    return stats;
+                }
         );
     }
-}
\ No newline at end of file
+
+    private void recordMovement(Connection connection, int productId, int delta, String reason, String username)
+            throws SQLException {
+        if (delta != 0) {
+            stockLedgerDAO.recordMovements(connection,
+                    List.of(new StockMovement(productId, delta, reason, username)));
+        }
+    }
+
+    private Product selectForUpdate(Connection connection, int id) throws SQLException {
+        String sql = "SELECT " + LIST_COLUMNS + " FROM products WHERE id = ? FOR UPDATE";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? PRODUCT_MAPPER.mapRow(rs) : null;
+            }
+        }
+    }
+
+    private String buildSearchSql(ProductQuery query, List<Object> params) {
+        if (query.getOffset() > 0) {
+            return buildPageSql(query, params);
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + LIST_COLUMNS + " FROM products WHERE 1 = 1");
+        appendPredicates(query, sql, params);
+        sql.append(orderBy(query));
+        if (query.getLimit() > 0) {
+            sql.append(" LIMIT ?");
+            params.add(query.getLimit());
+        }
+        return sql.toString();
+    }
+
+    // Deferred join: the skipped rows are counted on the sort index, which also holds the ID,
+    // and only the rows of the page are read from the table
+    private String buildPageSql(ProductQuery query, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT " + LIST_COLUMNS + " FROM products JOIN (SELECT id FROM products WHERE 1 = 1");
+        appendPredicates(query, sql, params);
+        sql.append(orderBy(query)).append(" LIMIT ? OFFSET ?) page USING (id)").append(orderBy(query));
+        // MySQL has no OFFSET without LIMIT
+        params.add(query.getLimit() > 0 ? (long) query.getLimit() : Long.MAX_VALUE);
+        params.add(query.getOffset());
+        return sql.toString();
+    }
+
+    // Ties on the sort column are broken by ID so that pages are stable
+    private String orderBy(ProductQuery query) {
+        String direction = query.isAscending() ? " ASC" : " DESC";
+        String column = sortColumn(query.getSortField());
+        return " ORDER BY " + column + direction + ("id".equals(column) ? "" : ", id" + direction);
+    }
+
+    private void appendPredicates(ProductQuery query, StringBuilder sql, List<Object> params) {
+        if (query.getNameContains() != null && !query.getNameContains().isEmpty()) {
+            sql.append(" AND name LIKE ?");
+            params.add("%" + query.getNameContains() + "%");
+        }
+        if (query.getCategoryContains() != null && !query.getCategoryContains().isEmpty()) {
+            sql.append(" AND category LIKE ?");
+            params.add("%" + query.getCategoryContains() + "%");
+        }
+        if (!query.getCategories().isEmpty()) {
+            sql.append(" AND category IN (");
+            for (int i = 0; i < query.getCategories().size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                params.add(query.getCategories().get(i));
+            }
+            sql.append(")");
+        }
+        if (query.getMinQuantity() != null) {
+            sql.append(" AND quantity >= ?");
+            params.add(query.getMinQuantity());
+        }
+        if (query.getMaxQuantity() != null) {
+            sql.append(" AND quantity <= ?");
+            params.add(query.getMaxQuantity());
+        }
+        if (query.getMinPrice() != null) {
+            sql.append(" AND price >= ?");
+            params.add(query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            sql.append(" AND price <= ?");
+            params.add(query.getMaxPrice());
+        }
+    }
+
+    private void setParameters(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    // Column names come from a fixed mapping, never from client input
+    private String sortColumn(ProductQuery.SortField field) {
+        switch (field) {
+            case NAME:
+                return "name";
+            case CATEGORY:
+                return "category";
+            case QUANTITY:
+                return "quantity";
+            case PRICE:
+                return "price";
+            default:
+                return "id";
+        }
+    }
+}
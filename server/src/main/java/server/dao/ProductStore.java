@@ -0,0 +1,54 @@
+package server.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+import common.models.CategoryStats;
+import common.models.Product;
+import common.models.ProductQuery;
+
+/**
+ * ProductStore is the storage interface for products, implemented by ProductDAO (MySQL)
+ * and by EmbeddedProductStore (embedded storage engine).
+ * See StorageEngine for how the implementation is selected.
+ *
+ * Every mutation that changes the quantity of a product also records a stock movement.
+ */
+public interface ProductStore {
+
+    List<Product> getAllProducts() throws SQLException;
+
+    Product getProductById(int id) throws SQLException;
+
+    List<Product> getProductsByCategory(String category) throws SQLException;
+
+    List<Product> getProductsByName(String name) throws SQLException;
+
+    List<Product> getProductsByQuantity(int quantity) throws SQLException;
+
+    List<Product> searchProducts(ProductQuery query) throws SQLException;
+
+    /**
+     * Returns the products matching the query as a stream, which must be closed.
+     */
+    Stream<Product> streamProducts(ProductQuery query) throws SQLException;
+
+    int countProducts(ProductQuery query) throws SQLException;
+
+    List<CategoryStats> getCategoryStats() throws SQLException;
+
+    /**
+     * Inserts a product and sets its generated ID.
+     */
+    void addProduct(Product product, String username) throws SQLException;
+
+    /**
+     * Updates a product and returns its previous state, or null if it does not exist.
+     */
+    Product updateProduct(Product product, String username) throws SQLException;
+
+    /**
+     * Deletes a product and returns its previous state, or null if it did not exist.
+     */
+    Product deleteProduct(int id, String username) throws SQLException;
+}
@@ -0,0 +1,86 @@
+package server.dao;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import common.models.StockAlert;
+
+/**
+ * ReorderRuleDAO is a data access object responsible for managing the per-product
+ * reorder points stored in the "reorder_rules" table.
+ *
+ * This class extends BaseDAO to inherit common database operation logic.
+ * Rules are read joined with the "products" table so that each returned
+ * StockAlert carries the current quantity and name of the product.
+ *
+ * Methods:
+ * - getReorderRules: Retrieves every configured rule with the current product stock.
+ * - getReorderRule: Retrieves the rule of a single product.
+ * - setReorderPoint: Creates or replaces the reorder point of a product.
+ * - saveReorderPoint: Creates or replaces the reorder point of a product and returns the stored rule.
+ * - deleteReorderPoint: Removes the reorder point of a product.
+ */
+public class ReorderRuleDAO extends BaseDAO implements ReorderRuleStore {
+
+    private static final String SELECT_RULES =
+            "SELECT p.id, p.name, p.quantity, r.reorder_point, r.updated_at " +
+            "FROM reorder_rules r JOIN products p ON p.id = r.product_id";
+
+    public List<StockAlert> getReorderRules() throws SQLException {
+        return executeQuery(SELECT_RULES,
+                null,
+                rs -> {
+                    List<StockAlert> rules = new ArrayList<>();
+                    while (rs.next()) {
+                        rules.add(mapResultSetToStockAlert(rs));
+                    }
+                    return rules;
+                }
+        );
+    }
+
+    public StockAlert getReorderRule(int productId) throws SQLException {
+        return executeQuery(SELECT_RULES + " WHERE r.product_id = ?",
+                stmt -> stmt.setInt(1, productId),
+                rs -> rs.next() ? mapResultSetToStockAlert(rs) : null
+        );
+    }
+
+    public void setReorderPoint(int productId, int reorderPoint) throws SQLException {
+        String sql = "INSERT INTO reorder_rules (product_id, reorder_point) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE reorder_point = VALUES(reorder_point)";
+        executeUpdate(sql, stmt -> {
+            stmt.setInt(1, productId);
+            stmt.setInt(2, reorderPoint);
+        });
+    }
+
+    /**
+     * Creates or replaces the reorder point of a product and reads the stored rule back,
+     * on one connection and with one commit. The read sees the write at any isolation
+     * level, so the call joins the unit of work of its caller as is, e.g. a batch of
+     * logged writes, and commits with it.
+     */
+    public StockAlert saveReorderPoint(int productId, int reorderPoint) throws SQLException {
+        return UnitOfWork.execute(() -> {
+            setReorderPoint(productId, reorderPoint);
+            return getReorderRule(productId);
+        });
+    }
+
+    public void deleteReorderPoint(int productId) throws SQLException {
+        String sql = "DELETE FROM reorder_rules WHERE product_id = ?";
+        executeUpdate(sql, stmt -> stmt.setInt(1, productId));
+    }
+
+    private StockAlert mapResultSetToStockAlert(ResultSet rs) throws SQLException {
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        return new StockAlert(
+                rs.getInt("id"),
+                rs.getString("name"),
+                rs.getInt("quantity"),
+                rs.getInt("reorder_point"),
+                updatedAt != null ? updatedAt.toLocalDateTime() : null
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package server.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+import common.models.StockAlert;
+
+/**
+ * ReorderRuleStore is the storage interface for reorder points, implemented by
+ * ReorderRuleDAO (MySQL) and by EmbeddedReorderRuleStore (embedded storage engine).
+ * Rules are returned as StockAlerts carrying the current name and quantity of the product.
+ */
+public interface ReorderRuleStore {
+
+    List<StockAlert> getReorderRules() throws SQLException;
+
+    StockAlert getReorderRule(int productId) throws SQLException;
+
+    void setReorderPoint(int productId, int reorderPoint) throws SQLException;
+
+    /**
+     * Creates or replaces the reorder point of a product and returns the stored rule.
+     */
+    StockAlert saveReorderPoint(int productId, int reorderPoint) throws SQLException;
+
+    void deleteReorderPoint(int productId) throws SQLException;
+}
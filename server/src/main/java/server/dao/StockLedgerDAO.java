@@ -0,0 +1,291 @@
+package server.dao;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import common.models.StockMovement;
+
+/**
+ * StockLedgerDAO is a data access object responsible for the append-only stock
+ * movement ledger ("stock_movements") and its periodic quantity snapshots
+ * ("stock_snapshots").
+ *
+ * Movements are written through {@link #recordMovements(Connection, List)} on the
+ * caller's connection, so that they commit atomically with the product change
+ * they describe. Several movements are sent to the database as a single JDBC batch.
+ *
+ * The quantity of a product at a given instant is reconstructed from the most recent
+ * snapshot taken at or before that instant plus the ledger entries recorded after it,
+ * instead of replaying the whole history. A product only gets a new snapshot once it has
+ * moved since its previous one, and snapshots past the retention period are pruned, except
+ * the newest one of each product.
+ *
+ * Methods:
+ * - recordMovements: Appends movements to the ledger within an existing transaction.
+ * - getMovements: Retrieves the most recent movements of a product.
+ * - getQuantityAt: Reconstructs the quantity of a product at a point in time.
+ * - takeSnapshot: Records the current quantity of every product that moved since its last snapshot.
+ * - pruneSnapshots: Deletes the snapshots no longer needed.
+ * - ensureMonthlyPartitions: Creates the monthly ledger partitions ahead of time.
+ */
+public class StockLedgerDAO extends BaseDAO implements StockLedgerStore {
+
+    private static final String FUTURE_PARTITION = "p_future";
+    // Products covered, or snapshot products pruned, per statement of the snapshot maintenance
+    private static final int SNAPSHOT_CHUNK_SIZE = 1000;
+
+    public void recordMovements(Connection connection, List<StockMovement> movements) throws SQLException {
+        if (movements.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO stock_movements (product_id, delta, reason, username) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (StockMovement movement : movements) {
+                stmt.setInt(1, movement.getProductId());
+                stmt.setInt(2, movement.getDelta());
+                stmt.setString(3, movement.getReason());
+                stmt.setString(4, movement.getUsername());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    public List<StockMovement> getMovements(int productId, int limit) throws SQLException {
+        String sql = "SELECT * FROM stock_movements WHERE product_id = ? ORDER BY id DESC LIMIT ?";
+        return queryForList(sql,
+                stmt -> {
+                    stmt.setInt(1, productId);
+                    stmt.setInt(2, limit > 0 ? limit : Integer.MAX_VALUE);
+                },
+                this::mapResultSetToStockMovement,
+                limit
+        );
+    }
+
+    /**
+     * Reconstructs the quantity of a product at the given instant.
+     * Starts from the latest snapshot taken at or before that instant and adds the
+     * ledger entries recorded after the snapshot. When no such snapshot exists, the
+     * current quantity is used and the entries recorded after the instant are subtracted.
+     * A product deleted since then has no current quantity: its ledger entries up to the
+     * instant are summed instead, starting with the one recording its initial quantity.
+     *
+     * @param productId the ID of the product
+     * @param at the instant to reconstruct the quantity for
+     * @return the quantity at that instant, or null if the product is unknown at that instant
+     * @throws SQLException if a query fails
+     */
+    public Integer getQuantityAt(int productId, LocalDateTime at) throws SQLException {
+        Timestamp timestamp = Timestamp.valueOf(at);
+        return executeOperation(connection -> {
+            String snapshotSql = "SELECT quantity, last_movement_id FROM stock_snapshots " +
+                    "WHERE product_id = ? AND taken_at <= ? ORDER BY taken_at DESC LIMIT 1";
+            try (PreparedStatement stmt = connection.prepareStatement(snapshotSql)) {
+                stmt.setInt(1, productId);
+                stmt.setTimestamp(2, timestamp);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        int quantity = rs.getInt("quantity");
+                        long lastMovementId = rs.getLong("last_movement_id");
+                        return quantity + sumDeltas(connection,
+                                "SELECT COALESCE(SUM(delta), 0) FROM stock_movements " +
+                                "WHERE product_id = ? AND id > ? AND created_at <= ?",
+                                productId, lastMovementId, timestamp);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT quantity FROM products WHERE id = ?")) {
+                stmt.setInt(1, productId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return sumLedger(connection, productId, timestamp);
+                    }
+                    return rs.getInt("quantity") - sumDeltas(connection,
+                            "SELECT COALESCE(SUM(delta), 0) FROM stock_movements " +
+                            "WHERE product_id = ? AND id > ? AND created_at > ?",
+                            productId, 0L, timestamp);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the current quantity of every product together with the newest ledger
+     * entry of that product, skipping the products whose newest snapshot already covers
+     * that entry. Products are walked in chunks of consecutive IDs, one auto-committed
+     * statement each: the INSERT ... SELECT reads the product rows of its chunk with a shared
+     * lock, so a concurrent update and its ledger entry are either both included or both
+     * excluded, and writes to other products are never held up for the whole table.
+     *
+     * @return the number of snapshot rows written
+     * @throws SQLException if the snapshot fails
+     */
+    public int takeSnapshot() throws SQLException {
+        String sql = "INSERT INTO stock_snapshots (product_id, taken_at, quantity, last_movement_id) " +
+                "SELECT c.id, ?, c.quantity, c.last_movement_id FROM (" +
+                "SELECT p.id, p.quantity, " +
+                "(SELECT COALESCE(MAX(m.id), 0) FROM stock_movements m WHERE m.product_id = p.id) AS last_movement_id " +
+                "FROM products p WHERE p.id > ? AND p.id <= ?) c " +
+                "WHERE NOT EXISTS (SELECT 1 FROM stock_snapshots s " +
+                "WHERE s.product_id = c.id AND s.last_movement_id = c.last_movement_id)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+        return executeOperation(connection -> {
+            int written = 0;
+            long from = 0;
+            Long to;
+            while ((to = chunkEnd(connection,
+                    "SELECT MAX(id) FROM (SELECT id FROM products WHERE id > ? ORDER BY id LIMIT ?) chunk",
+                    from)) != null) {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setTimestamp(1, now);
+                    stmt.setLong(2, from);
+                    stmt.setLong(3, to);
+                    written += stmt.executeUpdate();
+                }
+                from = to;
+            }
+            return written;
+        });
+    }
+
+    /**
+     * Deletes the snapshots taken before the given instant, except the newest snapshot of
+     * each product, which remains the starting point of its reconstructions. Quantities
+     * before the oldest remaining snapshot are reconstructed from the ledger instead.
+     * Products are pruned in chunks, one auto-committed statement each.
+     *
+     * @param before the instant before which snapshots are no longer needed
+     * @return the number of snapshot rows deleted
+     * @throws SQLException if the pruning fails
+     */
+    public int pruneSnapshots(LocalDateTime before) throws SQLException {
+        String sql = "DELETE s FROM stock_snapshots s JOIN (" +
+                "SELECT product_id, MAX(taken_at) AS newest FROM stock_snapshots " +
+                "WHERE product_id > ? AND product_id <= ? GROUP BY product_id) n ON n.product_id = s.product_id " +
+                "WHERE s.taken_at < ? AND s.taken_at < n.newest";
+        Timestamp cutoff = Timestamp.valueOf(before);
+        return executeOperation(connection -> {
+            int deleted = 0;
+            long from = 0;
+            Long to;
+            while ((to = chunkEnd(connection,
+                    "SELECT MAX(product_id) FROM (SELECT DISTINCT product_id FROM stock_snapshots " +
+                    "WHERE product_id > ? ORDER BY product_id LIMIT ?) chunk",
+                    from)) != null) {
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setLong(1, from);
+                    stmt.setLong(2, to);
+                    stmt.setTimestamp(3, cutoff);
+                    deleted += stmt.executeUpdate();
+                }
+                from = to;
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Makes sure the ledger has a dedicated partition for the current month and the
+     * given number of following months, by splitting them off the catch-all partition.
+     *
+     * @param monthsAhead the number of months after the current one to prepare
+     * @return the number of partitions created
+     * @throws SQLException if the partition maintenance fails
+     */
+    public int ensureMonthlyPartitions(int monthsAhead) throws SQLException {
+        return executeOperation(connection -> {
+            YearMonth latest = null;
+            String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'stock_movements'";
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    YearMonth month = parsePartitionMonth(rs.getString(1));
+                    if (month != null && (latest == null || month.isAfter(latest))) {
+                        latest = month;
+                    }
+                }
+            }
+
+            YearMonth current = YearMonth.now();
+            YearMonth next = latest == null || latest.isBefore(current) ? current : latest.plusMonths(1);
+            YearMonth last = current.plusMonths(monthsAhead);
+            int created = 0;
+            try (Statement stmt = connection.createStatement()) {
+                for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+                    stmt.execute("ALTER TABLE stock_movements REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                            "PARTITION " + partitionName(month) + " VALUES LESS THAN " +
+                            "(UNIX_TIMESTAMP('" + month.plusMonths(1).atDay(1) + " 00:00:00')), " +
+                            "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+                    created++;
+                }
+            }
+            return created;
+        });
+    }
+
+    private int sumDeltas(Connection connection, String sql, int productId, long afterId, Timestamp timestamp)
+            throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, productId);
+            stmt.setLong(2, afterId);
+            stmt.setTimestamp(3, timestamp);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // Returns the last key of the chunk following the given key, or null past the last chunk
+    private static Long chunkEnd(Connection connection, String sql, long after) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, after);
+            stmt.setInt(2, SNAPSHOT_CHUNK_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long end = rs.getLong(1);
+                return rs.wasNull() ? null : end;
+            }
+        }
+    }
+
+    // Sums the ledger entries of a product up to the given instant, or null if it has none
+    private Integer sumLedger(Connection connection, int productId, Timestamp timestamp) throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(SUM(delta), 0) FROM stock_movements " +
+                "WHERE product_id = ? AND created_at <= ?";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, productId);
+            stmt.setTimestamp(2, timestamp);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getLong(1) > 0 ? rs.getInt(2) : null;
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth parsePartitionMonth(String name) {
+        if (name == null || !name.matches("p\\d{6}")) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5)));
+    }
+
+    private StockMovement mapResultSetToStockMovement(ResultSet rs) throws SQLException {
+        return new StockMovement(
+                rs.getLong("id"),
+                rs.getInt("product_id"),
+                rs.getInt("delta"),
+                rs.getString("reason"),
+                rs.getString("username"),
+                rs.getTimestamp("created_at").toLocalDateTime()
+        );
+    }
+}
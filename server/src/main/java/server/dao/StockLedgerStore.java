@@ -0,0 +1,37 @@
+package server.dao;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import common.models.StockMovement;
+
+/**
+ * StockLedgerStore is the storage interface for the stock movement ledger, implemented by
+ * StockLedgerDAO (MySQL) and by EmbeddedStockLedgerStore (embedded storage engine).
+ * Movements are recorded by the ProductStore of the same engine.
+ */
+public interface StockLedgerStore {
+
+    List<StockMovement> getMovements(int productId, int limit) throws SQLException;
+
+    /**
+     * Reconstructs the quantity of a product at the given instant, or null if the product is unknown.
+     */
+    Integer getQuantityAt(int productId, LocalDateTime at) throws SQLException;
+
+    /**
+     * Runs the periodic snapshot of the ledger and returns the number of products covered.
+     */
+    int takeSnapshot() throws SQLException;
+
+    /**
+     * Deletes the snapshots taken before the given instant that are no longer needed and
+     * returns the number deleted.
+     */
+    int pruneSnapshots(LocalDateTime before) throws SQLException;
+
+    /**
+     * Prepares the storage for the coming months and returns the number of partitions created.
+     */
+    int ensureMonthlyPartitions(int monthsAhead) throws SQLException;
+}
@@ -0,0 +1,97 @@
+package server.dao;
+
+import common.util.Logger;
+import server.dao.embedded.EmbeddedStorage;
+import server.util.ConnectionPool;
+import server.util.DatabaseConfig;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * StorageEngine selects the implementation of the storage interfaces (ProductStore,
+ * EmployeeStore, ReorderRuleStore and StockLedgerStore) from the "storage.engine"
+ * property of database.properties:
+ *
+ * - "mysql" (default): the JDBC DAOs, backed by the MySQL connection pool.
+ * - "embedded": the in-process EmbeddedStorage, backed by log files in "storage.embedded.dir".
+ *
+ * Services obtain their stores from the shared instance, so the same service code runs
+ * on both engines. Features tied to JDBC transactions (group commit and the write-ahead
+ * log) are only available with MySQL.
+ */
+public final class StorageEngine {
+    public static final String MYSQL = "mysql";
+    public static final String EMBEDDED = "embedded";
+
+    private static StorageEngine instance;
+
+    private final EmbeddedStorage embeddedStorage; // null with MySQL
+    private final ProductStore productStore;
+    private final EmployeeStore employeeStore;
+    private final ReorderRuleStore reorderRuleStore;
+    private final StockLedgerStore stockLedgerStore;
+
+    private StorageEngine(DatabaseConfig config) {
+        if (config.isEmbeddedStorage()) {
+            try {
+                embeddedStorage = new EmbeddedStorage(Paths.get(config.getEmbeddedStorageDirectory()));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open embedded storage", e);
+            }
+            productStore = embeddedStorage.getProductStore();
+            employeeStore = embeddedStorage.getEmployeeStore();
+            reorderRuleStore = embeddedStorage.getReorderRuleStore();
+            stockLedgerStore = embeddedStorage.getStockLedgerStore();
+        } else {
+            embeddedStorage = null;
+            productStore = new ProductDAO();
+            employeeStore = new EmployeeDAO();
+            reorderRuleStore = new ReorderRuleDAO();
+            stockLedgerStore = new StockLedgerDAO();
+        }
+    }
+
+    public static synchronized StorageEngine getInstance() {
+        if (instance == null) {
+            instance = new StorageEngine(DatabaseConfig.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Releases the storage: closes the embedded logs, or the MySQL connection pool.
+     * Does nothing for an embedded storage that was never opened.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null && instance.embeddedStorage != null) {
+            try {
+                instance.embeddedStorage.close();
+            } catch (IOException e) {
+                Logger.log("ERROR", "Failed to close embedded storage: " + e.getMessage(), "system");
+            }
+        } else if (!DatabaseConfig.getInstance().isEmbeddedStorage()) {
+            ConnectionPool.closePool();
+        }
+    }
+
+    public boolean isEmbedded() {
+        return embeddedStorage != null;
+    }
+
+    public ProductStore getProductStore() {
+        return productStore;
+    }
+
+    public EmployeeStore getEmployeeStore() {
+        return employeeStore;
+    }
+
+    public ReorderRuleStore getReorderRuleStore() {
+        return reorderRuleStore;
+    }
+
+    public StockLedgerStore getStockLedgerStore() {
+        return stockLedgerStore;
+    }
+}
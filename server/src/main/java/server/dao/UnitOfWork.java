@@ -0,0 +1,207 @@
+package server.dao;
+
+import server.util.ConnectionPool;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * UnitOfWork binds one pooled connection to the current thread for the duration of a
+ * scope, so that several DAO calls run in a single transaction and are made durable by
+ * a single commit.
+ *
+ * While a unit of work is open, every BaseDAO method called from the same thread uses
+ * its connection instead of checking out a new one, and executeInTransaction joins it
+ * instead of committing on its own. Units of work opened inside another one join the
+ * outer scope: only the outermost commit reaches the database.
+ *
+ * Usage:
+ * <pre>
+ * try (UnitOfWork work = UnitOfWork.begin()) {
+ *     productDAO.updateProduct(product, username);
+ *     reorderRuleDAO.setReorderPoint(productId, reorderPoint);
+ *     work.commit();
+ * }
+ * </pre>
+ * Closing a unit of work that was not committed rolls it back. The connection is then
+ * restored to auto-commit mode and its original isolation level, and returned to the pool.
+ *
+ * Savepoints allow part of the work to be undone without abandoning the whole transaction.
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final int previousIsolation;
+    private int depth = 1;
+    private boolean committed;
+    private boolean rollbackOnly;
+
+    private UnitOfWork(Connection connection, int previousIsolation) {
+        this.connection = connection;
+        this.previousIsolation = previousIsolation;
+    }
+
+    /**
+     * Opens a unit of work with the default isolation level of the connection,
+     * or joins the one already open on this thread.
+     *
+     * @return the unit of work bound to the current thread
+     * @throws SQLException if no connection can be obtained
+     */
+    public static UnitOfWork begin() throws SQLException {
+        return begin(-1);
+    }
+
+    /**
+     * Opens a unit of work with the given isolation level, or joins the one already
+     * open on this thread (whose isolation level is kept).
+     *
+     * @param isolationLevel one of the Connection.TRANSACTION_* constants, or -1 for the default
+     * @return the unit of work bound to the current thread
+     * @throws SQLException if no connection can be obtained or configured
+     */
+    public static UnitOfWork begin(int isolationLevel) throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.depth++;
+            return current;
+        }
+        Connection connection = ConnectionPool.getDataSource().getConnection();
+        try {
+            int previousIsolation = connection.getTransactionIsolation();
+            if (isolationLevel >= 0 && isolationLevel != previousIsolation) {
+                connection.setTransactionIsolation(isolationLevel);
+            }
+            connection.setAutoCommit(false);
+            UnitOfWork work = new UnitOfWork(connection, previousIsolation);
+            CURRENT.set(work);
+            return work;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the given operation in a unit of work with the default isolation level of the
+     * connection, or in the one already open on this thread, and commits it if the operation
+     * succeeds.
+     *
+     * @param work the operation to run
+     * @return the result of the operation
+     * @throws SQLException if the operation or the commit fails; the work is then rolled back
+     */
+    public static <T> T execute(Work<T> work) throws SQLException {
+        return execute(-1, work);
+    }
+
+    /**
+     * Runs the given operation in a unit of work and commits it if the operation succeeds.
+     * When a unit of work is already open on this thread, the operation joins it and the
+     * isolation level is ignored: it is set by whoever opened the outer unit.
+     *
+     * @param isolationLevel one of the Connection.TRANSACTION_* constants, or -1 for the default
+     * @param work the operation to run
+     * @return the result of the operation
+     * @throws SQLException if the operation or the commit fails; the work is then rolled back
+     */
+    public static <T> T execute(int isolationLevel, Work<T> work) throws SQLException {
+        try (UnitOfWork unitOfWork = begin(isolationLevel)) {
+            T result = work.execute();
+            unitOfWork.commit();
+            return result;
+        }
+    }
+
+    // Returns the unit of work bound to the current thread, or null
+    static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Commits the work. Inside a nested scope this only marks the scope as complete;
+     * the outermost scope performs the actual commit.
+     *
+     * @throws SQLException if the commit fails, or a nested scope was rolled back
+     */
+    public void commit() throws SQLException {
+        if (depth > 1) {
+            committed = true;
+            return;
+        }
+        if (rollbackOnly) {
+            throw new SQLException("Unit of work was marked for rollback by a nested scope");
+        }
+        connection.commit();
+        committed = true;
+    }
+
+    /**
+     * Rolls back the whole transaction. Inside a nested scope the outer scope is marked
+     * for rollback, since its work can no longer be committed as a whole.
+     *
+     * @throws SQLException if the rollback fails
+     */
+    public void rollback() throws SQLException {
+        if (depth > 1) {
+            rollbackOnly = true;
+            return;
+        }
+        connection.rollback();
+    }
+
+    public Savepoint setSavepoint(String name) throws SQLException {
+        return connection.setSavepoint(name);
+    }
+
+    /**
+     * Undoes the work done since the given savepoint. Nested scopes opened and rolled
+     * back after the savepoint no longer prevent the transaction from being committed.
+     *
+     * @param savepoint a savepoint set on this unit of work
+     * @throws SQLException if the rollback fails
+     */
+    public void rollbackTo(Savepoint savepoint) throws SQLException {
+        connection.rollback(savepoint);
+        rollbackOnly = false;
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        connection.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (depth > 1) {
+            if (!committed) {
+                rollbackOnly = true;
+            }
+            committed = false;
+            depth--;
+            return;
+        }
+        CURRENT.remove();
+        try {
+            if (!committed) {
+                connection.rollback();
+            }
+            connection.setAutoCommit(true);
+            if (connection.getTransactionIsolation() != previousIsolation) {
+                connection.setTransactionIsolation(previousIsolation);
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws SQLException;
+    }
+}
@@ -0,0 +1,34 @@
+package server.dao;
+
+import java.sql.*;
+
+/**
+ * WalCheckpointDAO is a data access object responsible for the "wal_checkpoint" table,
+ * which records the highest write-ahead log sequence applied to the database.
+ *
+ * The checkpoint is meant to be read and advanced inside the UnitOfWork that applies
+ * the corresponding writes, so that a write replayed from the log after a crash is
+ * recognized as already applied.
+ *
+ * Methods:
+ * - lockLastSequence: Reads the checkpoint of a log and locks it until the end of the transaction.
+ * - updateLastSequence: Advances the checkpoint of a log.
+ */
+public class WalCheckpointDAO extends BaseDAO {
+
+    public long lockLastSequence(String walId) throws SQLException {
+        executeUpdate("INSERT IGNORE INTO wal_checkpoint (wal_id, last_sequence) VALUES (?, 0)",
+                stmt -> stmt.setString(1, walId));
+        return executeQuery("SELECT last_sequence FROM wal_checkpoint WHERE wal_id = ? FOR UPDATE",
+                stmt -> stmt.setString(1, walId),
+                rs -> rs.next() ? rs.getLong(1) : 0L
+        );
+    }
+
+    public void updateLastSequence(String walId, long sequence) throws SQLException {
+        executeUpdate("UPDATE wal_checkpoint SET last_sequence = ? WHERE wal_id = ?", stmt -> {
+            stmt.setLong(1, sequence);
+            stmt.setString(2, walId);
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package server.dao.embedded;
+
+import common.models.AuthResult;
+import common.models.Employee;
+import org.mindrot.jbcrypt.BCrypt;
+import server.dao.EmployeeStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * EmbeddedEmployeeStore keeps the employees of the embedded storage engine in memory,
+ * indexed by ID and by username, and records every change in a RecordLog.
+ *
+ * Like the employees table, usernames are unique and passwords are stored as BCrypt hashes.
+ */
+public class EmbeddedEmployeeStore implements EmployeeStore {
+    // SQLState of an integrity constraint violation, as reported by MySQL for duplicate keys
+    private static final String DUPLICATE_KEY_STATE = "23000";
+
+    private final RecordLog log;
+    private final ConcurrentSkipListMap<Integer, Employee> rows = new ConcurrentSkipListMap<>();
+    private final Map<String, Integer> idsByUsername = new ConcurrentHashMap<>();
+    private int nextId = 1;
+
+    EmbeddedEmployeeStore(RecordLog log) throws IOException {
+        this.log = log;
+        log.replay(payload -> {
+            DataInputStream in = RecordCodec.reader(payload);
+            if (in.readByte() == RecordCodec.DELETE) {
+                Employee removed = rows.remove(in.readInt());
+                if (removed != null) {
+                    idsByUsername.remove(removed.getUsername());
+                }
+            } else {
+                Employee employee = readEmployee(in);
+                Employee replaced = rows.put(employee.getId(), employee);
+                if (replaced != null) {
+                    idsByUsername.remove(replaced.getUsername());
+                }
+                idsByUsername.put(employee.getUsername(), employee.getId());
+                nextId = Math.max(nextId, employee.getId() + 1);
+            }
+        });
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        List<Employee> employees = new ArrayList<>(rows.size());
+        for (Employee employee : rows.values()) {
+            employees.add(copy(employee));
+        }
+        return employees;
+    }
+
+    @Override
+    public Employee getEmployeeByUsername(String username) {
+        Integer id = idsByUsername.get(username);
+        Employee employee = id != null ? rows.get(id) : null;
+        return employee != null ? copy(employee) : null;
+    }
+
+    @Override
+    public synchronized void addEmployee(Employee employee) throws SQLException {
+        if (idsByUsername.containsKey(employee.getUsername())) {
+            throw new SQLException("Duplicate username: " + employee.getUsername(), DUPLICATE_KEY_STATE);
+        }
+        String hashedPassword = BCrypt.hashpw(employee.getPassword(), BCrypt.gensalt());
+        Employee row = new Employee(nextId, employee.getUsername(), employee.getFullname(), hashedPassword,
+                employee.getRole(), LocalDateTime.now().withNano(0));
+        put(row);
+        nextId++;
+        employee.setId(row.getId());
+    }
+
+    @Override
+    public synchronized void updateEmployee(Employee employee, boolean updatePassword) throws SQLException {
+        Employee previous = rows.get(employee.getId());
+        if (previous == null) {
+            return;
+        }
+        Integer owner = idsByUsername.get(employee.getUsername());
+        if (owner != null && owner != employee.getId()) {
+            throw new SQLException("Duplicate username: " + employee.getUsername(), DUPLICATE_KEY_STATE);
+        }
+        String password = updatePassword
+                ? BCrypt.hashpw(employee.getPassword(), BCrypt.gensalt())
+                : previous.getPassword();
+        idsByUsername.remove(previous.getUsername());
+        put(new Employee(employee.getId(), employee.getUsername(), employee.getFullname(), password,
+                employee.getRole(), previous.getCreatedAt()));
+    }
+
+    @Override
+    public synchronized void deleteEmployee(int id) throws SQLException {
+        Employee previous = rows.get(id);
+        if (previous == null) {
+            return;
+        }
+        append(new byte[] {RecordCodec.DELETE, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id});
+        rows.remove(id);
+        idsByUsername.remove(previous.getUsername());
+    }
+
+    @Override
+    public AuthResult authenticate(String username, String password) {
+        Integer id = idsByUsername.get(username);
+        Employee employee = id != null ? rows.get(id) : null;
+        if (employee == null) {
+            return null;
+        }
+        boolean isAuthenticated = BCrypt.checkpw(password, employee.getPassword());
+        return new AuthResult(employee.getId(), employee.getUsername(), employee.getFullname(),
+                employee.getRole(), isAuthenticated);
+    }
+
+    boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * Inserts an employee whose password is already hashed, e.g. the default accounts.
+     */
+    synchronized void addHashedEmployee(String username, String fullname, String hashedPassword, String role)
+            throws SQLException {
+        put(new Employee(nextId, username, fullname, hashedPassword, role, LocalDateTime.now().withNano(0)));
+        nextId++;
+    }
+
+    synchronized void compact() throws IOException {
+        if (log.getRecordCount() <= 2L * rows.size() + 1000) {
+            return;
+        }
+        List<byte[]> live = new ArrayList<>(rows.size());
+        for (Employee employee : rows.values()) {
+            live.add(encodePut(employee));
+        }
+        log.rewrite(live);
+    }
+
+    private void put(Employee row) throws SQLException {
+        append(encodePut(row));
+        rows.put(row.getId(), row);
+        idsByUsername.put(row.getUsername(), row.getId());
+    }
+
+    private void append(byte[] record) throws SQLException {
+        try {
+            log.append(record);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write employee record: " + e.getMessage(), e);
+        }
+    }
+
+    private static Employee copy(Employee employee) {
+        return new Employee(employee.getId(), employee.getUsername(), employee.getFullname(),
+                employee.getPassword(), employee.getRole(), employee.getCreatedAt());
+    }
+
+    private static byte[] encodePut(Employee employee) {
+        try {
+            ByteArrayOutputStream bytes = RecordCodec.newBuffer();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(RecordCodec.PUT);
+            out.writeInt(employee.getId());
+            RecordCodec.writeString(out, employee.getUsername());
+            RecordCodec.writeString(out, employee.getFullname());
+            RecordCodec.writeString(out, employee.getPassword());
+            RecordCodec.writeString(out, employee.getRole());
+            RecordCodec.writeDateTime(out, employee.getCreatedAt());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode employee", e);
+        }
+    }
+
+    private static Employee readEmployee(DataInputStream in) throws IOException {
+        return new Employee(in.readInt(), RecordCodec.readString(in), RecordCodec.readString(in),
+                RecordCodec.readString(in), RecordCodec.readString(in), RecordCodec.readDateTime(in));
+    }
+}
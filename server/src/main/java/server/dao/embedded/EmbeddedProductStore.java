@@ -0,0 +1,305 @@
+package server.dao.embedded;
+
+import common.models.CategoryStats;
+import common.models.Product;
+import common.models.ProductQuery;
+import common.models.StockMovement;
+import server.dao.ProductStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * EmbeddedProductStore keeps the products of the embedded storage engine in memory,
+ * indexed by ID, and records every change in a RecordLog before applying it.
+ *
+ * Reads are served from memory without locking and return copies, so callers never see
+ * a row change under them. Writes are serialized. Text filters compare case-insensitively,
+ * like the MySQL LIKE comparisons of ProductDAO.
+ *
+ * IDs are never reused, like AUTO_INCREMENT: a compacted log starts with the next ID to
+ * assign, so that a new product does not inherit the stock movements of a deleted one.
+ * A change whose stock movement cannot be recorded is undone before the error is thrown.
+ */
+public class EmbeddedProductStore implements ProductStore {
+    private final RecordLog log;
+    private final EmbeddedStockLedgerStore ledger;
+    private final ConcurrentSkipListMap<Integer, Product> rows = new ConcurrentSkipListMap<>();
+    private int nextId = 1;
+
+    EmbeddedProductStore(RecordLog log, EmbeddedStockLedgerStore ledger) throws IOException {
+        this.log = log;
+        this.ledger = ledger;
+        log.replay(payload -> {
+            DataInputStream in = RecordCodec.reader(payload);
+            byte type = in.readByte();
+            if (type == RecordCodec.DELETE) {
+                rows.remove(in.readInt());
+            } else if (type == RecordCodec.NEXT_ID) {
+                nextId = Math.max(nextId, in.readInt());
+            } else {
+                Product product = readProduct(in);
+                rows.put(product.getId(), product);
+                nextId = Math.max(nextId, product.getId() + 1);
+            }
+        });
+    }
+
+    @Override
+    public List<Product> getAllProducts() {
+        return filter(product -> true);
+    }
+
+    @Override
+    public Product getProductById(int id) {
+        Product product = rows.get(id);
+        return product != null ? copy(product) : null;
+    }
+
+    @Override
+    public List<Product> getProductsByCategory(String category) {
+        String needle = category.toLowerCase(Locale.ROOT);
+        return filter(product -> contains(product.getCategory(), needle));
+    }
+
+    @Override
+    public List<Product> getProductsByName(String name) {
+        String needle = name.toLowerCase(Locale.ROOT);
+        return filter(product -> contains(product.getName(), needle));
+    }
+
+    @Override
+    public List<Product> getProductsByQuantity(int quantity) {
+        return filter(product -> product.getQuantity() == quantity);
+    }
+
+    @Override
+    public List<Product> searchProducts(ProductQuery query) {
+        List<Product> matches = filter(query::matches);
+        matches.sort(comparator(query));
+        int from = Math.min(query.getOffset(), matches.size());
+        int to = query.getLimit() > 0 ? Math.min(from + query.getLimit(), matches.size()) : matches.size();
+        if (from > 0 || to < matches.size()) {
+            return new ArrayList<>(matches.subList(from, to));
+        }
+        return matches;
+    }
+
+    @Override
+    public Stream<Product> streamProducts(ProductQuery query) {
+        return searchProducts(query).stream();
+    }
+
+    @Override
+    public int countProducts(ProductQuery query) {
+        int count = 0;
+        for (Product product : rows.values()) {
+            if (query.matches(product)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<CategoryStats> getCategoryStats() {
+        Map<String, long[]> counts = new TreeMap<>();
+        Map<String, BigDecimal> values = new TreeMap<>();
+        for (Product product : rows.values()) {
+            long[] count = counts.computeIfAbsent(product.getCategory(), c -> new long[2]);
+            count[0]++;
+            count[1] += product.getQuantity();
+            BigDecimal value = product.getPrice() != null
+                    ? product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity()))
+                    : BigDecimal.ZERO;
+            values.merge(product.getCategory(), value, BigDecimal::add);
+        }
+        List<CategoryStats> stats = new ArrayList<>(counts.size());
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            stats.add(new CategoryStats(entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+                    values.get(entry.getKey())));
+        }
+        return stats;
+    }
+
+    @Override
+    public synchronized void addProduct(Product product, String username) throws SQLException {
+        // The ID is consumed even if the add fails, since its record may have reached the log
+        Product row = new Product(nextId++, product.getName(), product.getCategory(), product.getQuantity(),
+                product.getPrice(), LocalDateTime.now().withNano(0));
+        append(encodePut(row));
+        rows.put(row.getId(), row);
+        try {
+            ledger.record(row.getId(), row.getQuantity(), StockMovement.REASON_ADD, username);
+        } catch (SQLException e) {
+            undo(encodeDelete(row.getId()), e);
+            rows.remove(row.getId());
+            throw e;
+        }
+        product.setId(row.getId());
+    }
+
+    @Override
+    public synchronized Product updateProduct(Product product, String username) throws SQLException {
+        Product previous = rows.get(product.getId());
+        if (previous == null) {
+            return null;
+        }
+        Product row = new Product(product.getId(), product.getName(), product.getCategory(), product.getQuantity(),
+                product.getPrice(), previous.getCreatedAt());
+        append(encodePut(row));
+        rows.put(row.getId(), row);
+        try {
+            ledger.record(row.getId(), row.getQuantity() - previous.getQuantity(), StockMovement.REASON_UPDATE,
+                    username);
+        } catch (SQLException e) {
+            undo(encodePut(previous), e);
+            rows.put(previous.getId(), previous);
+            throw e;
+        }
+        return copy(previous);
+    }
+
+    @Override
+    public synchronized Product deleteProduct(int id, String username) throws SQLException {
+        Product previous = rows.get(id);
+        if (previous == null) {
+            return null;
+        }
+        append(encodeDelete(id));
+        rows.remove(id);
+        try {
+            ledger.record(id, -previous.getQuantity(), StockMovement.REASON_DELETE, username);
+        } catch (SQLException e) {
+            undo(encodePut(previous), e);
+            rows.put(id, previous);
+            throw e;
+        }
+        return copy(previous);
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    boolean exists(int id) {
+        return rows.containsKey(id);
+    }
+
+    // Rewrites the log with one record per product once most records are superseded
+    synchronized void compact() throws IOException {
+        if (log.getRecordCount() <= 2L * rows.size() + 1000) {
+            return;
+        }
+        List<byte[]> live = new ArrayList<>(rows.size() + 1);
+        live.add(encodeNextId(nextId));
+        for (Product product : rows.values()) {
+            live.add(encodePut(product));
+        }
+        log.rewrite(live);
+    }
+
+    private List<Product> filter(Predicate<Product> predicate) {
+        List<Product> products = new ArrayList<>();
+        for (Product product : rows.values()) {
+            if (predicate.test(product)) {
+                products.add(copy(product));
+            }
+        }
+        return products;
+    }
+
+    private void append(byte[] record) throws SQLException {
+        try {
+            log.append(record);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write product record: " + e.getMessage(), e);
+        }
+    }
+
+    // Logs the record restoring the previous row; if that fails too, the error is attached to the cause
+    private void undo(byte[] record, SQLException cause) {
+        try {
+            log.append(record);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static boolean contains(String value, String lowerCaseNeedle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerCaseNeedle);
+    }
+
+    private static Comparator<Product> comparator(ProductQuery query) {
+        Comparator<Product> comparator;
+        switch (query.getSortField()) {
+            case NAME:
+                comparator = Comparator.comparing(Product::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                break;
+            case CATEGORY:
+                comparator = Comparator.comparing(Product::getCategory, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+                break;
+            case QUANTITY:
+                comparator = Comparator.comparingInt(Product::getQuantity);
+                break;
+            case PRICE:
+                comparator = Comparator.comparing(Product::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()));
+                break;
+            default:
+                comparator = Comparator.comparingInt(Product::getId);
+                break;
+        }
+        // Ties are broken by ID, as on MySQL, so that pages are stable
+        comparator = comparator.thenComparingInt(Product::getId);
+        return query.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getCategory(), product.getQuantity(),
+                product.getPrice(), product.getCreatedAt());
+    }
+
+    private static byte[] encodePut(Product product) {
+        try {
+            ByteArrayOutputStream bytes = RecordCodec.newBuffer();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(RecordCodec.PUT);
+            out.writeInt(product.getId());
+            RecordCodec.writeString(out, product.getName());
+            RecordCodec.writeString(out, product.getCategory());
+            out.writeInt(product.getQuantity());
+            RecordCodec.writeDecimal(out, product.getPrice());
+            RecordCodec.writeDateTime(out, product.getCreatedAt());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode product", e);
+        }
+    }
+
+    private static byte[] encodeDelete(int id) {
+        return new byte[] {RecordCodec.DELETE, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id};
+    }
+
+    private static byte[] encodeNextId(int id) {
+        return new byte[] {RecordCodec.NEXT_ID, (byte) (id >>> 24), (byte) (id >>> 16), (byte) (id >>> 8), (byte) id};
+    }
+
+    private static Product readProduct(DataInputStream in) throws IOException {
+        return new Product(in.readInt(), RecordCodec.readString(in), RecordCodec.readString(in), in.readInt(),
+                RecordCodec.readDecimal(in), RecordCodec.readDateTime(in));
+    }
+}
@@ -0,0 +1,142 @@
+package server.dao.embedded;
+
+import common.models.Product;
+import common.models.StockAlert;
+import server.dao.ReorderRuleStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * EmbeddedReorderRuleStore keeps the reorder points of the embedded storage engine in
+ * memory, backed by a RecordLog. Rules are joined with the product store on read, and
+ * rules of deleted products are ignored, like the cascading foreign key of reorder_rules.
+ */
+public class EmbeddedReorderRuleStore implements ReorderRuleStore {
+    private final RecordLog log;
+    private final EmbeddedProductStore products;
+    private final ConcurrentSkipListMap<Integer, Rule> rules = new ConcurrentSkipListMap<>();
+
+    EmbeddedReorderRuleStore(RecordLog log, EmbeddedProductStore products) throws IOException {
+        this.log = log;
+        this.products = products;
+        log.replay(payload -> {
+            DataInputStream in = RecordCodec.reader(payload);
+            byte type = in.readByte();
+            int productId = in.readInt();
+            if (type == RecordCodec.DELETE) {
+                rules.remove(productId);
+            } else {
+                rules.put(productId, new Rule(in.readInt(), RecordCodec.readDateTime(in)));
+            }
+        });
+    }
+
+    @Override
+    public List<StockAlert> getReorderRules() {
+        List<StockAlert> alerts = new ArrayList<>(rules.size());
+        for (Map.Entry<Integer, Rule> entry : rules.entrySet()) {
+            StockAlert alert = toAlert(entry.getKey(), entry.getValue());
+            if (alert != null) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    @Override
+    public StockAlert getReorderRule(int productId) {
+        Rule rule = rules.get(productId);
+        return rule != null ? toAlert(productId, rule) : null;
+    }
+
+    @Override
+    public synchronized void setReorderPoint(int productId, int reorderPoint) throws SQLException {
+        if (!products.exists(productId)) {
+            // Same outcome as the foreign key of reorder_rules
+            throw new SQLException("Unknown product: " + productId, "23000");
+        }
+        Rule rule = new Rule(reorderPoint, LocalDateTime.now().withNano(0));
+        append(encodePut(productId, rule));
+        rules.put(productId, rule);
+    }
+
+    @Override
+    public StockAlert saveReorderPoint(int productId, int reorderPoint) throws SQLException {
+        setReorderPoint(productId, reorderPoint);
+        return getReorderRule(productId);
+    }
+
+    @Override
+    public synchronized void deleteReorderPoint(int productId) throws SQLException {
+        if (rules.containsKey(productId)) {
+            append(encodeDelete(productId));
+            rules.remove(productId);
+        }
+    }
+
+    synchronized void compact() throws IOException {
+        rules.keySet().removeIf(productId -> !products.exists(productId));
+        if (log.getRecordCount() <= 2L * rules.size() + 1000) {
+            return;
+        }
+        List<byte[]> live = new ArrayList<>(rules.size());
+        for (Map.Entry<Integer, Rule> entry : rules.entrySet()) {
+            live.add(encodePut(entry.getKey(), entry.getValue()));
+        }
+        log.rewrite(live);
+    }
+
+    private StockAlert toAlert(int productId, Rule rule) {
+        Product product = products.getProductById(productId);
+        if (product == null) {
+            return null;
+        }
+        return new StockAlert(productId, product.getName(), product.getQuantity(), rule.reorderPoint, rule.updatedAt);
+    }
+
+    private void append(byte[] record) throws SQLException {
+        try {
+            log.append(record);
+        } catch (IOException e) {
+            throw new SQLException("Failed to write reorder rule record: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] encodePut(int productId, Rule rule) {
+        try {
+            ByteArrayOutputStream bytes = RecordCodec.newBuffer();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(RecordCodec.PUT);
+            out.writeInt(productId);
+            out.writeInt(rule.reorderPoint);
+            RecordCodec.writeDateTime(out, rule.updatedAt);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode reorder rule", e);
+        }
+    }
+
+    private static byte[] encodeDelete(int productId) {
+        return new byte[] {RecordCodec.DELETE, (byte) (productId >>> 24), (byte) (productId >>> 16),
+                (byte) (productId >>> 8), (byte) productId};
+    }
+
+    private static final class Rule {
+        private final int reorderPoint;
+        private final LocalDateTime updatedAt;
+
+        private Rule(int reorderPoint, LocalDateTime updatedAt) {
+            this.reorderPoint = reorderPoint;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package server.dao.embedded;
+
+import common.models.Product;
+import common.models.StockMovement;
+import server.dao.StockLedgerStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EmbeddedStockLedgerStore keeps the stock movement ledger of the embedded storage engine:
+ * the movements of every product in memory, in recording order, backed by a RecordLog.
+ *
+ * The quantity of a product at a past instant is its current quantity minus the movements
+ * recorded after that instant, or for a product deleted since, the sum of its movements up to
+ * that instant. Since the ledger is in memory, no snapshot is needed: takeSnapshot compacts
+ * the logs of the other tables instead, and there are no snapshots to prune nor partitions.
+ */
+public class EmbeddedStockLedgerStore implements StockLedgerStore {
+    private final RecordLog log;
+    private final Map<Integer, List<StockMovement>> movements = new ConcurrentHashMap<>();
+    private EmbeddedStorage storage;
+    private long nextId = 1;
+
+    EmbeddedStockLedgerStore(RecordLog log) throws IOException {
+        this.log = log;
+        log.replay(payload -> {
+            StockMovement movement = decode(payload);
+            movements.computeIfAbsent(movement.getProductId(), id -> new ArrayList<>()).add(movement);
+            nextId = Math.max(nextId, movement.getId() + 1);
+        });
+    }
+
+    void attach(EmbeddedStorage storage) {
+        this.storage = storage;
+    }
+
+    synchronized void record(int productId, int delta, String reason, String username) throws SQLException {
+        if (delta == 0) {
+            return;
+        }
+        StockMovement movement = new StockMovement(nextId, productId, delta, reason, username, LocalDateTime.now());
+        try {
+            log.append(encode(movement));
+        } catch (IOException e) {
+            throw new SQLException("Failed to write stock movement: " + e.getMessage(), e);
+        }
+        nextId++;
+        List<StockMovement> list = movements.computeIfAbsent(productId, id -> new ArrayList<>());
+        synchronized (list) {
+            list.add(movement);
+        }
+    }
+
+    @Override
+    public List<StockMovement> getMovements(int productId, int limit) {
+        List<StockMovement> list = movements.get(productId);
+        if (list == null) {
+            return new ArrayList<>();
+        }
+        synchronized (list) {
+            int count = limit > 0 ? Math.min(limit, list.size()) : list.size();
+            List<StockMovement> newestFirst = new ArrayList<>(count);
+            for (int i = list.size() - 1; i >= list.size() - count; i--) {
+                newestFirst.add(list.get(i));
+            }
+            return newestFirst;
+        }
+    }
+
+    @Override
+    public Integer getQuantityAt(int productId, LocalDateTime at) {
+        Product product = storage.getProductStore().getProductById(productId);
+        List<StockMovement> list = movements.get(productId);
+        if (product == null) {
+            return list != null ? sumUpTo(list, at) : null;
+        }
+        int quantity = product.getQuantity();
+        if (list != null) {
+            synchronized (list) {
+                for (int i = list.size() - 1; i >= 0 && list.get(i).getCreatedAt().isAfter(at); i--) {
+                    quantity -= list.get(i).getDelta();
+                }
+            }
+        }
+        return quantity;
+    }
+
+    @Override
+    public int takeSnapshot() throws SQLException {
+        try {
+            storage.compact();
+        } catch (IOException e) {
+            throw new SQLException("Failed to compact embedded storage: " + e.getMessage(), e);
+        }
+        return storage.getProductStore().size();
+    }
+
+    @Override
+    public int pruneSnapshots(LocalDateTime before) {
+        return 0;
+    }
+
+    @Override
+    public int ensureMonthlyPartitions(int monthsAhead) {
+        return 0;
+    }
+
+    // Sums the movements recorded up to the given instant, or returns null if there are none
+    private static Integer sumUpTo(List<StockMovement> list, LocalDateTime at) {
+        synchronized (list) {
+            Integer quantity = null;
+            for (int i = 0; i < list.size() && !list.get(i).getCreatedAt().isAfter(at); i++) {
+                quantity = (quantity == null ? 0 : quantity) + list.get(i).getDelta();
+            }
+            return quantity;
+        }
+    }
+
+    private static byte[] encode(StockMovement movement) throws IOException {
+        ByteArrayOutputStream bytes = RecordCodec.newBuffer();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(movement.getId());
+        out.writeInt(movement.getProductId());
+        out.writeInt(movement.getDelta());
+        RecordCodec.writeString(out, movement.getReason());
+        RecordCodec.writeString(out, movement.getUsername());
+        RecordCodec.writeDateTime(out, movement.getCreatedAt());
+        return bytes.toByteArray();
+    }
+
+    private static StockMovement decode(byte[] payload) throws IOException {
+        DataInputStream in = RecordCodec.reader(payload);
+        return new StockMovement(in.readLong(), in.readInt(), in.readInt(),
+                RecordCodec.readString(in), RecordCodec.readString(in), RecordCodec.readDateTime(in));
+    }
+}
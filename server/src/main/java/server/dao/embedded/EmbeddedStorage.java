@@ -0,0 +1,94 @@
+package server.dao.embedded;
+
+import common.util.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * EmbeddedStorage is the in-process storage engine used when "storage.engine" is set to
+ * "embedded" in database.properties. It runs the inventory without a MySQL server.
+ *
+ * Each table is held in memory, with its indexes, and backed by an append-only RecordLog
+ * in the storage directory (products.log, employees.log, reorder_rules.log and
+ * stock_movements.log). Opening the storage replays the logs, which takes milliseconds
+ * for the size of a store, and reads never leave memory.
+ *
+ * The logs of the mutable tables are compacted when most of their records have been
+ * superseded: on startup and whenever the ledger maintenance takes its snapshot.
+ *
+ * On first start, when there are no employees yet, the default administrator account
+ * of data.sql is created so that the application can be logged into.
+ */
+public class EmbeddedStorage implements AutoCloseable {
+    // Default administrator of data.sql (password 123456), to be changed after the first login
+    private static final String DEFAULT_ADMIN_HASH = "$2a$12$OgFuXHF0NDNvwdzELlUS8ubDelgiT42WUoZxyQVbP3kSe1DuUzBmi";
+
+    private final RecordLog productLog;
+    private final RecordLog employeeLog;
+    private final RecordLog reorderRuleLog;
+    private final RecordLog ledgerLog;
+    private final EmbeddedProductStore productStore;
+    private final EmbeddedEmployeeStore employeeStore;
+    private final EmbeddedReorderRuleStore reorderRuleStore;
+    private final EmbeddedStockLedgerStore stockLedgerStore;
+
+    public EmbeddedStorage(Path directory) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        productLog = new RecordLog(directory.resolve("products.log"));
+        employeeLog = new RecordLog(directory.resolve("employees.log"));
+        reorderRuleLog = new RecordLog(directory.resolve("reorder_rules.log"));
+        ledgerLog = new RecordLog(directory.resolve("stock_movements.log"));
+
+        stockLedgerStore = new EmbeddedStockLedgerStore(ledgerLog);
+        productStore = new EmbeddedProductStore(productLog, stockLedgerStore);
+        employeeStore = new EmbeddedEmployeeStore(employeeLog);
+        reorderRuleStore = new EmbeddedReorderRuleStore(reorderRuleLog, productStore);
+        stockLedgerStore.attach(this);
+
+        if (employeeStore.isEmpty()) {
+            try {
+                employeeStore.addHashedEmployee("admin", "Administrator", DEFAULT_ADMIN_HASH, "admin");
+                Logger.log("WARN", "Created default admin account in embedded storage, change its password", "system");
+            } catch (SQLException e) {
+                throw new IOException("Failed to create default admin account", e);
+            }
+        }
+        compact();
+        Logger.log("SERVER", "Embedded storage opened from " + directory.toAbsolutePath() + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms", "system");
+    }
+
+    public EmbeddedProductStore getProductStore() {
+        return productStore;
+    }
+
+    public EmbeddedEmployeeStore getEmployeeStore() {
+        return employeeStore;
+    }
+
+    public EmbeddedReorderRuleStore getReorderRuleStore() {
+        return reorderRuleStore;
+    }
+
+    public EmbeddedStockLedgerStore getStockLedgerStore() {
+        return stockLedgerStore;
+    }
+
+    void compact() throws IOException {
+        productStore.compact();
+        employeeStore.compact();
+        reorderRuleStore.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        productLog.close();
+        employeeLog.close();
+        reorderRuleLog.close();
+        ledgerLog.close();
+    }
+}
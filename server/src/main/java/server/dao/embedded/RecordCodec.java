@@ -0,0 +1,66 @@
+package server.dao.embedded;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Helpers shared by the embedded stores to encode their records, with support for null values.
+ */
+final class RecordCodec {
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    // Written first by a compacted log: the next ID to assign, above the IDs of deleted rows
+    static final byte NEXT_ID = 3;
+
+    private RecordCodec() {
+    }
+
+    static ByteArrayOutputStream newBuffer() {
+        return new ByteArrayOutputStream(96);
+    }
+
+    static DataInputStream reader(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, value != null ? value.toPlainString() : null);
+    }
+
+    static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    // Stored as epoch seconds and nanoseconds of the local date-time, Long.MIN_VALUE for null
+    static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeLong(Long.MIN_VALUE);
+            return;
+        }
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return seconds != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
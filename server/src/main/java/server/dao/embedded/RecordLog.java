@@ -0,0 +1,142 @@
+package server.dao.embedded;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * RecordLog is the append-only file behind one table of the embedded storage engine.
+ * Every change to the table is appended as a record: length (int), CRC32 (int), payload.
+ * The table itself lives in memory and is rebuilt on startup by replaying the log,
+ * which is read through a memory mapping.
+ *
+ * Appends are forced to disk before returning. A record cut short by a crash fails its
+ * length or CRC check on replay and is truncated away, together with anything after it.
+ * When most records have been superseded, the table rewrites the log with one record per
+ * live row (see {@link #rewrite(Iterable)}).
+ */
+final class RecordLog implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+
+    private final Path file;
+    private FileChannel channel;
+    private long records;
+
+    RecordLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Hands every valid record to the handler, in append order, and truncates the
+     * log after the last valid record.
+     */
+    synchronized void replay(RecordHandler handler) throws IOException {
+        long size = channel.size();
+        long valid = 0;
+        if (size > 0) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int position = 0;
+            while (position + HEADER_BYTES <= size) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + (long) length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(position + HEADER_BYTES, payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+                handler.handle(payload);
+                records++;
+                position += HEADER_BYTES + length;
+            }
+            valid = position;
+        }
+        if (valid < size) {
+            channel.truncate(valid);
+            channel.force(true);
+        }
+        channel.position(valid);
+    }
+
+    synchronized void append(byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        records++;
+    }
+
+    /**
+     * Replaces the log with the given records, through a temporary file moved into place.
+     * If the move fails, the log is reopened with its previous records.
+     */
+    synchronized void rewrite(Iterable<byte[]> liveRecords) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] payload : liveRecords) {
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                count++;
+            }
+            out.force(true);
+        }
+        // Some platforms cannot replace a file that is still open
+        channel.close();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                channel = openForAppend();
+                Files.deleteIfExists(temp);
+            } catch (IOException reopen) {
+                e.addSuppressed(reopen);
+            }
+            throw e;
+        }
+        channel = openForAppend();
+        records = count;
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+
+    // Number of records in the log, live or superseded
+    synchronized long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void handle(byte[] payload) throws IOException;
+    }
+}
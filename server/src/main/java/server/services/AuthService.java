@@ -2,8 +2,11 @@ package server.services;
 
 import common.interfaces.AuthInterface;
 import common.util.Logger;
-import server.dao.EmployeeDAO;
-import common.models.Employee;
+import server.dao.EmployeeStore;
+import server.dao.StorageEngine;
+import server.util.AuditLog;
+import server.util.RmiTransport;
+import common.models.AuthResult;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
@@ -17,8 +20,8 @@ import java.rmi.server.UnicastRemoteObject;
  * Additionally, it logs authentication successes, failures, and error events.
  *
  * AuthService relies on the following classes and external functionalities:
- * - EmployeeDAO for database access and user authentication logic.
- * - Employee for representing user data and state.
+ * - EmployeeStore (from StorageEngine) for user data access and authentication logic.
+ * - AuthResult for representing the outcome of an authentication attempt.
  * - Logger for logging authentication-related operations.
  * - BCrypt for password hashing and validation.
  *
@@ -26,11 +29,12 @@ import java.rmi.server.UnicastRemoteObject;
  * Implements: AuthInterface for remote authentication capability.
  */
 public class AuthService extends UnicastRemoteObject implements AuthInterface {
-    private final EmployeeDAO employeeDAO;
+    private final EmployeeStore employeeDAO;
 
     public AuthService() throws RemoteException {
-        super();
-        employeeDAO = new EmployeeDAO();
+        super(RmiTransport.getInstance().getPort(), RmiTransport.getInstance().getClientSocketFactory(),
+                RmiTransport.getInstance().getServerSocketFactory());
+        employeeDAO = StorageEngine.getInstance().getEmployeeStore();
     }
 
 
@@ -42,21 +46,24 @@ public class AuthService extends UnicastRemoteObject implements AuthInterface {
      *
      * @param username the username of the employee attempting to authenticate
      * @param password the password provided by the employee for authentication
-     * @return an Employee object if authentication is successful, or null if the credentials are invalid or the user does not exist
+     * @return an AuthResult telling whether the credentials are valid, or null if the user does not exist
      * @throws RemoteException if an error occurs during the authentication process
      */
     @Override
-    public Employee authenticate(String username, String password) throws RemoteException {
+    public AuthResult authenticate(String username, String password) throws RemoteException {
         try {
-            Employee employee = employeeDAO.authenticate(username, password);
+            AuthResult employee = employeeDAO.authenticate(username, password);
             if (employee != null) {
                 if (employee.isAuthenticated()) {
                     Logger.log("AUTH", "Successful authentication for user: " + username, "system");
+                    AuditLog.getInstance().record("LOGIN_SUCCESS", username, "EMPLOYEE", employee.getId(), "Successful authentication");
                 } else {
                     Logger.log("AUTH", "Failed authentication attempt for user: " + username, "system");
+                    AuditLog.getInstance().record("LOGIN_FAILED", username, "EMPLOYEE", employee.getId(), "Failed authentication attempt");
                 }
             } else {
                 Logger.log("AUTH", "Authentication attempt for non-existent user: " + username, "system");
+                AuditLog.getInstance().record("LOGIN_FAILED", username, null, null, "Authentication attempt for non-existent user");
             }
             return employee;
         } catch (Exception e) {
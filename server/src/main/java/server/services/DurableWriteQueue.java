@@ -0,0 +1,418 @@
+package server.services;
+
+import common.models.Product;
+import common.util.Logger;
+import server.dao.ProductStore;
+import server.dao.ReorderRuleStore;
+import server.dao.UnitOfWork;
+import server.dao.WalCheckpointDAO;
+import server.util.WriteAheadLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.util.List;
+
+/**
+ * The DurableWriteQueue class accepts inventory writes into a WriteAheadLog and applies
+ * them to the database asynchronously, so that a write is not lost when the database is
+ * briefly unreachable.
+ *
+ * A write is acknowledged as soon as it is durable in the log. A single applier thread
+ * takes the logged writes in order and applies them in batches, each batch in one
+ * UnitOfWork that also advances the checkpoint stored in the database; writes replayed
+ * after a crash are therefore applied exactly once. Connection errors and other transient
+ * failures are retried with exponential backoff until the database is back. A write that
+ * fails for any other reason (e.g. the product no longer exists, a DAO error, or a record
+ * that cannot be decoded) is rolled back alone, reported to the listener and skipped.
+ *
+ * The listener is called on the applier thread after each batch commits, to update the
+ * in-memory state derived from the database and to record the audit trail. It is called
+ * before the batch is marked applied in the log: should that fail, the batch is retried,
+ * finds its writes below the committed checkpoint and has nothing left to report.
+ */
+class DurableWriteQueue {
+    static final byte ADD_PRODUCT = 1;
+    static final byte UPDATE_PRODUCT = 2;
+    static final byte DELETE_PRODUCT = 3;
+    static final byte SET_REORDER_POINT = 4;
+    static final byte REMOVE_REORDER_POINT = 5;
+
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final WriteAheadLog wal;
+    private final ProductStore productDAO;
+    private final ReorderRuleStore reorderRuleDAO;
+    private final BatchFactory batches;
+    private final Listener listener;
+    private final int batchSize;
+    private final Thread applier;
+    private volatile boolean running = true;
+    private volatile long appliedSequence;
+
+    DurableWriteQueue(WriteAheadLog wal, ProductStore productDAO, ReorderRuleStore reorderRuleDAO,
+                      Listener listener, int batchSize) {
+        this(wal, productDAO, reorderRuleDAO, listener, batchSize, DatabaseBatch::new);
+    }
+
+    DurableWriteQueue(WriteAheadLog wal, ProductStore productDAO, ReorderRuleStore reorderRuleDAO,
+                      Listener listener, int batchSize, BatchFactory batches) {
+        this.wal = wal;
+        this.batches = batches;
+        this.productDAO = productDAO;
+        this.reorderRuleDAO = reorderRuleDAO;
+        this.listener = listener;
+        this.batchSize = Math.max(1, batchSize);
+        this.applier = new Thread(this::run, "wal-applier");
+        this.applier.setDaemon(true);
+    }
+
+    /**
+     * Starts applying logged writes, beginning with the ones recovered from the log, and
+     * waits until the recovered writes are applied or the timeout expires.
+     *
+     * @param timeoutMillis the maximum time to wait for the recovered writes
+     * @return the number of recovered writes still waiting to be applied
+     */
+    int replay(long timeoutMillis) {
+        long recovered = wal.getRecoveredSequence();
+        appliedSequence = wal.getAppliedSequence();
+        applier.start();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSequence < recovered && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return (int) Math.max(0, recovered - appliedSequence);
+    }
+
+    /**
+     * Logs a write durably. The write is applied to the database later.
+     *
+     * @param write the write to log
+     * @throws IOException if the write cannot be logged, e.g. because too many writes are pending
+     */
+    void submit(Write write) throws IOException {
+        wal.append(encode(write));
+    }
+
+    void close(long timeoutMillis) {
+        running = false;
+        try {
+            applier.join(timeoutMillis);
+            wal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            Logger.log("ERROR", "Failed to close the write-ahead log: " + e.getMessage(), "system");
+        }
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        List<WriteAheadLog.Record> batch = List.of();
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    batch = wal.takeBatch(batchSize, 100);
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                }
+                apply(batch);
+                batch = List.of();
+                backoff = MIN_BACKOFF_MILLIS;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                Logger.log("ERROR", "Failed to apply logged writes, retrying in " + backoff + " ms: "
+                        + e.getMessage(), "system");
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void apply(List<WriteAheadLog.Record> batch) throws SQLException, IOException {
+        Write[] writes = new Write[batch.size()];
+        Object[] results = new Object[batch.size()];
+        Exception[] failures = new Exception[batch.size()];
+        long last = batch.get(batch.size() - 1).getSequence();
+
+        boolean[] pending = new boolean[batch.size()];
+
+        try (Batch work = batches.begin()) {
+            long checkpoint = work.lockCheckpoint(wal.getId());
+            for (int i = 0; i < batch.size(); i++) {
+                WriteAheadLog.Record record = batch.get(i);
+                if (record.getSequence() <= checkpoint) {
+                    continue; // Applied before a crash, after the last local checkpoint
+                }
+                pending[i] = true;
+                Savepoint savepoint = work.setSavepoint("wal_" + i);
+                try {
+                    writes[i] = decode(record.getPayload());
+                    results[i] = execute(writes[i]);
+                    work.releaseSavepoint(savepoint);
+                } catch (Exception e) {
+                    if (e instanceof SQLException && isTransient((SQLException) e)) {
+                        throw (SQLException) e;
+                    }
+                    // Rejects this write only; retrying the batch would fail on it forever
+                    work.rollbackTo(savepoint);
+                    failures[i] = e;
+                }
+            }
+            work.advanceCheckpoint(wal.getId(), last);
+            work.commit();
+        }
+
+        for (int i = 0; i < writes.length; i++) {
+            if (!pending[i]) {
+                continue;
+            }
+            try {
+                if (failures[i] != null) {
+                    listener.onRejected(writes[i], failures[i]);
+                } else {
+                    listener.onApplied(writes[i], results[i]);
+                }
+            } catch (RuntimeException e) {
+                Logger.log("ERROR", "Failed to process applied write: " + e.getMessage(), "system");
+            }
+        }
+        wal.markApplied(last);
+        appliedSequence = last;
+    }
+
+    private Object execute(Write write) throws SQLException {
+        switch (write.type) {
+            case ADD_PRODUCT:
+                productDAO.addProduct(write.product, write.username);
+                return null;
+            case UPDATE_PRODUCT:
+                return productDAO.updateProduct(write.product, write.username);
+            case DELETE_PRODUCT:
+                return productDAO.deleteProduct(write.productId, write.username);
+            case SET_REORDER_POINT:
+                return reorderRuleDAO.saveReorderPoint(write.productId, write.reorderPoint);
+            case REMOVE_REORDER_POINT:
+                reorderRuleDAO.deleteReorderPoint(write.productId);
+                return null;
+            default:
+                throw new SQLException("Unknown logged write type: " + write.type);
+        }
+    }
+
+    private static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransientException
+                || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private static byte[] encode(Write write) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(write.type);
+        writeString(out, write.username);
+        out.writeInt(write.productId);
+        out.writeInt(write.reorderPoint);
+        out.writeBoolean(write.product != null);
+        if (write.product != null) {
+            out.writeInt(write.product.getId());
+            writeString(out, write.product.getName());
+            writeString(out, write.product.getCategory());
+            out.writeInt(write.product.getQuantity());
+            writeString(out, write.product.getPrice() != null ? write.product.getPrice().toPlainString() : null);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Write decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Write write = new Write(in.readByte(), readString(in));
+        write.productId = in.readInt();
+        write.reorderPoint = in.readInt();
+        if (in.readBoolean()) {
+            int id = in.readInt();
+            String name = readString(in);
+            String category = readString(in);
+            int quantity = in.readInt();
+            String price = readString(in);
+            write.product = new Product(id, name, category, quantity, price != null ? new BigDecimal(price) : null, null);
+        }
+        return write;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A write accepted into the log: one of the *_PRODUCT or *_REORDER_POINT types
+     * with the arguments of the corresponding InventoryService method.
+     */
+    static final class Write {
+        final byte type;
+        final String username;
+        Product product;
+        int productId;
+        int reorderPoint;
+
+        private Write(byte type, String username) {
+            this.type = type;
+            this.username = username;
+        }
+
+        static Write addProduct(Product product, String username) {
+            Write write = new Write(ADD_PRODUCT, username);
+            write.product = product;
+            return write;
+        }
+
+        static Write updateProduct(Product product, String username) {
+            Write write = new Write(UPDATE_PRODUCT, username);
+            write.product = product;
+            write.productId = product.getId();
+            return write;
+        }
+
+        static Write deleteProduct(int productId, String username) {
+            Write write = new Write(DELETE_PRODUCT, username);
+            write.productId = productId;
+            return write;
+        }
+
+        static Write setReorderPoint(int productId, int reorderPoint, String username) {
+            Write write = new Write(SET_REORDER_POINT, username);
+            write.productId = productId;
+            write.reorderPoint = reorderPoint;
+            return write;
+        }
+
+        static Write removeReorderPoint(int productId, String username) {
+            Write write = new Write(REMOVE_REORDER_POINT, username);
+            write.productId = productId;
+            return write;
+        }
+    }
+
+    /**
+     * Receives the outcome of every logged write, on the applier thread.
+     */
+    interface Listener {
+        /**
+         * @param write the applied write
+         * @param result the value returned by the DAO: the previous product for updates and
+         *               deletions, the stored rule for reorder points, null otherwise
+         */
+        void onApplied(Write write, Object result);
+
+        /**
+         * @param write the rejected write, or null if its record could not be decoded
+         * @param cause the error that rejected it
+         */
+        void onRejected(Write write, Exception cause);
+    }
+
+    /**
+     * The transaction a batch of writes is applied in, together with the checkpoint of the log.
+     */
+    interface Batch extends AutoCloseable {
+        /**
+         * Reads the checkpoint of the log and locks it until the end of the transaction.
+         */
+        long lockCheckpoint(String walId) throws SQLException;
+
+        void advanceCheckpoint(String walId, long sequence) throws SQLException;
+
+        Savepoint setSavepoint(String name) throws SQLException;
+
+        void rollbackTo(Savepoint savepoint) throws SQLException;
+
+        void releaseSavepoint(Savepoint savepoint) throws SQLException;
+
+        void commit() throws SQLException;
+
+        // Rolls back the transaction if it was not committed
+        @Override
+        void close() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface BatchFactory {
+        Batch begin() throws SQLException;
+    }
+
+    // Applies a batch in a UnitOfWork, with the checkpoint stored in the database
+    private static final class DatabaseBatch implements Batch {
+        private final UnitOfWork work = UnitOfWork.begin();
+        private final WalCheckpointDAO checkpointDAO = new WalCheckpointDAO();
+
+        private DatabaseBatch() throws SQLException {
+        }
+
+        @Override
+        public long lockCheckpoint(String walId) throws SQLException {
+            return checkpointDAO.lockLastSequence(walId);
+        }
+
+        @Override
+        public void advanceCheckpoint(String walId, long sequence) throws SQLException {
+            checkpointDAO.updateLastSequence(walId, sequence);
+        }
+
+        @Override
+        public Savepoint setSavepoint(String name) throws SQLException {
+            return work.setSavepoint(name);
+        }
+
+        @Override
+        public void rollbackTo(Savepoint savepoint) throws SQLException {
+            work.rollbackTo(savepoint);
+        }
+
+        @Override
+        public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+            work.releaseSavepoint(savepoint);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            work.commit();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            work.close();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package server.services;
+
+import common.util.Logger;
+import server.dao.UnitOfWork;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The GroupCommitPipeline class funnels the writes of concurrent callers through a single
+ * writer thread, which applies them in groups, each group in one transaction. Instead of
+ * one redo-log flush per write, the database flushes once per group.
+ *
+ * A caller submitting a write blocks until the group containing it has been committed,
+ * so a successful return still means the write is durable. Every write runs under its own
+ * savepoint: a failing write is rolled back alone and reports its error to its caller,
+ * while the other writes of the group are committed. If the commit itself fails, every
+ * write of the group fails.
+ *
+ * The writer collects up to maxBatchSize writes, waiting at most maxDelayMillis after the
+ * first one for others to arrive. The queue is bounded, so callers are slowed down rather
+ * than buffered without limit when the database falls behind.
+ *
+ * Writes are queued under the read side of a lock whose write side closes the pipeline, so
+ * every write accepted before closing is committed and every later one is refused.
+ */
+class GroupCommitPipeline {
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Thread writer;
+    private final ReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    GroupCommitPipeline(int maxBatchSize, long maxDelayMillis, int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+        this.writer = new Thread(this::run, "group-commit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a write and waits until the group containing it has been committed.
+     * The write is executed on the writer thread, inside the group's unit of work.
+     *
+     * @param write the DAO calls making up the write
+     * @return the result of the write
+     * @throws SQLException if the write or the commit of its group fails
+     */
+    <T> T submit(UnitOfWork.Work<T> write) throws SQLException {
+        PendingWrite<T> pending = new PendingWrite<>(write);
+        try {
+            enqueue(pending);
+            return pending.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The write may still be committed with its group
+            throw new SQLException("Interrupted while waiting for group commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Write failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Stops accepting writes, commits the ones already queued and stops the writer thread.
+     *
+     * @param timeoutMillis the maximum time to wait for the queued writes
+     */
+    void close(long timeoutMillis) {
+        stop();
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Number of writes waiting to be taken into a group
+    int queuedWrites() {
+        return queue.size();
+    }
+
+    Thread writerThread() {
+        return writer;
+    }
+
+    private void run() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // The writes taken from the queue would otherwise wait forever
+                for (PendingWrite<?> pending : batch) {
+                    pending.result.completeExceptionally(new SQLException("Write pipeline was interrupted", e));
+                }
+                break;
+            } catch (Throwable t) {
+                Logger.log("ERROR", "Group commit failed: " + t.getMessage(), "system");
+                for (PendingWrite<?> pending : batch) {
+                    pending.result.completeExceptionally(t);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        // Refuse new writes, then fail the ones still queued if the writer was interrupted
+        stop();
+        PendingWrite<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new SQLException("Write pipeline is closed"));
+        }
+    }
+
+    // Waits for room in the queue without holding off close() for more than a poll interval
+    private void enqueue(PendingWrite<?> pending) throws SQLException, InterruptedException {
+        while (true) {
+            shutdownLock.readLock().lock();
+            try {
+                if (!running) {
+                    throw new SQLException("Write pipeline is closed");
+                }
+                if (queue.offer(pending, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } finally {
+                shutdownLock.readLock().unlock();
+            }
+        }
+    }
+
+    private void stop() {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) throws SQLException {
+        Object[] results = new Object[batch.size()];
+        Throwable[] failures = new Throwable[batch.size()];
+        try (UnitOfWork work = UnitOfWork.begin()) {
+            for (int i = 0; i < batch.size(); i++) {
+                Savepoint savepoint = work.setSavepoint("write_" + i);
+                try {
+                    results[i] = batch.get(i).write.execute();
+                    work.releaseSavepoint(savepoint);
+                } catch (Exception e) {
+                    work.rollbackTo(savepoint);
+                    failures[i] = e;
+                }
+            }
+            work.commit();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results[i], failures[i]);
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        private final UnitOfWork.Work<T> write;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private PendingWrite(UnitOfWork.Work<T> write) {
+            this.write = write;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(Object value, Throwable failure) {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete((T) value);
+            }
+        }
+    }
+}
@@ -1,36 +1,111 @@
 package server.services;
 
 import common.interfaces.InventoryInterface;
+import common.interfaces.StockAlertListener;
 import common.util.Logger;
-import server.dao.EmployeeDAO;
-import server.dao.ProductDAO;
+import server.dao.EmployeeStore;
+import server.dao.ProductStore;
+import server.dao.ReorderRuleStore;
+import server.dao.StockLedgerStore;
+import server.dao.StorageEngine;
+import server.dao.UnitOfWork;
+import server.util.AuditLog;
+import server.util.DatabaseConfig;
+import server.util.RmiTransport;
+import server.util.WriteAheadLog;
+import common.models.AuditEvent;
+import common.models.AuditFilter;
 import common.models.Employee;
+import common.models.InventoryStats;
 import common.models.Product;
+import common.models.ProductQuery;
+import common.models.StockAlert;
+import common.models.StockMovement;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * The InventoryService class provides a remote implementation of the InventoryInterface.
  * It manages inventory operations such as product and employee management.
- * This class communicates with the data layer (ProductDAO and EmployeeDAO) to fetch, add, update,
- * and delete records related to products and employees.
+ * This class communicates with the data layer (the stores provided by StorageEngine, backed by
+ * MySQL or by the embedded engine) to fetch, add, update, and delete records related to
+ * products and employees.
  * It also logs actions taken on the system for audit and tracking purposes.
  */
 public class InventoryService extends UnicastRemoteObject implements InventoryInterface {
-    private final ProductDAO productDAO;
-    private final EmployeeDAO employeeDAO;
+    private final ProductStore productDAO;
+    private final EmployeeStore employeeDAO;
+    private final ReorderRuleStore reorderRuleDAO;
+    private final StockLedgerStore stockLedgerDAO;
+    private final StockAlertEngine stockAlertEngine;
+    private final InventoryStatsAggregator statsAggregator;
+    private final AuditLog auditLog;
+    private final GroupCommitPipeline writePipeline; // null when group commit is disabled
+    private final DurableWriteQueue durableQueue; // null when the write-ahead log is disabled
+    private final ReadCoalescer readCoalescer; // null when read coalescing is disabled
+    private final ProductQueryCache queryCache; // null when the query cache is disabled
 
     /**
      * Constructs a new instance of the InventoryService class.
-     * The constructor initializes the data access objects (DAOs) used to manage employees and products.
+     * The constructor initializes the data access objects (DAOs) used to manage employees and products,
+     * loads the configured reorder points into the stock alert engine and seeds the
+     * per-category inventory aggregates. When enabled in the configuration, product and
+     * reorder point writes go through a group-commit pipeline, or are accepted into a
+     * write-ahead log and applied asynchronously (see replayWriteAheadLog). Concurrent identical
+     * product reads share one query unless disabled (see ReadCoalescer), and the results of the
+     * product list queries are cached when enabled (see ProductQueryCache). The service is
+     * exported with the socket factories of RmiTransport.
      *
      * @throws RemoteException if a remote communication error occurs during object export.
      */
     public InventoryService() throws RemoteException {
-        super();
-        employeeDAO = new EmployeeDAO();
-        productDAO = new ProductDAO();
+        super(RmiTransport.getInstance().getPort(), RmiTransport.getInstance().getClientSocketFactory(),
+                RmiTransport.getInstance().getServerSocketFactory());
+        StorageEngine storage = StorageEngine.getInstance();
+        employeeDAO = storage.getEmployeeStore();
+        productDAO = storage.getProductStore();
+        reorderRuleDAO = storage.getReorderRuleStore();
+        stockLedgerDAO = storage.getStockLedgerStore();
+        stockAlertEngine = new StockAlertEngine();
+        statsAggregator = new InventoryStatsAggregator();
+        auditLog = AuditLog.getInstance();
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        if (storage.isEmbedded() && (config.isGroupCommitEnabled() || config.isWriteAheadLogEnabled())) {
+            Logger.log("WARN", "Group commit and write-ahead log require MySQL storage, they are disabled", "system");
+        }
+        writePipeline = config.isGroupCommitEnabled() && !storage.isEmbedded()
+                ? new GroupCommitPipeline(config.getGroupCommitMaxBatchSize(),
+                        config.getGroupCommitMaxDelayMillis(), config.getGroupCommitQueueCapacity())
+                : null;
+        if (config.isWriteAheadLogEnabled() && !storage.isEmbedded()) {
+            try {
+                WriteAheadLog wal = new WriteAheadLog(Paths.get(config.getWalDirectory()),
+                        config.getWalSegmentBytes(), config.getWalMaxOutstanding());
+                durableQueue = new DurableWriteQueue(wal, productDAO, reorderRuleDAO,
+                        durableWriteListener(), config.getWalApplyBatchSize());
+            } catch (IOException e) {
+                throw new RemoteException("Error opening the write-ahead log", e);
+            }
+        } else {
+            durableQueue = null;
+        }
+        readCoalescer = config.isReadCoalescingEnabled() ? new ReadCoalescer() : null;
+        queryCache = config.isQueryCacheEnabled() ? new ProductQueryCache(config.getQueryCacheMaxBytes(), config.getQueryCacheTtlMillis()) : null;
+        try {
+            stockAlertEngine.load(reorderRuleDAO.getReorderRules());
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to load reorder rules: " + e.getMessage(), "system");
+        }
+        try {
+            statsAggregator.load(productDAO.getCategoryStats());
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to load inventory statistics: " + e.getMessage(), "system");
+        }
     }
 
     /**
@@ -43,7 +118,7 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public List<Product> getAllProducts() throws RemoteException {
         try {
-            return productDAO.getAllProducts();
+            return cachedRead(ProductQueryCache.all(), productDAO::getAllProducts);
         } catch (Exception e) {
             throw new RemoteException("Error fetching products", e);
         }
@@ -60,7 +135,7 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public List<Product> getProductsByCategory(String category) throws RemoteException {
         try {
-            return productDAO.getProductsByCategory(category);
+            return cachedRead(ProductQueryCache.byCategory(category), () -> productDAO.getProductsByCategory(category));
         } catch (Exception e) {
             throw new RemoteException("Error fetching products by category", e);
         }
@@ -77,7 +152,7 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public List<Product> getProductsByName(String productName) throws RemoteException {
         try {
-            return productDAO.getProductsByName(productName);
+            return cachedRead(ProductQueryCache.byName(productName), () -> productDAO.getProductsByName(productName));
         } catch (Exception e) {
             throw new RemoteException("Error fetching products by name", e);
         }
@@ -86,12 +161,57 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public List<Product> getProductsByQuantity(int quantity) throws RemoteException {
         try {
-            return productDAO.getProductsByQuantity(quantity);
+            return cachedRead(ProductQueryCache.byQuantity(quantity), () -> productDAO.getProductsByQuantity(quantity));
         } catch (Exception e) {
             throw new RemoteException("Error fetching products by quantity", e);
         }
     }
 
+    /**
+     * Retrieves the products matching a combined search query (name, categories,
+     * quantity range, price range) sorted and limited as requested.
+     * The whole query is evaluated by the database in a single statement.
+     *
+     * @param query the search criteria to apply
+     * @return a list of Product objects matching every criterion of the query
+     * @throws RemoteException if an error occurs while searching the products
+     */
+    @Override
+    public List<Product> searchProducts(ProductQuery query) throws RemoteException {
+        try {
+            return read("searchProducts " + query, () -> productDAO.searchProducts(query));
+        } catch (Exception e) {
+            throw new RemoteException("Error searching products", e);
+        }
+    }
+
+    /**
+     * Counts the products matching a search query, e.g. to size a paged view of its results.
+     *
+     * @param query the search criteria; sort order, offset and limit are ignored
+     * @return the number of matching products
+     * @throws RemoteException if an error occurs while counting the products
+     */
+    @Override
+    public int countProducts(ProductQuery query) throws RemoteException {
+        try {
+            return read("countProducts " + query, () -> productDAO.countProducts(query));
+        } catch (Exception e) {
+            throw new RemoteException("Error counting products", e);
+        }
+    }
+
+    /**
+     * Retrieves the inventory totals per category: product count, units on hand and stock value.
+     * The figures are maintained incrementally in memory, so this call does not query the database.
+     *
+     * @return a snapshot of the current inventory statistics
+     */
+    @Override
+    public InventoryStats getInventoryStats() throws RemoteException {
+        return statsAggregator.snapshot();
+    }
+
     @Override
     public List<Employee> getAllEmployees() throws RemoteException {
         try {
@@ -101,11 +221,22 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
         }
     }
 
+    /**
+     * Adds a product. When the write-ahead log is enabled, the product is only logged here
+     * and inserted asynchronously, so its ID is not set on return.
+     */
     @Override
     public void addProduct(Product product, String username) throws RemoteException {
         try {
-            productDAO.addProduct(product);
-            Logger.log("ADD_PRODUCT", "Added product: " + product.getName(), username);
+            if (durableQueue != null) {
+                durableQueue.submit(DurableWriteQueue.Write.addProduct(product, username));
+                return;
+            }
+            write(() -> {
+                productDAO.addProduct(product, username);
+                return null;
+            });
+            afterProductAdded(product, username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to add product: " + product.getName(), username);
             throw new RemoteException("Error adding product", e);
@@ -115,8 +246,12 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public void updateProduct(Product product, String username) throws RemoteException {
         try {
-            productDAO.updateProduct(product);
-            Logger.log("UPDATE_PRODUCT", "Updated product: " + product.getName(), username);
+            if (durableQueue != null) {
+                durableQueue.submit(DurableWriteQueue.Write.updateProduct(product, username));
+                return;
+            }
+            Product previous = write(() -> productDAO.updateProduct(product, username));
+            afterProductUpdated(previous, product, username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to update product: " + product.getName(), username);
             throw new RemoteException("Error updating product", e);
@@ -126,8 +261,12 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     @Override
     public void deleteProduct(int productId, String username) throws RemoteException {
         try {
-            productDAO.deleteProduct(productId);
-            Logger.log("DELETE_PRODUCT", "Deleted product with ID: " + productId, username);
+            if (durableQueue != null) {
+                durableQueue.submit(DurableWriteQueue.Write.deleteProduct(productId, username));
+                return;
+            }
+            Product previous = write(() -> productDAO.deleteProduct(productId, username));
+            afterProductDeleted(productId, previous, username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to delete product with ID: " + productId, username);
             throw new RemoteException("Error deleting product", e);
@@ -138,7 +277,7 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     public void addEmployee(Employee employee, String username) throws RemoteException {
         try {
             employeeDAO.addEmployee(employee);
-            Logger.log("ADD_EMPLOYEE", "Added employee: " + employee.getUsername(), username);
+            audit("ADD_EMPLOYEE", "EMPLOYEE", employee.getId(), "Added employee: " + employee.getUsername(), username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to add employee: " + employee.getUsername(), username);
             throw new RemoteException("Error adding employee", e);
@@ -149,7 +288,7 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     public void updateEmployee(Employee employee, boolean updatePassword, String username) throws RemoteException {
         try {
             employeeDAO.updateEmployee(employee, updatePassword);
-            Logger.log("UPDATE_EMPLOYEE", "Updated employee: " + employee.getUsername(), username);
+            audit("UPDATE_EMPLOYEE", "EMPLOYEE", employee.getId(), "Updated employee: " + employee.getUsername(), username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to update employee: " + employee.getUsername(), username);
             throw new RemoteException("Error updating employee", e);
@@ -160,10 +299,287 @@ public class InventoryService extends UnicastRemoteObject implements InventoryIn
     public void deleteEmployee(int id, String username) throws RemoteException {
         try {
             employeeDAO.deleteEmployee(id);
-            Logger.log("DELETE_EMPLOYEE", "Deleted employee with ID: " + id, username);
+            audit("DELETE_EMPLOYEE", "EMPLOYEE", id, "Deleted employee with ID: " + id, username);
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to delete employee with ID: " + id, username);
             throw new RemoteException("Error deleting employee", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets or replaces the reorder point of a product. The product is re-evaluated
+     * immediately, so subscribers are notified if it is already low on stock.
+     *
+     * @param productId the ID of the product
+     * @param reorderPoint the quantity at or below which the product needs restocking
+     * @param username the user performing the change
+     * @throws RemoteException if an error occurs while saving the reorder point
+     */
+    @Override
+    public void setReorderPoint(int productId, int reorderPoint, String username) throws RemoteException {
+        try {
+            if (durableQueue != null) {
+                durableQueue.submit(DurableWriteQueue.Write.setReorderPoint(productId, reorderPoint, username));
+                return;
+            }
+            StockAlert rule = write(() -> reorderRuleDAO.saveReorderPoint(productId, reorderPoint));
+            afterReorderPointSet(productId, reorderPoint, rule, username);
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to set reorder point of product " + productId, username);
+            throw new RemoteException("Error setting reorder point", e);
+        }
+    }
+
+    @Override
+    public void removeReorderPoint(int productId, String username) throws RemoteException {
+        try {
+            if (durableQueue != null) {
+                durableQueue.submit(DurableWriteQueue.Write.removeReorderPoint(productId, username));
+                return;
+            }
+            write(() -> {
+                reorderRuleDAO.deleteReorderPoint(productId);
+                return null;
+            });
+            afterReorderPointRemoved(productId, username);
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to remove reorder point of product " + productId, username);
+            throw new RemoteException("Error removing reorder point", e);
+        }
+    }
+
+    /**
+     * Retrieves the products currently at or below their reorder point, most critical first.
+     * Served from memory by the stock alert engine, without querying the database.
+     *
+     * @param limit the maximum number of alerts to return, or 0 for all of them
+     * @return the current low-stock alerts
+     */
+    @Override
+    public List<StockAlert> getLowStockAlerts(int limit) throws RemoteException {
+        return stockAlertEngine.getLowStock(limit);
+    }
+
+    /**
+     * Retrieves the most recent stock movements of a product, newest first.
+     *
+     * @param productId the ID of the product
+     * @param limit the maximum number of movements to return, or 0 for all of them
+     * @return the stock movements recorded for the product
+     * @throws RemoteException if an error occurs while reading the ledger
+     */
+    @Override
+    public List<StockMovement> getStockMovements(int productId, int limit) throws RemoteException {
+        try {
+            return stockLedgerDAO.getMovements(productId, limit);
+        } catch (Exception e) {
+            throw new RemoteException("Error fetching stock movements", e);
+        }
+    }
+
+    /**
+     * Reconstructs the quantity of a product at a past instant from the latest stock
+     * snapshot and the ledger entries recorded after it.
+     *
+     * @param productId the ID of the product
+     * @param at the instant to reconstruct the quantity for
+     * @return the quantity at that instant, or null if the product is unknown
+     * @throws RemoteException if an error occurs while reading the ledger
+     */
+    @Override
+    public Integer getQuantityAt(int productId, LocalDateTime at) throws RemoteException {
+        try {
+            return stockLedgerDAO.getQuantityAt(productId, at);
+        } catch (Exception e) {
+            throw new RemoteException("Error reconstructing product quantity", e);
+        }
+    }
+
+    /**
+     * Retrieves the audit events matching the given filter, oldest first.
+     * Only the audit segments overlapping the requested time range and mentioning
+     * the requested entity are read.
+     *
+     * @param filter the criteria the events must match
+     * @return the matching audit events
+     * @throws RemoteException if an error occurs while reading the audit log
+     */
+    @Override
+    public List<AuditEvent> queryAudit(AuditFilter filter) throws RemoteException {
+        try {
+            return auditLog.query(filter);
+        } catch (Exception e) {
+            throw new RemoteException("Error querying audit log", e);
+        }
+    }
+
+    @Override
+    public void subscribeStockAlerts(StockAlertListener listener) throws RemoteException {
+        stockAlertEngine.addListener(listener);
+    }
+
+    @Override
+    public void unsubscribeStockAlerts(StockAlertListener listener) throws RemoteException {
+        stockAlertEngine.removeListener(listener);
+    }
+
+    /**
+     * Applies the writes left in the write-ahead log by a previous run, if the log is enabled,
+     * and starts applying new ones. Waits at most the given time for the recovered writes.
+     *
+     * @param timeoutMillis the maximum time to wait for the recovered writes
+     * @return the number of recovered writes not applied yet when the method returns
+     */
+    public int replayWriteAheadLog(long timeoutMillis) {
+        return durableQueue != null ? durableQueue.replay(timeoutMillis) : 0;
+    }
+
+    /**
+     * Returns a summary of the product reads collapsed by the read coalescer since the last
+     * call, or null if none was (or if coalescing is disabled).
+     */
+    public String readCoalescingReport() {
+        return readCoalescer != null ? readCoalescer.reportAndReset() : null;
+    }
+
+    /**
+     * Returns a summary of the query cache activity since the last call, or null if there was
+     * none (or if the cache is disabled).
+     */
+    public String queryCacheReport() {
+        return queryCache != null ? queryCache.reportAndReset() : null;
+    }
+
+    /**
+     * Stops the group-commit pipeline and the write-ahead log applier, if enabled, after
+     * committing the writes already queued. Logged writes not applied yet are replayed on restart.
+     */
+    public void close() {
+        if (writePipeline != null) {
+            writePipeline.close(5000);
+        }
+        if (durableQueue != null) {
+            durableQueue.close(5000);
+        }
+    }
+
+    // Updates the in-memory state derived from the database and the audit trail after each write
+
+    private void afterProductAdded(Product product, String username) {
+        invalidateReads();
+        if (queryCache != null) {
+            queryCache.onProductAdded(product);
+        }
+        statsAggregator.onProductAdded(product);
+        audit("ADD_PRODUCT", "PRODUCT", product.getId(), "Added product: " + product.getName(), username);
+    }
+
+    private void afterProductUpdated(Product previous, Product product, String username) {
+        invalidateReads();
+        if (queryCache != null) {
+            queryCache.onProductUpdated(previous, product);
+        }
+        if (previous != null) {
+            statsAggregator.onProductUpdated(previous, product);
+        }
+        stockAlertEngine.onProductChanged(product.getId(), product.getName(), product.getQuantity());
+        audit("UPDATE_PRODUCT", "PRODUCT", product.getId(), "Updated product: " + product.getName(), username);
+    }
+
+    private void afterProductDeleted(int productId, Product previous, String username) {
+        invalidateReads();
+        if (queryCache != null) {
+            queryCache.onProductDeleted(productId, previous);
+        }
+        statsAggregator.onProductDeleted(previous);
+        stockAlertEngine.removeProduct(productId);
+        audit("DELETE_PRODUCT", "PRODUCT", productId, "Deleted product with ID: " + productId, username);
+    }
+
+    private void afterReorderPointSet(int productId, int reorderPoint, StockAlert rule, String username) {
+        if (rule != null) {
+            stockAlertEngine.setRule(rule);
+        }
+        audit("SET_REORDER_POINT", "PRODUCT", productId, "Set reorder point of product " + productId + " to " + reorderPoint, username);
+    }
+
+    private void afterReorderPointRemoved(int productId, String username) {
+        stockAlertEngine.removeProduct(productId);
+        audit("REMOVE_REORDER_POINT", "PRODUCT", productId, "Removed reorder point of product " + productId, username);
+    }
+
+    private DurableWriteQueue.Listener durableWriteListener() {
+        return new DurableWriteQueue.Listener() {
+            @Override
+            public void onApplied(DurableWriteQueue.Write write, Object result) {
+                switch (write.type) {
+                    case DurableWriteQueue.ADD_PRODUCT:
+                        afterProductAdded(write.product, write.username);
+                        break;
+                    case DurableWriteQueue.UPDATE_PRODUCT:
+                        afterProductUpdated((Product) result, write.product, write.username);
+                        break;
+                    case DurableWriteQueue.DELETE_PRODUCT:
+                        afterProductDeleted(write.productId, (Product) result, write.username);
+                        break;
+                    case DurableWriteQueue.SET_REORDER_POINT:
+                        afterReorderPointSet(write.productId, write.reorderPoint, (StockAlert) result, write.username);
+                        break;
+                    case DurableWriteQueue.REMOVE_REORDER_POINT:
+                        afterReorderPointRemoved(write.productId, write.username);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            @Override
+            public void onRejected(DurableWriteQueue.Write write, Exception cause) {
+                if (write == null) {
+                    Logger.log("ERROR", "Logged write could not be decoded and was skipped: " + cause.getMessage(), "system");
+                    return;
+                }
+                Logger.log("ERROR", "Logged write of type " + write.type + " was rejected by the database: "
+                        + cause.getMessage(), write.username);
+            }
+        };
+    }
+
+    // Runs a product read through the read coalescer when enabled, directly otherwise
+    private <T> T read(String key, UnitOfWork.Work<T> read) throws SQLException {
+        return readCoalescer != null ? readCoalescer.read(key, read) : read.execute();
+    }
+
+    // Serves a product list query from the query cache when enabled, storing the result on a miss
+    private List<Product> cachedRead(ProductQueryCache.Query query, UnitOfWork.Work<List<Product>> read)
+            throws SQLException {
+        if (queryCache == null) {
+            return read(query.toString(), read);
+        }
+        List<Product> cached = queryCache.get(query);
+        if (cached != null) {
+            return cached;
+        }
+        long mutationCount = queryCache.mutationCount();
+        List<Product> products = read(query.toString(), read);
+        queryCache.put(query, products, mutationCount);
+        return products;
+    }
+
+    private void invalidateReads() {
+        if (readCoalescer != null) {
+            readCoalescer.invalidate();
+        }
+    }
+
+    // Runs a write through the group-commit pipeline when enabled, directly otherwise
+    private <T> T write(UnitOfWork.Work<T> work) throws SQLException {
+        return writePipeline != null ? writePipeline.submit(work) : work.execute();
+    }
+
+    // Writes the event to the text log and to the structured audit log
+    private void audit(String action, String entityType, Object entityId, String details, String username) {
+        Logger.log(action, details, username);
+        auditLog.record(action, username, entityType, entityId, details);
+    }
+}
@@ -0,0 +1,90 @@
+package server.services;
+
+import common.models.CategoryStats;
+import common.models.InventoryStats;
+import common.models.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The InventoryStatsAggregator maintains per-category inventory totals in memory:
+ * product count, units on hand and stock value (quantity * price).
+ *
+ * The totals are computed once at startup, then kept up to date by applying the
+ * difference between the previous and the new state of each mutated product.
+ * Each change therefore costs O(1) regardless of the catalog size, and reading
+ * the statistics never touches the database.
+ *
+ * Changes may be applied out of order (a deletion before the addition it undoes), so a
+ * category is only dropped once all of its totals are back to zero, and the statistics
+ * list only the categories that currently hold products.
+ */
+class InventoryStatsAggregator {
+
+    private static class Totals {
+        long productCount;
+        long totalUnits;
+        BigDecimal stockValue = BigDecimal.ZERO;
+    }
+
+    private final Map<String, Totals> totalsByCategory = new TreeMap<>();
+
+    synchronized void load(List<CategoryStats> initialStats) {
+        totalsByCategory.clear();
+        for (CategoryStats stats : initialStats) {
+            Totals totals = new Totals();
+            totals.productCount = stats.getProductCount();
+            totals.totalUnits = stats.getTotalUnits();
+            totals.stockValue = stats.getStockValue() != null ? stats.getStockValue() : BigDecimal.ZERO;
+            totalsByCategory.put(stats.getCategory(), totals);
+        }
+    }
+
+    synchronized void onProductAdded(Product product) {
+        apply(product, 1);
+    }
+
+    synchronized void onProductUpdated(Product previous, Product current) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        apply(current, 1);
+    }
+
+    synchronized void onProductDeleted(Product previous) {
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    synchronized InventoryStats snapshot() {
+        List<CategoryStats> categories = new ArrayList<>(totalsByCategory.size());
+        for (Map.Entry<String, Totals> entry : totalsByCategory.entrySet()) {
+            Totals totals = entry.getValue();
+            if (totals.productCount <= 0) {
+                continue;
+            }
+            categories.add(new CategoryStats(entry.getKey(), totals.productCount,
+                    totals.totalUnits, totals.stockValue));
+        }
+        return new InventoryStats(categories);
+    }
+
+    // sign is +1 to add the product to its category totals, -1 to remove it
+    private void apply(Product product, int sign) {
+        Totals totals = totalsByCategory.computeIfAbsent(product.getCategory(), c -> new Totals());
+        totals.productCount += sign;
+        totals.totalUnits += (long) sign * product.getQuantity();
+        if (product.getPrice() != null) {
+            BigDecimal value = product.getPrice().multiply(BigDecimal.valueOf(product.getQuantity()));
+            totals.stockValue = sign > 0 ? totals.stockValue.add(value) : totals.stockValue.subtract(value);
+        }
+        if (totals.productCount == 0 && totals.totalUnits == 0 && totals.stockValue.signum() == 0) {
+            totalsByCategory.remove(product.getCategory());
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package server.services;
+
+import common.models.Product;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * The ProductQueryCache class keeps the results of the product list queries (all products,
+ * by name, by category, by quantity), keyed by the method and its normalized argument, so
+ * that repeated searches do not reach the database while the products they cover are
+ * unchanged.
+ *
+ * Each cached query carries the predicate of its WHERE clause. When a product is added,
+ * updated or deleted through InventoryService, only the queries that its previous or its new
+ * row could match are evicted. Where the predicate cannot be evaluated exactly in Java
+ * (LIKE wildcards in the term, accented text compared by the MySQL collation) it matches
+ * conservatively.
+ *
+ * Writes that bypass this InventoryService are not seen: those of other servers sharing the
+ * database (e.g. behind the client failover of rmi.endpoints), of DatasetGenerator, or made
+ * by hand. The cache is therefore meant for a single server owning its database, and is
+ * disabled by default; each result also expires after a maximum age, which bounds how long
+ * such a write can go unseen.
+ *
+ * The cache is bounded by the estimated memory of the results, in the manner of
+ * W-TinyLFU: new results enter a small LRU window (1% of the bound), and a result leaving
+ * the window is admitted to the main LRU region only if it has been asked for more often
+ * than the result it would evict there. Access frequencies are estimated by a count-min
+ * sketch whose counters are halved periodically, so that past popularity fades.
+ *
+ * A query that runs while a product changes may have read the previous row. Its result is
+ * only stored if none of the changes since the query started could affect it (see
+ * {@link #mutationCount()}).
+ *
+ * Cached lists are shared by every caller and must not be modified.
+ */
+class ProductQueryCache {
+    private static final int MAX_RECENT_MUTATIONS = 256;
+    private static final long LIST_BYTES = 64;
+    private static final long PRODUCT_BYTES = 160; // object, boxed fields and BigDecimal
+    private static final long KEY_BYTES = 96;
+
+    /**
+     * A cacheable query: its key (method and normalized argument) and the predicate a
+     * product must satisfy to be part of its result.
+     */
+    static final class Query {
+        private final String method;
+        private final String argument;
+        private final Predicate<Product> predicate;
+
+        private Query(String method, String argument, Predicate<Product> predicate) {
+            this.method = method;
+            this.argument = argument;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Query)) {
+                return false;
+            }
+            Query other = (Query) o;
+            return method.equals(other.method) && Objects.equals(argument, other.argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Objects.hashCode(argument);
+        }
+
+        @Override
+        public String toString() {
+            return argument == null ? method : method + " " + argument;
+        }
+    }
+
+    private static final class Entry {
+        private final Query query;
+        private final List<Product> products;
+        private final long weight;
+        private final long storedAt;
+
+        private Entry(Query query, List<Product> products, long storedAt) {
+            this.query = query;
+            this.products = products;
+            this.weight = weigh(query, products);
+            this.storedAt = storedAt;
+        }
+    }
+
+    // A product change; before is null for an addition, and unknown when beforeKnown is false
+    private static final class Mutation {
+        private final long sequence;
+        private final int productId;
+        private final Product before;
+        private final Product after;
+        private final boolean beforeKnown;
+
+        private Mutation(long sequence, int productId, Product before, Product after, boolean beforeKnown) {
+            this.sequence = sequence;
+            this.productId = productId;
+            this.before = before;
+            this.after = after;
+            this.beforeKnown = beforeKnown;
+        }
+    }
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Query, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Query, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final Deque<Mutation> recentMutations = new ArrayDeque<>();
+    private long windowWeight;
+    private long mainWeight;
+    private long mutations;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long rejections;
+    private long expirations;
+
+    /**
+     * @param maxBytes the bound of the estimated memory of the cached results
+     * @param ttlMillis the maximum age of a cached result, 0 to keep results until evicted
+     */
+    ProductQueryCache(long maxBytes, long ttlMillis) {
+        this(maxBytes, ttlMillis, System::nanoTime);
+    }
+
+    ProductQueryCache(long maxBytes, long ttlMillis, LongSupplier clock) {
+        this.maxWeight = Math.max(1, maxBytes);
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : Long.MAX_VALUE;
+        this.clock = clock;
+    }
+
+    static Query all() {
+        return new Query("getAllProducts", null, product -> true);
+    }
+
+    // A null term is a key of its own; evicted by any change, since the stores differ on what it matches
+    static Query byName(String name) {
+        if (name == null) {
+            return new Query("getProductsByName", null, product -> true);
+        }
+        String term = normalize(name);
+        return new Query("getProductsByName", term, product -> couldContain(product.getName(), term));
+    }
+
+    static Query byCategory(String category) {
+        if (category == null) {
+            return new Query("getProductsByCategory", null, product -> true);
+        }
+        String term = normalize(category);
+        return new Query("getProductsByCategory", term, product -> couldContain(product.getCategory(), term));
+    }
+
+    static Query byQuantity(int quantity) {
+        return new Query("getProductsByQuantity", Integer.toString(quantity), product -> product.getQuantity() == quantity);
+    }
+
+    /**
+     * Returns the cached result of the query, or null if it is not cached.
+     */
+    synchronized List<Product> get(Query query) {
+        sketch.increment(query);
+        Entry entry = window.get(query);
+        if (entry == null) {
+            entry = main.get(query);
+        }
+        if (entry != null && clock.getAsLong() - entry.storedAt >= ttlNanos) {
+            if (window.remove(query) != null) {
+                windowWeight -= entry.weight;
+            } else {
+                main.remove(query);
+                mainWeight -= entry.weight;
+            }
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.products;
+    }
+
+    /**
+     * Returns the number of product changes so far; read before running a query, and passed
+     * to {@link #put} with its result.
+     */
+    synchronized long mutationCount() {
+        return mutations;
+    }
+
+    /**
+     * Stores the result of a query, unless a product change since the query started could
+     * have made it stale.
+     *
+     * @param query the query
+     * @param products its result
+     * @param mutationCount the value of {@link #mutationCount()} when the query started
+     */
+    synchronized void put(Query query, List<Product> products, long mutationCount) {
+        if (mutationCount != mutations && changedSince(query, mutationCount)) {
+            return;
+        }
+        Entry entry = new Entry(query, products, clock.getAsLong());
+        if (entry.weight > maxWeight - windowMaxWeight) {
+            return;
+        }
+        Entry previous = window.remove(query);
+        if (previous != null) {
+            windowWeight -= previous.weight;
+        } else {
+            previous = main.remove(query);
+            if (previous != null) {
+                mainWeight -= previous.weight;
+            }
+        }
+        window.put(query, entry);
+        windowWeight += entry.weight;
+        while (windowWeight > windowMaxWeight && !window.isEmpty()) {
+            Entry candidate = removeEldest(window);
+            windowWeight -= candidate.weight;
+            admit(candidate);
+        }
+    }
+
+    synchronized void onProductAdded(Product product) {
+        mutated(product.getId(), null, product, true);
+    }
+
+    // previous is null if the product's previous state is not known
+    synchronized void onProductUpdated(Product previous, Product product) {
+        mutated(product.getId(), previous, product, previous != null);
+    }
+
+    // previous is null if the product's previous state is not known
+    synchronized void onProductDeleted(int productId, Product previous) {
+        mutated(productId, previous, null, previous != null);
+    }
+
+    /**
+     * Returns a one-line summary of the cache activity since the last report and starts a
+     * new period; null if the cache was not used.
+     */
+    synchronized String reportAndReset() {
+        if (hits + misses + invalidations == 0) {
+            return null;
+        }
+        String report = String.format(Locale.ROOT,
+                "Query cache: %d hit(s), %d miss(es) (hit ratio %.1f%%), %d entries, %d KiB of %d KiB, "
+                        + "%d evicted, %d invalidated, %d expired, %d not admitted",
+                hits, misses, hits + misses == 0 ? 0 : 100.0 * hits / (hits + misses), window.size() + main.size(),
+                (windowWeight + mainWeight) / 1024, maxWeight / 1024, evictions, invalidations, expirations, rejections);
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+        expirations = 0;
+        rejections = 0;
+        return report;
+    }
+
+    // TinyLFU admission of a result leaving the window into the main region
+    private void admit(Entry candidate) {
+        long mainMaxWeight = maxWeight - windowMaxWeight;
+        if (mainWeight + candidate.weight > mainMaxWeight) {
+            Entry victim = main.values().iterator().next();
+            if (sketch.frequency(candidate.query) <= sketch.frequency(victim.query)) {
+                rejections++;
+                return;
+            }
+            Iterator<Entry> eldest = main.values().iterator();
+            while (mainWeight + candidate.weight > mainMaxWeight && eldest.hasNext()) {
+                mainWeight -= eldest.next().weight;
+                eldest.remove();
+                evictions++;
+            }
+        }
+        main.put(candidate.query, candidate);
+        mainWeight += candidate.weight;
+    }
+
+    private void mutated(int productId, Product before, Product after, boolean beforeKnown) {
+        Mutation mutation = new Mutation(++mutations, productId, before, after, beforeKnown);
+        recentMutations.addLast(mutation);
+        if (recentMutations.size() > MAX_RECENT_MUTATIONS) {
+            recentMutations.removeFirst();
+        }
+        windowWeight -= evictAffected(window, mutation);
+        mainWeight -= evictAffected(main, mutation);
+    }
+
+    private long evictAffected(Map<Query, Entry> region, Mutation mutation) {
+        long removed = 0;
+        Iterator<Entry> entries = region.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (affects(mutation, entry.query)
+                    || (!mutation.beforeKnown && containsProduct(entry.products, mutation.productId))) {
+                removed += entry.weight;
+                entries.remove();
+                invalidations++;
+            }
+        }
+        return removed;
+    }
+
+    private boolean changedSince(Query query, long mutationCount) {
+        if (recentMutations.isEmpty() || recentMutations.peekFirst().sequence > mutationCount + 1) {
+            // The changes since then are no longer all known
+            return true;
+        }
+        for (Mutation mutation : recentMutations) {
+            if (mutation.sequence > mutationCount && (!mutation.beforeKnown || affects(mutation, query))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean affects(Mutation mutation, Query query) {
+        return (mutation.before != null && query.predicate.test(mutation.before))
+                || (mutation.after != null && query.predicate.test(mutation.after));
+    }
+
+    private static boolean containsProduct(List<Product> products, int productId) {
+        for (Product product : products) {
+            if (product.getId() == productId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry removeEldest(LinkedHashMap<Query, Entry> region) {
+        Iterator<Entry> eldest = region.values().iterator();
+        Entry entry = eldest.next();
+        eldest.remove();
+        return entry;
+    }
+
+    // Estimated memory of a cached result, from the length of its strings
+    private static long weigh(Query query, List<Product> products) {
+        long weight = KEY_BYTES + LIST_BYTES + 2L * query.toString().length();
+        for (Product product : products) {
+            weight += PRODUCT_BYTES + 2L * (length(product.getName()) + length(product.getCategory()));
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    // Both stores match case-insensitively, so ASCII terms differing only by case share an entry
+    private static String normalize(String term) {
+        return isAscii(term) ? term.toLowerCase(Locale.ROOT) : term;
+    }
+
+    /**
+     * Checks whether a LIKE '%term%' comparison could match the value. Exact for ASCII text
+     * without wildcards; otherwise true, since MySQL treats % and _ as wildcards and its
+     * collation ignores accents.
+     */
+    private static boolean couldContain(String value, String term) {
+        if (value == null) {
+            return false;
+        }
+        if (!isAscii(term) || !isAscii(value) || term.indexOf('%') >= 0 || term.indexOf('_') >= 0
+                || term.indexOf('\\') >= 0) {
+            return true;
+        }
+        return value.toLowerCase(Locale.ROOT).contains(term);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Count-min sketch of the access frequency of the queries: four rows of saturating 4-bit
+     * counters (held in bytes), halved every SAMPLE_SIZE increments.
+     */
+    private static final class FrequencySketch {
+        private static final int WIDTH = 1 << 14;
+        private static final int MAX_COUNT = 15;
+        private static final int SAMPLE_SIZE = 10 * WIDTH;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] rows = new byte[SEEDS.length][WIDTH];
+        private int increments;
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] < MAX_COUNT) {
+                    rows[i][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++increments >= SAMPLE_SIZE) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < rows.length; i++) {
+                frequency = Math.min(frequency, rows[i][index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (byte[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            increments /= 2;
+        }
+
+        private static int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (WIDTH - 1);
+        }
+
+        private static int spread(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x45D9F3B;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package server.services;
+
+import server.dao.UnitOfWork;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ReadCoalescer class lets concurrent identical reads share a single execution: the
+ * first caller of a key runs the query, and the callers arriving with the same key while it
+ * runs wait for it and return the same result, or fail with the same error. When a shift
+ * starts and many clients load the same product list at once, the database runs the query
+ * once instead of once per client.
+ *
+ * The shared result is returned to every caller, so it must not be modified; RMI serializes
+ * a separate copy for each client. Nothing is cached: once the query completes, the next
+ * caller runs it again. A write must call {@link #invalidate()} before returning, so that a
+ * read starting after it never joins a query that started before it.
+ *
+ * The number of calls and of executions is counted per key, to report how many calls were
+ * collapsed (see {@link #reportAndReset()}).
+ */
+class ReadCoalescer {
+    private static final int MAX_TRACKED_KEYS = 1024;
+    private static final String OTHER_KEYS = "(other keys)";
+    private static final int REPORTED_KEYS = 5;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, KeyStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the read, or waits for the identical one in flight and returns its result.
+     *
+     * @param key identifies the read: the method and its arguments
+     * @param read the DAO call making up the read
+     * @return the result of the read, possibly shared with other callers
+     * @throws SQLException if the read fails, for this caller or the one it joined
+     */
+    @SuppressWarnings("unchecked")
+    <T> T read(String key, UnitOfWork.Work<T> read) throws SQLException {
+        KeyStats keyStats = stats(key);
+        keyStats.calls.increment();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+        keyStats.executions.increment();
+        T result;
+        try {
+            result = read.execute();
+        } catch (SQLException | RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    /**
+     * Detaches the reads in flight, so that later callers run their own; called after each write.
+     */
+    void invalidate() {
+        inFlight.clear();
+    }
+
+    /**
+     * Returns a one-line summary of the calls since the last report, with the keys that
+     * collapsed the most calls, and starts a new period; null if no call was collapsed.
+     */
+    String reportAndReset() {
+        List<Map.Entry<String, KeyStats>> entries = new ArrayList<>(stats.entrySet());
+        stats.clear();
+        long calls = 0;
+        long executions = 0;
+        for (Map.Entry<String, KeyStats> entry : entries) {
+            calls += entry.getValue().calls.sum();
+            executions += entry.getValue().executions.sum();
+        }
+        if (calls == executions) {
+            return null;
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue().collapsed(), a.getValue().collapsed()));
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Read coalescing: %d call(s), %d query(ies), %d collapsed (%.1f%%); top keys:",
+                calls, executions, calls - executions, 100.0 * (calls - executions) / calls));
+        for (int i = 0; i < Math.min(REPORTED_KEYS, entries.size()); i++) {
+            KeyStats keyStats = entries.get(i).getValue();
+            if (keyStats.collapsed() == 0) {
+                break;
+            }
+            report.append(i == 0 ? " " : ", ").append(entries.get(i).getKey()).append(' ')
+                    .append(keyStats.collapsed()).append('/').append(keyStats.calls.sum());
+        }
+        return report.toString();
+    }
+
+    // Distinct keys are only tracked up to a bound, the rest are counted together
+    private KeyStats stats(String key) {
+        KeyStats keyStats = stats.get(key);
+        if (keyStats == null) {
+            String trackedKey = stats.size() < MAX_TRACKED_KEYS ? key : OTHER_KEYS;
+            keyStats = stats.computeIfAbsent(trackedKey, k -> new KeyStats());
+        }
+        return keyStats;
+    }
+
+    private static Object await(CompletableFuture<Object> flight) throws SQLException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a shared read", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw new SQLException(cause.getMessage(), ((SQLException) cause).getSQLState(),
+                        ((SQLException) cause).getErrorCode(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException("Read failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static final class KeyStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder executions = new LongAdder();
+
+        private long collapsed() {
+            return calls.sum() - executions.sum();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package server.services;
+
+import common.interfaces.StockAlertListener;
+import common.models.StockAlert;
+import common.util.Logger;
+
+import java.rmi.RemoteException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The StockAlertEngine keeps track of the reorder points of products and detects when
+ * a product falls to or below its reorder point.
+ *
+ * Rules are loaded once at startup, then evaluated incrementally: each product change
+ * reported by the InventoryService only re-evaluates the rule of that product, so no
+ * table scan is needed to keep alerts up to date.
+ *
+ * Products currently low on stock are kept in an ordered set sorted by criticality
+ * (quantity relative to reorder point, lowest first), which makes retrieving the most
+ * critical products cheap. Transitions into and out of the low-stock state are pushed
+ * to the subscribed StockAlertListeners on a background thread, so that slow or
+ * unreachable clients never delay the caller.
+ */
+class StockAlertEngine {
+    private static final Comparator<StockAlert> BY_CRITICALITY = (a, b) -> {
+        // Compare quantity / reorderPoint ratios without floating point: a.q * b.rp vs b.q * a.rp
+        int cmp = Long.compare((long) a.getQuantity() * Math.max(1, b.getReorderPoint()),
+                (long) b.getQuantity() * Math.max(1, a.getReorderPoint()));
+        return cmp != 0 ? cmp : Integer.compare(a.getProductId(), b.getProductId());
+    };
+
+    private final Map<Integer, StockAlert> rules = new HashMap<>();
+    private final TreeSet<StockAlert> lowStock = new TreeSet<>(BY_CRITICALITY);
+    private final CopyOnWriteArrayList<StockAlertListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "stock-alert-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Replaces every known rule with the given ones. Used once at startup.
+     *
+     * @param initialRules the current stock state of every product with a reorder point
+     */
+    synchronized void load(List<StockAlert> initialRules) {
+        rules.clear();
+        lowStock.clear();
+        for (StockAlert rule : initialRules) {
+            rules.put(rule.getProductId(), rule);
+            if (rule.isBelowReorderPoint()) {
+                lowStock.add(rule);
+            }
+        }
+    }
+
+    /**
+     * Sets or replaces the reorder point of a product and re-evaluates it.
+     *
+     * @param rule the product stock state along with its new reorder point
+     */
+    void setRule(StockAlert rule) {
+        StockAlert transition;
+        synchronized (this) {
+            transition = replace(rule.getProductId(), rule);
+        }
+        publish(transition);
+    }
+
+    /**
+     * Re-evaluates the rule of a single product after its quantity changed.
+     * Products without a reorder point are ignored.
+     */
+    void onProductChanged(int productId, String productName, int quantity) {
+        StockAlert transition;
+        synchronized (this) {
+            StockAlert previous = rules.get(productId);
+            if (previous == null) {
+                return;
+            }
+            StockAlert updated = new StockAlert(productId, productName, quantity,
+                    previous.getReorderPoint(), LocalDateTime.now());
+            transition = replace(productId, updated);
+        }
+        publish(transition);
+    }
+
+    synchronized void removeProduct(int productId) {
+        StockAlert previous = rules.remove(productId);
+        if (previous != null) {
+            lowStock.remove(previous);
+        }
+    }
+
+    /**
+     * Returns the products currently at or below their reorder point, most critical first.
+     *
+     * @param limit the maximum number of alerts to return, or 0 for all of them
+     */
+    synchronized List<StockAlert> getLowStock(int limit) {
+        int size = limit > 0 ? Math.min(limit, lowStock.size()) : lowStock.size();
+        List<StockAlert> result = new ArrayList<>(size);
+        Iterator<StockAlert> iterator = lowStock.iterator();
+        while (iterator.hasNext() && result.size() < size) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    void addListener(StockAlertListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    void removeListener(StockAlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    // Must be called with the monitor held. Returns the new state if the low-stock state changed.
+    private StockAlert replace(int productId, StockAlert updated) {
+        StockAlert previous = rules.put(productId, updated);
+        boolean wasLow = previous != null && previous.isBelowReorderPoint();
+        if (previous != null) {
+            lowStock.remove(previous);
+        }
+        if (updated.isBelowReorderPoint()) {
+            lowStock.add(updated);
+        }
+        return wasLow != updated.isBelowReorderPoint() ? updated : null;
+    }
+
+    private void publish(StockAlert alert) {
+        if (alert == null || listeners.isEmpty()) {
+            return;
+        }
+        notifier.execute(() -> {
+            for (StockAlertListener listener : listeners) {
+                try {
+                    listener.onStockAlert(alert);
+                } catch (RemoteException e) {
+                    // Unreachable clients are dropped; they can subscribe again after reconnecting
+                    listeners.remove(listener);
+                    Logger.log("ALERT", "Removed unreachable stock alert listener: " + e.getMessage(), "system");
+                }
+            }
+        });
+    }
+}
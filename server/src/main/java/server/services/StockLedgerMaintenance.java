@@ -0,0 +1,70 @@
+package server.services;
+
+import common.util.Logger;
+import server.dao.StockLedgerStore;
+import server.dao.StorageEngine;
+import server.util.DatabaseConfig;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The StockLedgerMaintenance class runs the periodic upkeep of the stock movement ledger
+ * on a background thread:
+ *
+ * 1. Creates the monthly ledger partitions ahead of time, so that inserts always
+ *    land in a small, recent partition.
+ * 2. Takes a quantity snapshot of every product, which bounds the number of ledger
+ *    entries needed to reconstruct a past quantity.
+ * 3. Prunes the snapshots older than the retention period.
+ *
+ * The interval, the number of months prepared ahead and the snapshot retention are read
+ * from DatabaseConfig.
+ */
+public class StockLedgerMaintenance {
+    private final StockLedgerStore stockLedgerDAO = StorageEngine.getInstance().getStockLedgerStore();
+    private final DatabaseConfig config = DatabaseConfig.getInstance();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "stock-ledger-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public void start() {
+        long interval = config.getLedgerSnapshotIntervalMinutes();
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, interval, TimeUnit.MINUTES);
+        Logger.log("LEDGER", "Ledger maintenance scheduled every " + interval + " minutes", "system");
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void runOnce() {
+        try {
+            int partitions = stockLedgerDAO.ensureMonthlyPartitions(config.getLedgerPartitionMonthsAhead());
+            if (partitions > 0) {
+                Logger.log("LEDGER", "Created " + partitions + " ledger partition(s)", "system");
+            }
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to create ledger partitions: " + e.getMessage(), "system");
+        }
+        try {
+            int rows = stockLedgerDAO.takeSnapshot();
+            Logger.log("LEDGER", "Stock snapshot taken for " + rows + " product(s)", "system");
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to take stock snapshot: " + e.getMessage(), "system");
+        }
+        try {
+            int pruned = stockLedgerDAO.pruneSnapshots(
+                    LocalDateTime.now().minusDays(config.getLedgerSnapshotRetentionDays()));
+            if (pruned > 0) {
+                Logger.log("LEDGER", "Pruned " + pruned + " stock snapshot(s)", "system");
+            }
+        } catch (Exception e) {
+            Logger.log("ERROR", "Failed to prune stock snapshots: " + e.getMessage(), "system");
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package server.util;
+
+import common.models.AuditEvent;
+import common.models.AuditFilter;
+import common.util.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The AuditLog class stores audit events as JSON lines in rolling segment files and
+ * answers queries on them.
+ *
+ * Writing:
+ * - Callers only enqueue events; a dedicated background thread encodes them and appends
+ *   them to the active segment, so the request thread never waits on file I/O.
+ * - A new segment is started when the active one exceeds the configured size or age.
+ * - If the queue is full, events are dropped and counted rather than blocking callers.
+ *
+ * Indexing:
+ * - Each segment keeps a sparse index: its time range, the byte offset of every Nth record
+ *   with its timestamp, and the set of entities it mentions. The index is written next to
+ *   the segment ("&lt;segment&gt;.idx") when the segment is closed, and rebuilt by scanning
+ *   the segment if the file is missing (for instance after a crash).
+ *
+ * Querying:
+ * - Segments outside the requested time range, or not mentioning the requested entity,
+ *   are skipped entirely. Within a segment, reading starts at the closest index mark
+ *   before the requested start time.
+ *
+ * The directory, segment size and segment age are read from DatabaseConfig.
+ */
+public class AuditLog {
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".jsonl";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_INTERVAL = 256;
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int BATCH_SIZE = 1024;
+    // Events are timestamped by the caller, so they may reach the file slightly out of order
+    private static final long ORDERING_SLACK_MILLIS = 1000;
+
+    private static AuditLog instance;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeMillis;
+    private final BlockingQueue<AuditEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only accessed by the writer thread
+    private Segment activeSegment;
+    private OutputStream activeOutput;
+
+    private AuditLog() {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        this.directory = Paths.get(config.getAuditDirectory());
+        this.maxSegmentBytes = config.getAuditSegmentMaxBytes();
+        this.maxSegmentAgeMillis = TimeUnit.MINUTES.toMillis(config.getAuditSegmentMaxAgeMinutes());
+        loadSegments();
+        this.writerThread = new Thread(this::writeLoop, "audit-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public static synchronized AuditLog getInstance() {
+        if (instance == null) {
+            instance = new AuditLog();
+        }
+        return instance;
+    }
+
+    /**
+     * Enqueues an audit event. Returns immediately; the event is written in the background.
+     *
+     * @param action the performed action, for example "ADD_PRODUCT"
+     * @param username the user who performed the action
+     * @param entityType the type of the affected entity, for example "PRODUCT"
+     * @param entityId the identifier of the affected entity
+     * @param details a free-text description of the action
+     */
+    public void record(String action, String username, String entityType, Object entityId, String details) {
+        AuditEvent event = new AuditEvent(LocalDateTime.now(), action, username, entityType,
+                entityId != null ? String.valueOf(entityId) : null, details);
+        if (!running || !queue.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * Retrieves the audit events matching the given filter, oldest first.
+     *
+     * @param filter the criteria the events must match
+     * @return the matching events, at most filter.getLimit() of them
+     * @throws IOException if a segment cannot be read
+     */
+    public List<AuditEvent> query(AuditFilter filter) throws IOException {
+        long from = filter.getFrom() != null ? toMillis(filter.getFrom()) : Long.MIN_VALUE;
+        long to = filter.getTo() != null ? toMillis(filter.getTo()) : Long.MAX_VALUE;
+        String entityKey = filter.getEntityType() != null && filter.getEntityId() != null
+                ? entityKey(filter.getEntityType(), filter.getEntityId()) : null;
+        int limit = filter.getLimit() > 0 ? filter.getLimit() : Integer.MAX_VALUE;
+
+        List<AuditEvent> results = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!segment.mayContain(from, to, entityKey)) {
+                continue;
+            }
+            long startOffset = segment.offsetBefore(from == Long.MIN_VALUE ? from : from - ORDERING_SLACK_MILLIS);
+            try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+                long end = channel.size();
+                channel.position(startOffset);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        Channels.newInputStream(channel), StandardCharsets.UTF_8));
+                long position = startOffset;
+                String line;
+                while (position < end && (line = reader.readLine()) != null) {
+                    position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    Map<String, String> fields = parseLine(line);
+                    if (fields == null) {
+                        continue; // partially written line
+                    }
+                    long timestamp = Long.parseLong(fields.get("ts"));
+                    if (to != Long.MAX_VALUE && timestamp > to + ORDERING_SLACK_MILLIS) {
+                        break;
+                    }
+                    AuditEvent event = toEvent(timestamp, fields);
+                    if (filter.matches(event)) {
+                        results.add(event);
+                        if (results.size() >= limit) {
+                            return results;
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Writes the pending events, closes the active segment and stops the writer thread.
+     */
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            try {
+                rollIfNeeded();
+                for (AuditEvent event : batch) {
+                    write(event);
+                }
+                if (activeOutput != null && !batch.isEmpty()) {
+                    activeOutput.flush();
+                }
+            } catch (IOException e) {
+                droppedEvents.addAndGet(batch.size());
+                Logger.log("ERROR", "Failed to write audit events: " + e.getMessage(), "system");
+            }
+            batch.clear();
+        }
+        try {
+            closeActiveSegment();
+        } catch (IOException e) {
+            Logger.log("ERROR", "Failed to close audit segment: " + e.getMessage(), "system");
+        }
+    }
+
+    private void write(AuditEvent event) throws IOException {
+        long timestamp = toMillis(event.getTimestamp());
+        byte[] line = encode(timestamp, event).getBytes(StandardCharsets.UTF_8);
+        activeSegment.add(timestamp, entityKey(event.getEntityType(), event.getEntityId()), line.length);
+        activeOutput.write(line);
+    }
+
+    private void rollIfNeeded() throws IOException {
+        long now = System.currentTimeMillis();
+        if (activeSegment != null
+                && activeSegment.size < maxSegmentBytes
+                && now - activeSegment.startMillis < maxSegmentAgeMillis) {
+            return;
+        }
+        closeActiveSegment();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(SEGMENT_PREFIX + now + SEGMENT_SUFFIX);
+        for (int i = 1; Files.exists(file); i++) {
+            file = directory.resolve(SEGMENT_PREFIX + now + "-" + i + SEGMENT_SUFFIX);
+        }
+        activeOutput = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), 64 * 1024);
+        activeSegment = new Segment(file, now);
+        segments.add(activeSegment);
+    }
+
+    private void closeActiveSegment() throws IOException {
+        if (activeSegment == null) {
+            return;
+        }
+        activeOutput.close();
+        activeSegment.writeIndex();
+        activeSegment = null;
+        activeOutput = null;
+    }
+
+    private void loadSegments() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            Logger.log("ERROR", "Failed to list audit segments: " + e.getMessage(), "system");
+            return;
+        }
+        files.sort(null);
+        for (Path file : files) {
+            try {
+                segments.add(Segment.load(file));
+            } catch (IOException | RuntimeException e) {
+                Logger.log("ERROR", "Failed to load audit segment " + file + ": " + e.getMessage(), "system");
+            }
+        }
+    }
+
+    /**
+     * A segment file along with its sparse index.
+     */
+    private static class Segment {
+        final Path file;
+        final long startMillis;
+        final Set<String> entities = new HashSet<>();
+        final List<long[]> marks = new ArrayList<>(); // {timestamp, offset}
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        long size;
+        long records;
+
+        Segment(Path file, long startMillis) {
+            this.file = file;
+            this.startMillis = startMillis;
+        }
+
+        synchronized void add(long timestamp, String entityKey, int length) {
+            if (records % INDEX_INTERVAL == 0) {
+                marks.add(new long[]{timestamp, size});
+            }
+            if (entityKey != null) {
+                entities.add(entityKey);
+            }
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            size += length;
+            records++;
+        }
+
+        synchronized boolean mayContain(long from, long to, String entityKey) {
+            if (records == 0) {
+                return false;
+            }
+            if (maxTimestamp < from || minTimestamp > to) {
+                return false;
+            }
+            return entityKey == null || entities.contains(entityKey);
+        }
+
+        synchronized long offsetBefore(long timestamp) {
+            long offset = 0;
+            for (long[] mark : marks) {
+                if (mark[0] >= timestamp) {
+                    break;
+                }
+                offset = mark[1];
+            }
+            return offset;
+        }
+
+        synchronized void writeIndex() throws IOException {
+            StringBuilder index = new StringBuilder();
+            index.append("records ").append(records).append('\n');
+            index.append("size ").append(size).append('\n');
+            index.append("min ").append(minTimestamp).append('\n');
+            index.append("max ").append(maxTimestamp).append('\n');
+            for (long[] mark : marks) {
+                index.append("mark ").append(mark[0]).append(' ').append(mark[1]).append('\n');
+            }
+            for (String entity : entities) {
+                index.append("entity ").append(entity).append('\n');
+            }
+            Files.writeString(indexFile(file), index.toString(), StandardCharsets.UTF_8);
+        }
+
+        static Segment load(Path file) throws IOException {
+            String name = file.getFileName().toString();
+            String start = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+            int dash = start.indexOf('-');
+            Segment segment = new Segment(file, Long.parseLong(dash >= 0 ? start.substring(0, dash) : start));
+
+            Path indexFile = indexFile(file);
+            if (Files.exists(indexFile)) {
+                for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split(" ", 2);
+                    switch (parts[0]) {
+                        case "records": segment.records = Long.parseLong(parts[1]); break;
+                        case "size": segment.size = Long.parseLong(parts[1]); break;
+                        case "min": segment.minTimestamp = Long.parseLong(parts[1]); break;
+                        case "max": segment.maxTimestamp = Long.parseLong(parts[1]); break;
+                        case "mark": {
+                            String[] mark = parts[1].split(" ");
+                            segment.marks.add(new long[]{Long.parseLong(mark[0]), Long.parseLong(mark[1])});
+                            break;
+                        }
+                        case "entity": segment.entities.add(parts[1]); break;
+                        default: break;
+                    }
+                }
+                return segment;
+            }
+
+            // No index: the segment was not closed properly, rebuild it by scanning the file
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int length = line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    Map<String, String> fields = parseLine(line);
+                    if (fields == null) {
+                        segment.size += length;
+                        continue;
+                    }
+                    segment.add(Long.parseLong(fields.get("ts")),
+                            entityKey(fields.get("entityType"), fields.get("entityId")), length);
+                }
+            }
+            segment.writeIndex();
+            return segment;
+        }
+
+        private static Path indexFile(Path file) {
+            return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+        }
+    }
+
+    // --- JSON lines encoding ---------------------------------------------------------------
+
+    private static String encode(long timestamp, AuditEvent event) {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"ts\":").append(timestamp);
+        appendField(json, "action", event.getAction());
+        appendField(json, "user", event.getUsername());
+        appendField(json, "entityType", event.getEntityType());
+        appendField(json, "entityId", event.getEntityId());
+        appendField(json, "details", event.getDetails());
+        return json.append("}\n").toString();
+    }
+
+    private static void appendField(StringBuilder json, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        json.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings or integers.
+     * Returns null if the line is incomplete or malformed.
+     */
+    private static Map<String, String> parseLine(String line) {
+        Map<String, String> fields = new HashMap<>();
+        int i = 0;
+        int n = line.length();
+        if (n < 2 || line.charAt(0) != '{' || line.charAt(n - 1) != '}') {
+            return null;
+        }
+        i++;
+        while (i < n - 1) {
+            if (line.charAt(i) == ',') {
+                i++;
+            }
+            if (line.charAt(i) != '"') {
+                return null;
+            }
+            int keyEnd = line.indexOf('"', i + 1);
+            if (keyEnd < 0 || keyEnd + 1 >= n || line.charAt(keyEnd + 1) != ':') {
+                return null;
+            }
+            String key = line.substring(i + 1, keyEnd);
+            i = keyEnd + 2;
+            if (line.charAt(i) == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (i < n && line.charAt(i) != '"') {
+                    char c = line.charAt(i);
+                    if (c == '\\' && i + 1 < n) {
+                        char escaped = line.charAt(++i);
+                        switch (escaped) {
+                            case 'n': value.append('\n'); break;
+                            case 'r': value.append('\r'); break;
+                            case 't': value.append('\t'); break;
+                            case 'u':
+                                if (i + 4 >= n) {
+                                    return null;
+                                }
+                                value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                                i += 4;
+                                break;
+                            default: value.append(escaped);
+                        }
+                    } else {
+                        value.append(c);
+                    }
+                    i++;
+                }
+                if (i >= n) {
+                    return null;
+                }
+                fields.put(key, value.toString());
+                i++;
+            } else {
+                int end = i;
+                while (end < n - 1 && line.charAt(end) != ',') {
+                    end++;
+                }
+                fields.put(key, line.substring(i, end));
+                i = end;
+            }
+        }
+        return fields.containsKey("ts") ? fields : null;
+    }
+
+    private static AuditEvent toEvent(long timestamp, Map<String, String> fields) {
+        return new AuditEvent(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()),
+                fields.get("action"),
+                fields.get("user"),
+                fields.get("entityType"),
+                fields.get("entityId"),
+                fields.get("details")
+        );
+    }
+
+    private static String entityKey(String entityType, String entityId) {
+        return entityType != null && entityId != null ? entityType + ":" + entityId : null;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -35,7 +35,10 @@ public class ConnectionPool {
 
             // Optional: connection testing
             hikariConfig.setConnectionTestQuery("SELECT 1");
+            // Single statements commit on their own; UnitOfWork disables auto-commit
+            // for its scope and restores it before returning the connection
             hikariConfig.setAutoCommit(true);
+            hikariConfig.setTransactionIsolation(config.getTransactionIsolation());
 
             dataSource = new HikariDataSource(hikariConfig);
             System.out.println("Connection pool initialized successfully");
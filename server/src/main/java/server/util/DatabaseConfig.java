@@ -6,6 +6,8 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -129,16 +131,32 @@ public class DatabaseConfig {
      * applied when no external configuration file or classpath resource is loaded.
      *
      * The default configuration includes:
+     * - Storage engine selection (MySQL or embedded) and the embedded storage directory.
      * - Database connection details (URL, username, password, and driver class).
      * - Connection pool settings (maximum pool size, minimum idle connections, idle timeout,
-     *   and connection timeout).
+     *   connection timeout and default transaction isolation).
      * - Database initialization flags (whether to create the database or load test data).
-     * - RMI port configuration.
+     * - Schema migration settings (script location, lock timeout and online DDL progress interval).
+     * - Synthetic dataset settings (generated product and employee counts, seed and batch size).
+     * - RMI settings (registry port, and for the client the server endpoints, reconnect
+     *   backoff and timeout, and health probe interval).
+     * - RMI transport settings (service port, message compression and threshold, TCP_NODELAY,
+     *   socket buffer size and transport metrics reporting interval).
+     * - Group-commit write pipeline settings (enabled flag, batch size, delay and queue capacity).
+     * - Write-ahead log settings (enabled flag, directory, segment size, pending write bound
+     *   and apply batch size).
+     * - Read coalescing flag (concurrent identical product reads share one query).
+     * - Query cache settings (enabled flag and memory bound of the cached product lists).
+     * - Stock ledger maintenance settings (snapshot interval and retention, partitions created ahead).
+     * - Audit log settings (directory, maximum segment size and age).
+     * - System log settings (file path, rotation, compression and retention).
      *
      * These defaults ensure the application can operate with a basic setup out of the box,
      * especially in development or testing environments, without requiring external configuration.
      */
     private void setDefaults() {
+        properties.setProperty("storage.engine", "mysql");
+        properties.setProperty("storage.embedded.dir", "data");
         properties.setProperty("db.url", "jdbc:mysql://localhost:3306/inventory_db");
         properties.setProperty("db.username", "root");
         properties.setProperty("db.password", "");
@@ -147,9 +165,56 @@ public class DatabaseConfig {
         properties.setProperty("db.pool.minimumIdle", "5");
         properties.setProperty("db.pool.idleTimeout", "300000");
         properties.setProperty("db.pool.connectionTimeout", "20000");
+        properties.setProperty("db.pool.transactionIsolation", "TRANSACTION_REPEATABLE_READ");
         properties.setProperty("db.init.createDatabase", "false");
         properties.setProperty("db.init.loadTestData", "false");
+        properties.setProperty("db.migration.location", "db/migration");
+        properties.setProperty("db.migration.lockTimeoutSeconds", "60");
+        properties.setProperty("db.migration.progressIntervalMillis", "5000");
+        properties.setProperty("db.init.generate.products", "0");
+        properties.setProperty("db.init.generate.employees", "0");
+        properties.setProperty("db.init.generate.seed", "42");
+        properties.setProperty("db.init.generate.batchSize", "1000");
         properties.setProperty("rmi.port", "1099");
+        properties.setProperty("rmi.endpoints", "");
+        properties.setProperty("rmi.reconnect.initialBackoffMillis", "200");
+        properties.setProperty("rmi.reconnect.maxBackoffMillis", "10000");
+        properties.setProperty("rmi.reconnect.timeoutMillis", "30000");
+        properties.setProperty("rmi.probe.intervalMillis", "15000");
+        properties.setProperty("rmi.service.port", "0");
+        properties.setProperty("rmi.transport.enabled", "true");
+        properties.setProperty("rmi.transport.compression", "deflate");
+        properties.setProperty("rmi.transport.compressionThreshold", "8192");
+        properties.setProperty("rmi.transport.compressionLevel", "1");
+        properties.setProperty("rmi.transport.tcpNoDelay", "true");
+        properties.setProperty("rmi.transport.bufferBytes", "65536");
+        properties.setProperty("rmi.metrics.intervalSeconds", "60");
+        properties.setProperty("write.groupCommit.enabled", "false");
+        properties.setProperty("write.groupCommit.maxBatchSize", "64");
+        properties.setProperty("write.groupCommit.maxDelayMillis", "2");
+        properties.setProperty("write.groupCommit.queueCapacity", "1024");
+        properties.setProperty("wal.enabled", "false");
+        properties.setProperty("wal.dir", "wal");
+        properties.setProperty("wal.segmentBytes", "67108864");
+        properties.setProperty("wal.maxOutstanding", "10000");
+        properties.setProperty("wal.applyBatchSize", "64");
+        properties.setProperty("read.coalescing.enabled", "true");
+        properties.setProperty("cache.queries.enabled", "false");
+        properties.setProperty("cache.queries.maxBytes", "67108864");
+        properties.setProperty("cache.queries.ttlMillis", "30000");
+        properties.setProperty("ledger.snapshot.intervalMinutes", "1440");
+        properties.setProperty("ledger.partitions.monthsAhead", "2");
+        properties.setProperty("ledger.snapshot.retentionDays", "30");
+        properties.setProperty("audit.dir", "audit");
+        properties.setProperty("audit.segment.maxBytes", "67108864");
+        properties.setProperty("audit.segment.maxAgeMinutes", "1440");
+        properties.setProperty("log.file", "system.log");
+        properties.setProperty("log.maxFileBytes", "104857600");
+        properties.setProperty("log.rotationIntervalMinutes", "1440");
+        properties.setProperty("log.retentionDays", "30");
+        properties.setProperty("log.retentionMaxBytes", "1073741824");
+        properties.setProperty("log.compress", "true");
+        properties.setProperty("log.console", "true");
     }
 
     // Configuration source
@@ -157,6 +222,19 @@ public class DatabaseConfig {
         return configurationSource;
     }
 
+    // Storage engine properties
+    public String getStorageEngine() {
+        return properties.getProperty("storage.engine", "mysql").trim().toLowerCase();
+    }
+
+    public boolean isEmbeddedStorage() {
+        return "embedded".equals(getStorageEngine());
+    }
+
+    public String getEmbeddedStorageDirectory() {
+        return properties.getProperty("storage.embedded.dir", "data");
+    }
+
     // Database connection properties
     public String getUrl() { return properties.getProperty("db.url"); }
     public String getUsername() { return properties.getProperty("db.username"); }
@@ -171,6 +249,73 @@ public class DatabaseConfig {
             return Integer.parseInt(properties.getProperty("rmi.port", "1099"));
     }
 
+    // Client connection properties
+    // Comma-separated host[:port] list, tried in order; defaults to this host's registry
+    public List<String> getRmiEndpoints() {
+        List<String> endpoints = new ArrayList<>();
+        for (String endpoint : properties.getProperty("rmi.endpoints", "").split(",")) {
+            if (!endpoint.isBlank()) {
+                endpoints.add(endpoint.trim());
+            }
+        }
+        if (endpoints.isEmpty()) {
+            endpoints.add("localhost:" + getRmiPort());
+        }
+        return endpoints;
+    }
+
+    public long getRmiReconnectInitialBackoffMillis() {
+        return Long.parseLong(properties.getProperty("rmi.reconnect.initialBackoffMillis", "200"));
+    }
+
+    public long getRmiReconnectMaxBackoffMillis() {
+        return Long.parseLong(properties.getProperty("rmi.reconnect.maxBackoffMillis", "10000"));
+    }
+
+    public long getRmiReconnectTimeoutMillis() {
+        return Long.parseLong(properties.getProperty("rmi.reconnect.timeoutMillis", "30000"));
+    }
+
+    // 0 disables the health probe
+    public long getRmiProbeIntervalMillis() {
+        return Long.parseLong(properties.getProperty("rmi.probe.intervalMillis", "15000"));
+    }
+
+    // RMI transport properties
+    // Port the services are exported on; 0 lets the system choose one
+    public int getRmiServicePort() {
+        return Integer.parseInt(properties.getProperty("rmi.service.port", "0"));
+    }
+
+    public boolean isRmiTransportEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("rmi.transport.enabled", "true"));
+    }
+
+    public String getRmiTransportCompression() {
+        return properties.getProperty("rmi.transport.compression", "deflate").trim().toLowerCase();
+    }
+
+    public int getRmiTransportCompressionThreshold() {
+        return Integer.parseInt(properties.getProperty("rmi.transport.compressionThreshold", "8192"));
+    }
+
+    public int getRmiTransportCompressionLevel() {
+        return Integer.parseInt(properties.getProperty("rmi.transport.compressionLevel", "1"));
+    }
+
+    public boolean isRmiTransportTcpNoDelay() {
+        return Boolean.parseBoolean(properties.getProperty("rmi.transport.tcpNoDelay", "true"));
+    }
+
+    public int getRmiTransportBufferBytes() {
+        return Integer.parseInt(properties.getProperty("rmi.transport.bufferBytes", "65536"));
+    }
+
+    // 0 disables the transport metrics report
+    public long getRmiMetricsIntervalSeconds() {
+        return Long.parseLong(properties.getProperty("rmi.metrics.intervalSeconds", "60"));
+    }
+
     public int getMinimumIdle() {
         return Integer.parseInt(properties.getProperty("db.pool.minimumIdle", "5"));
     }
@@ -183,6 +328,11 @@ public class DatabaseConfig {
         return Long.parseLong(properties.getProperty("db.pool.connectionTimeout", "20000"));
     }
 
+    // Name of a java.sql.Connection TRANSACTION_* constant
+    public String getTransactionIsolation() {
+        return properties.getProperty("db.pool.transactionIsolation", "TRANSACTION_REPEATABLE_READ");
+    }
+
     // Database initialization properties
     public boolean shouldCreateDatabase() {
         return Boolean.parseBoolean(properties.getProperty("db.init.createDatabase", "false"));
@@ -200,6 +350,147 @@ public class DatabaseConfig {
         return properties.getProperty("db.init.data.path", "data.sql");
     }
 
+    // Schema migration properties
+    public String getMigrationLocation() {
+        return properties.getProperty("db.migration.location", "db/migration");
+    }
+
+    public int getMigrationLockTimeoutSeconds() {
+        return Integer.parseInt(properties.getProperty("db.migration.lockTimeoutSeconds", "60"));
+    }
+
+    public long getMigrationProgressIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.migration.progressIntervalMillis", "5000"));
+    }
+
+    // Synthetic dataset properties (0 disables the generation)
+    public long getGeneratedProductCount() {
+        return Long.parseLong(properties.getProperty("db.init.generate.products", "0"));
+    }
+
+    public long getGeneratedEmployeeCount() {
+        return Long.parseLong(properties.getProperty("db.init.generate.employees", "0"));
+    }
+
+    public long getGeneratorSeed() {
+        return Long.parseLong(properties.getProperty("db.init.generate.seed", "42"));
+    }
+
+    public int getGeneratorBatchSize() {
+        return Integer.parseInt(properties.getProperty("db.init.generate.batchSize", "1000"));
+    }
+
+    // Group-commit write pipeline properties
+    public boolean isGroupCommitEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("write.groupCommit.enabled", "false"));
+    }
+
+    public int getGroupCommitMaxBatchSize() {
+        return Integer.parseInt(properties.getProperty("write.groupCommit.maxBatchSize", "64"));
+    }
+
+    public long getGroupCommitMaxDelayMillis() {
+        return Long.parseLong(properties.getProperty("write.groupCommit.maxDelayMillis", "2"));
+    }
+
+    public int getGroupCommitQueueCapacity() {
+        return Integer.parseInt(properties.getProperty("write.groupCommit.queueCapacity", "1024"));
+    }
+
+    // Write-ahead log properties
+    public boolean isWriteAheadLogEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("wal.enabled", "false"));
+    }
+
+    public String getWalDirectory() {
+        return properties.getProperty("wal.dir", "wal");
+    }
+
+    public int getWalSegmentBytes() {
+        return Integer.parseInt(properties.getProperty("wal.segmentBytes", "67108864"));
+    }
+
+    public int getWalMaxOutstanding() {
+        return Integer.parseInt(properties.getProperty("wal.maxOutstanding", "10000"));
+    }
+
+    public int getWalApplyBatchSize() {
+        return Integer.parseInt(properties.getProperty("wal.applyBatchSize", "64"));
+    }
+
+    // Read coalescing properties
+    public boolean isReadCoalescingEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("read.coalescing.enabled", "true"));
+    }
+
+    // Query cache properties
+    public boolean isQueryCacheEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("cache.queries.enabled", "false"));
+    }
+
+    public long getQueryCacheMaxBytes() {
+        return Long.parseLong(properties.getProperty("cache.queries.maxBytes", "67108864"));
+    }
+
+    public long getQueryCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("cache.queries.ttlMillis", "30000"));
+    }
+
+    // Stock ledger properties
+    public long getLedgerSnapshotIntervalMinutes() {
+        return Long.parseLong(properties.getProperty("ledger.snapshot.intervalMinutes", "1440"));
+    }
+
+    public int getLedgerPartitionMonthsAhead() {
+        return Integer.parseInt(properties.getProperty("ledger.partitions.monthsAhead", "2"));
+    }
+
+    public int getLedgerSnapshotRetentionDays() {
+        return Integer.parseInt(properties.getProperty("ledger.snapshot.retentionDays", "30"));
+    }
+
+    // Audit log properties
+    public String getAuditDirectory() {
+        return properties.getProperty("audit.dir", "audit");
+    }
+
+    public long getAuditSegmentMaxBytes() {
+        return Long.parseLong(properties.getProperty("audit.segment.maxBytes", "67108864"));
+    }
+
+    public long getAuditSegmentMaxAgeMinutes() {
+        return Long.parseLong(properties.getProperty("audit.segment.maxAgeMinutes", "1440"));
+    }
+
+    // System log properties
+    public String getLogFile() {
+        return properties.getProperty("log.file", "system.log");
+    }
+
+    public long getLogMaxFileBytes() {
+        return Long.parseLong(properties.getProperty("log.maxFileBytes", "104857600"));
+    }
+
+    public long getLogRotationIntervalMinutes() {
+        return Long.parseLong(properties.getProperty("log.rotationIntervalMinutes", "1440"));
+    }
+
+    public int getLogRetentionDays() {
+        return Integer.parseInt(properties.getProperty("log.retentionDays", "30"));
+    }
+
+    public long getLogRetentionMaxBytes() {
+        return Long.parseLong(properties.getProperty("log.retentionMaxBytes", "1073741824"));
+    }
+
+    public boolean shouldCompressLogs() {
+        return Boolean.parseBoolean(properties.getProperty("log.compress", "true"));
+    }
+
+    public boolean shouldEchoLogsToConsole() {
+        return Boolean.parseBoolean(properties.getProperty("log.console", "true"));
+    }
+
     // Property manipulation
     public void setProperty(String key, String value) {
         properties.setProperty(key, value);
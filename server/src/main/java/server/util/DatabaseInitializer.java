@@ -25,7 +25,9 @@ import java.util.stream.Collectors;
  *
  * The primary responsibilities include:
  * - Checking if the database needs to be created and if test data should be loaded.
- * - Executing the corresponding SQL scripts for schema creation and test data loading.
+ * - Bringing the schema up to date through the versioned migrations of {@code SchemaMigrator}.
+ * - Executing the SQL script for test data loading.
+ * - Seeding a large synthetic dataset through {@code DatasetGenerator} when configured.
  * - Logging detailed debug information and any errors encountered during the process.
  */
 public class DatabaseInitializer {
@@ -51,33 +53,18 @@ public class DatabaseInitializer {
         else{
             Logger.log("DEBUG", "Skipping test data loading", "system");
         }
+        if (config.getGeneratedProductCount() > 0 || config.getGeneratedEmployeeCount() > 0) {
+            Logger.log("DEBUG", "Generating synthetic dataset...", "system");
+            generateDataset();
+        }
         Logger.log("DEBUG", "Database initialization completed.", "system");
     }
 
     private void createDatabase() {
-        try (Connection conn = ConnectionPool.getDataSource().getConnection()) {
-            Logger.log("DEBUG", "Connected to the database via connection pool", "system");
-
-
-
-            // Execute the schema.sql script
-            String schemaSQL = loadSqlScriptFromClasspath("schema.sql");
-            if (schemaSQL != null) {
-                Logger.log("DEBUG", "Schema script loaded, executing...", "system");
-                try (Statement stmt = conn.createStatement()) {
-                    String[] schemaStatements = schemaSQL.split(";"); // Split SQL script into individual statements
-
-                    for (String statement : schemaStatements) {
-                        if (!statement.trim().isEmpty()) {// Skip empty statements
-                            stmt.execute(statement.trim() + ";"); // Execute each statement
-                        }
-                    }
-                    Logger.log("DATABASE", "Schema created successfully", "system");
-                }
-            } else {
-                Logger.log("ERROR", "Schema script not found", "system");
-                throw new RuntimeException("Schema script not found");
-            }
+        try {
+            // Apply the schema migrations not yet recorded in schema_history
+            new SchemaMigrator().migrate();
+            Logger.log("DATABASE", "Schema created successfully", "system");
         } catch (Exception e) {
             Logger.log("ERROR", "Failed to create database: " + e.getMessage(), "system");
             e.printStackTrace();
@@ -94,12 +81,8 @@ public class DatabaseInitializer {
             if (dataSQL != null) {
                 Logger.log("DEBUG", "Data script loaded, executing...", "system");
                 try (Statement stmt = conn.createStatement()) {
-                    String[] schemaStatements = dataSQL.split(";"); // Split SQL script into individual statements
-
-                    for (String statement : schemaStatements) {
-                        if (!statement.trim().isEmpty()) {// Skip empty statements
-                            stmt.execute(statement.trim() + ";"); // Execute each statement
-                        }
+                    for (String statement : SqlScriptSplitter.split(dataSQL)) {
+                        stmt.execute(statement);
                     }
                     Logger.log("DATABASE", "Test data loaded successfully", "system");
                 }
@@ -116,19 +99,29 @@ public class DatabaseInitializer {
             throw new RuntimeException("Failed to load test data", e);
         }
     }
+    private void generateDataset() {
+        DatasetGenerator generator = DatasetGenerator.forDatabase(config, config.getGeneratorSeed(),
+                config.getGeneratorBatchSize());
+        try {
+            generator.seedProducts(config.getGeneratedProductCount());
+            generator.seedEmployees(config.getGeneratedEmployeeCount());
+        } catch (SQLException e) {
+            Logger.log("ERROR", "Failed to generate synthetic dataset: " + e.getMessage(), "system");
+            throw new RuntimeException("Failed to generate synthetic dataset", e);
+        } finally {
+            generator.close();
+        }
+    }
+
     private void executeSqlLineByLine(Connection conn, String sqlScript) throws SQLException {
         try (Statement statement = conn.createStatement()) {
-            String[] sqlStatements = sqlScript.split(";");
-            for (String sql : sqlStatements) {
-                sql = sql.trim();
-                if (!sql.isEmpty() && !sql.startsWith("--")) {
-                    try {
-                        statement.execute(sql);
-                        Logger.log("DEBUG", "Executed: " + sql, "system");
-                    } catch (SQLException ex) {
-                        Logger.log("ERROR", "Failed to execute: " + sql + ". Error: " + ex.getMessage(), "system");
-                        throw ex;
-                    }
+            for (String sql : SqlScriptSplitter.split(sqlScript)) {
+                try {
+                    statement.execute(sql);
+                    Logger.log("DEBUG", "Executed: " + sql, "system");
+                } catch (SQLException ex) {
+                    Logger.log("ERROR", "Failed to execute: " + sql + ". Error: " + ex.getMessage(), "system");
+                    throw ex;
                 }
             }
         }
@@ -0,0 +1,489 @@
+package server.util;
+
+import common.models.Employee;
+import common.models.Product;
+import common.util.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DatasetGenerator class fills the database with a synthetic but realistic catalog of
+ * products and set of employees, for load and scale testing.
+ *
+ * The data follows the shape of a real inventory:
+ * - Categories are drawn from a Zipf distribution, so a few categories hold most products.
+ * - Prices are log-normal: most products are cheap, a long tail is expensive.
+ * - Quantities are exponential with a share of out-of-stock products.
+ * - Creation dates are spread over the two years before the current day.
+ *
+ * Every row is derived from the seed and its own index only, so a dataset is reproducible
+ * whatever the parallelism, and seeding up to a larger size later extends it with the same
+ * rows a single run would have produced.
+ *
+ * Rows are generated in parallel by a fork-join pool: the range of rows is split until each
+ * chunk holds a few batches, and each chunk is written on its own connection and transaction
+ * with multi-row INSERT statements of batchSize rows. The transaction also records the index
+ * range of the chunk in the dataset_chunks table; since chunks commit in any order, a run
+ * that failed part way leaves holes, which the next run fills by only writing the ranges not
+ * recorded there. Alternatively, the rows can be written
+ * as CSV files for LOAD DATA INFILE, which is the fastest path for tens of millions of rows.
+ *
+ * Generated employees are named "gen.&lt;index&gt;" and share the password of the default
+ * accounts (123456), since hashing a BCrypt password per row would dominate the run time.
+ *
+ * The generator runs at startup from DatabaseInitializer when db.init.generate.products or
+ * db.init.generate.employees is set, or standalone:
+ * java server.util.DatasetGenerator --products N [--employees N] [--seed S] [--batch N] [--csv DIR]
+ */
+public class DatasetGenerator {
+    private static final String SHARED_PASSWORD_HASH = "$2a$12$OgFuXHF0NDNvwdzELlUS8ubDelgiT42WUoZxyQVbP3kSe1DuUzBmi";
+    private static final String EMPLOYEE_PREFIX = "gen.";
+    private static final int BATCHES_PER_CHUNK = 8;
+    private static final long PROGRESS_STEP = 1_000_000;
+    private static final double ZIPF_EXPONENT = 1.07;
+    private static final long CREATED_AT_SPREAD_SECONDS = 2L * 365 * 24 * 3600;
+
+    private static final String[] CATEGORIES = {
+            "Electronics", "Office Supplies", "Stationery", "Furniture", "Kitchen", "Tools",
+            "Cleaning", "Lighting", "Storage", "Networking", "Safety", "Packaging",
+            "Sports", "Garden", "Health", "Automotive"
+    };
+    private static final String[][] NOUNS = {
+            {"Laptop", "Monitor", "Keyboard", "Headset", "Charger", "Tablet"},
+            {"Stapler", "Binder", "Label Maker", "Paper Tray", "Hole Punch", "Clipboard"},
+            {"Notebook", "Pen Set", "Marker", "Sticky Notes", "Envelope", "Pencil"},
+            {"Desk", "Office Chair", "Bookshelf", "Filing Cabinet", "Side Table", "Stool"},
+            {"Kettle", "Coffee Maker", "Mug", "Water Filter", "Microwave", "Toaster"},
+            {"Drill", "Screwdriver Set", "Hammer", "Tape Measure", "Wrench", "Saw"},
+            {"Mop", "Detergent", "Vacuum", "Glass Cleaner", "Trash Bags", "Sponge"},
+            {"Desk Lamp", "LED Bulb", "Floor Lamp", "Light Strip", "Flashlight", "Spotlight"},
+            {"Storage Box", "Shelf Unit", "Drawer", "Locker", "Crate", "Bin"},
+            {"Router", "Switch", "Patch Cable", "Access Point", "Modem", "Network Card"},
+            {"Helmet", "Safety Gloves", "Goggles", "Fire Extinguisher", "First Aid Kit", "Vest"},
+            {"Cardboard Box", "Bubble Wrap", "Tape Roll", "Pallet Wrap", "Mailer", "Foam Sheet"},
+            {"Yoga Mat", "Dumbbell", "Water Bottle", "Jump Rope", "Ball", "Bike Pump"},
+            {"Hose", "Planter", "Pruner", "Rake", "Seed Pack", "Watering Can"},
+            {"Thermometer", "Face Mask", "Hand Sanitizer", "Bandage", "Vitamin Pack", "Scale"},
+            {"Jump Starter", "Tire Gauge", "Wiper Blade", "Car Charger", "Motor Oil", "Floor Mat"}
+    };
+    private static final String[] ADJECTIVES = {
+            "Compact", "Pro", "Ergonomic", "Heavy-Duty", "Wireless", "Premium", "Basic",
+            "Portable", "Smart", "Classic", "Ultra", "Eco"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Ahmed", "Fatima", "Ali", "Layla", "Khalid", "Noura", "Omar", "Zainab", "Youssef", "Salma",
+            "Hassan", "Amina", "Karim", "Mariam", "Tariq", "Huda", "Sami", "Rania", "Bilal", "Yasmin"
+    };
+    private static final String[] LAST_NAMES = {
+            "Hassan", "Muhammad", "Ibrahim", "Omar", "Said", "Ahmed", "Mohsen", "Mahmoud", "Abdullah",
+            "Khalil", "Nasser", "Saleh", "Haddad", "Aziz", "Farouk", "Rahman"
+    };
+
+    private final long seed;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+    private final double[] categoryCdf;
+    private final LocalDateTime createdAtOrigin = LocalDate.now().atStartOfDay();
+
+    /**
+     * @param seed the seed the dataset is derived from
+     * @param batchSize the number of rows per INSERT statement
+     * @param parallelism the number of chunks generated and written at the same time
+     */
+    public DatasetGenerator(long seed, int batchSize, int parallelism) {
+        this.seed = seed;
+        this.batchSize = Math.max(1, batchSize);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.categoryCdf = zipfCdf(CATEGORIES.length, ZIPF_EXPONENT);
+    }
+
+    /**
+     * Inserts the generated products, up to the target number, that were not inserted yet.
+     *
+     * @return the number of products inserted
+     */
+    public long seedProducts(long target) throws SQLException {
+        String sql = "INSERT INTO products (name, category, quantity, price, created_at) VALUES ";
+        return insert("products", sql, "(?, ?, ?, ?, ?)", target, (stmt, index, offset) -> {
+            Product product = product(index);
+            stmt.setString(offset, product.getName());
+            stmt.setString(offset + 1, product.getCategory());
+            stmt.setInt(offset + 2, product.getQuantity());
+            stmt.setBigDecimal(offset + 3, product.getPrice());
+            stmt.setTimestamp(offset + 4, Timestamp.valueOf(product.getCreatedAt()));
+            return offset + 5;
+        });
+    }
+
+    /**
+     * Inserts the generated employees, up to the target number, that were not inserted yet.
+     *
+     * @return the number of employees inserted
+     */
+    public long seedEmployees(long target) throws SQLException {
+        // IGNORE skips the usernames of employees generated before their chunks were recorded
+        String sql = "INSERT IGNORE INTO employees (username, fullname, password, role, created_at) VALUES ";
+        return insert("employees", sql, "(?, ?, ?, ?, ?)", target, (stmt, index, offset) -> {
+            Employee employee = employee(index);
+            stmt.setString(offset, employee.getUsername());
+            stmt.setString(offset + 1, employee.getFullname());
+            stmt.setString(offset + 2, employee.getPassword());
+            stmt.setString(offset + 3, employee.getRole());
+            stmt.setTimestamp(offset + 4, Timestamp.valueOf(employee.getCreatedAt()));
+            return offset + 5;
+        });
+    }
+
+    /**
+     * Writes the products and employees as CSV part files, loadable with e.g.
+     * LOAD DATA INFILE 'products-000000000000.csv' INTO TABLE products
+     * FIELDS TERMINATED BY ',' ENCLOSED BY '"' (name, category, quantity, price, created_at)
+     */
+    public void writeCsv(Path directory, long products, long employees) throws IOException {
+        Files.createDirectories(directory);
+        try {
+            run("products", 0, products, (from, to) -> writeCsvPart(directory.resolve(partName("products", from)),
+                    from, to, index -> {
+                        Product product = product(index);
+                        return csv(product.getName()) + ',' + csv(product.getCategory()) + ','
+                                + product.getQuantity() + ',' + product.getPrice().toPlainString() + ','
+                                + csv(Timestamp.valueOf(product.getCreatedAt()).toString());
+                    }));
+            run("employees", 0, employees, (from, to) -> writeCsvPart(directory.resolve(partName("employees", from)),
+                    from, to, index -> {
+                        Employee employee = employee(index);
+                        return csv(employee.getUsername()) + ',' + csv(employee.getFullname()) + ','
+                                + csv(employee.getPassword()) + ',' + csv(employee.getRole()) + ','
+                                + csv(Timestamp.valueOf(employee.getCreatedAt()).toString());
+                    }));
+        } catch (ChunkFailure e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to write CSV files: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Returns the generated product of the given index, the same for a given seed; its id is
+     * left to the database.
+     */
+    public Product product(long index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        int category = zipf(random);
+        String[] nouns = NOUNS[category];
+        String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + nouns[random.nextInt(nouns.length)]
+                + " " + (char) ('A' + random.nextInt(26)) + (100 + random.nextInt(9900));
+        int quantity = random.nextInt(100) < 8 ? 0 : (int) (-Math.log(1 - random.nextDouble()) * 60);
+        // Log-normal with a median around 33.00 and a long tail, within DECIMAL(10, 2)
+        double price = Math.exp(3.5 + 1.2 * random.nextGaussian());
+        long cents = Math.max(50, Math.min(9_999_999_999L, Math.round(price * 100)));
+        return new Product(0, name, CATEGORIES[category], quantity, BigDecimal.valueOf(cents, 2), createdAt(random));
+    }
+
+    private Employee employee(long index) {
+        SplittableRandom random = new SplittableRandom(~seed * 0x9E3779B97F4A7C15L + index);
+        String fullname = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String role = random.nextInt(100) < 2 ? "admin" : "user";
+        return new Employee(0, EMPLOYEE_PREFIX + index, fullname, SHARED_PASSWORD_HASH, role, createdAt(random));
+    }
+
+    private LocalDateTime createdAt(SplittableRandom random) {
+        return createdAtOrigin.minusSeconds(random.nextLong(CREATED_AT_SPREAD_SECONDS));
+    }
+
+    private int zipf(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = categoryCdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (categoryCdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= total;
+        }
+        cdf[n - 1] = 1.0;
+        return cdf;
+    }
+
+    private long insert(String table, String prefix, String tuple, long target, RowBinder binder)
+            throws SQLException {
+        List<long[]> missing = missingRanges(table, target);
+        if (missing.isEmpty()) {
+            Logger.log("DATABASE", "Table " + table + " already holds " + target + " generated rows", "system");
+            return 0;
+        }
+        String fullBatchSql = batchSql(prefix, tuple, batchSize);
+        long inserted = 0;
+        try {
+            for (long[] range : missing) {
+                run(table, range[0], range[1], (chunkFrom, chunkTo) ->
+                        writeChunk(table, prefix, tuple, fullBatchSql, binder, chunkFrom, chunkTo));
+                inserted += range[1] - range[0];
+            }
+        } catch (ChunkFailure e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Failed to generate " + table + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        return inserted;
+    }
+
+    // Writes the rows of a chunk and records its range in one transaction
+    private void writeChunk(String table, String prefix, String tuple, String fullBatchSql, RowBinder binder,
+                            long chunkFrom, long chunkTo) throws SQLException {
+        try (Connection conn = ConnectionPool.getDataSource().getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (long start = chunkFrom; start < chunkTo; start += batchSize) {
+                    int rows = (int) Math.min(batchSize, chunkTo - start);
+                    String sql = rows == batchSize ? fullBatchSql : batchSql(prefix, tuple, rows);
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        int offset = 1;
+                        for (long index = start; index < start + rows; index++) {
+                            offset = binder.bind(stmt, index, offset);
+                        }
+                        stmt.executeUpdate();
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO dataset_chunks (table_name, first_index, end_index) VALUES (?, ?, ?)")) {
+                    stmt.setString(1, table);
+                    stmt.setLong(2, chunkFrom);
+                    stmt.setLong(3, chunkTo);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the index ranges below the target that no committed chunk of the table covers.
+     */
+    private static List<long[]> missingRanges(String table, long target) throws SQLException {
+        List<long[]> missing = new ArrayList<>();
+        long next = 0;
+        String sql = "SELECT first_index, end_index FROM dataset_chunks WHERE table_name = ? ORDER BY first_index";
+        try (Connection conn = ConnectionPool.getDataSource().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next() && next < target) {
+                    long first = rs.getLong(1);
+                    if (first > next) {
+                        missing.add(new long[]{next, Math.min(first, target)});
+                    }
+                    next = Math.max(next, rs.getLong(2));
+                }
+            }
+        }
+        if (next < target) {
+            missing.add(new long[]{next, target});
+        }
+        return missing;
+    }
+
+    /**
+     * Splits [from, to) into chunks on the fork-join pool and hands each chunk to the writer.
+     */
+    private void run(String table, long from, long to, ChunkWriter writer) {
+        if (to <= from) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        AtomicLong done = new AtomicLong();
+        long chunkRows = (long) batchSize * BATCHES_PER_CHUNK;
+        pool.invoke(new ChunkTask(from, to, chunkRows, (chunkFrom, chunkTo) -> {
+            writer.write(chunkFrom, chunkTo);
+            long total = done.addAndGet(chunkTo - chunkFrom);
+            if (total / PROGRESS_STEP != (total - (chunkTo - chunkFrom)) / PROGRESS_STEP) {
+                Logger.log("DATABASE", "Generated " + total + " of " + (to - from) + " " + table, "system");
+            }
+        }));
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        Logger.log("DATABASE", "Generated " + (to - from) + " " + table + " in " + elapsed + " ms ("
+                + (to - from) * 1000 / elapsed + " rows/s)", "system");
+    }
+
+    private static void writeCsvPart(Path file, long from, long to, CsvLine line) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long index = from; index < to; index++) {
+                writer.write(line.format(index));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static String partName(String table, long from) {
+        return String.format("%s-%012d.csv", table, from);
+    }
+
+    private static String csv(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String batchSql(String prefix, String tuple, int rows) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (tuple.length() + 2));
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(tuple);
+        }
+        return sql.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        long products = 0;
+        long employees = 0;
+        long seed = config.getGeneratorSeed();
+        int batch = config.getGeneratorBatchSize();
+        Path csvDirectory = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--products": products = Long.parseLong(args[i + 1]); break;
+                case "--employees": employees = Long.parseLong(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--batch": batch = Integer.parseInt(args[i + 1]); break;
+                case "--csv": csvDirectory = Paths.get(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (csvDirectory != null) {
+            DatasetGenerator generator = new DatasetGenerator(seed, batch, Runtime.getRuntime().availableProcessors());
+            try {
+                generator.writeCsv(csvDirectory, products, employees);
+            } finally {
+                generator.close();
+            }
+        } else {
+            DatasetGenerator generator = forDatabase(config, seed, batch);
+            try {
+                generator.seedProducts(products);
+                generator.seedEmployees(employees);
+            } finally {
+                generator.close();
+                ConnectionPool.closePool();
+            }
+        }
+        Logger.flush(2000);
+    }
+
+    /**
+     * Creates a generator whose parallelism leaves one pooled connection to the rest of the server.
+     */
+    static DatasetGenerator forDatabase(DatabaseConfig config, long seed, int batchSize) {
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), config.getMaximumPoolSize() - 1);
+        return new DatasetGenerator(seed, batchSize, parallelism);
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        // Binds the row with the given index from the given parameter index, returns the next parameter index
+        int bind(PreparedStatement stmt, long index, int offset) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(long from, long to) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface CsvLine {
+        String format(long index);
+    }
+
+    // Carries a checked exception of a chunk out of the fork-join pool
+    private static final class ChunkFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ChunkFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final long chunkRows;
+        private final transient ChunkWriter writer;
+
+        ChunkTask(long from, long to, long chunkRows, ChunkWriter writer) {
+            this.from = from;
+            this.to = to;
+            this.chunkRows = chunkRows;
+            this.writer = writer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkRows) {
+                try {
+                    writer.write(from, to);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ChunkFailure(e);
+                }
+                return;
+            }
+            // Split on a chunk boundary so that chunks stay full
+            long middle = from + ((to - from) / chunkRows / 2) * chunkRows;
+            if (middle == from) {
+                middle += chunkRows;
+            }
+            invokeAll(new ChunkTask(from, middle, chunkRows, writer), new ChunkTask(middle, to, chunkRows, writer));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package server.util;
+
+import common.rmi.CompressingClientSocketFactory;
+import common.rmi.CompressingServerSocketFactory;
+import common.rmi.TransportOptions;
+import common.util.Logger;
+
+/**
+ * The RmiTransport class provides the socket factories the RMI services are exported with,
+ * built once from the rmi.transport settings of DatabaseConfig.
+ *
+ * When the transport is disabled both factories are null, which makes UnicastRemoteObject
+ * use the default RMI sockets.
+ */
+public final class RmiTransport {
+    private static final RmiTransport INSTANCE = new RmiTransport();
+
+    private final int port;
+    private final CompressingServerSocketFactory serverSocketFactory;
+    private final CompressingClientSocketFactory clientSocketFactory;
+
+    private RmiTransport() {
+        DatabaseConfig config = DatabaseConfig.getInstance();
+        port = config.getRmiServicePort();
+        if (!config.isRmiTransportEnabled()) {
+            serverSocketFactory = null;
+            clientSocketFactory = null;
+            return;
+        }
+        String compression = config.getRmiTransportCompression();
+        if (!compression.equals("none") && !compression.equals("deflate")) {
+            Logger.log("WARN", "Unsupported RMI compression '" + compression + "', using deflate", "system");
+            compression = "deflate";
+        }
+        TransportOptions options = new TransportOptions(compression.equals("deflate"),
+                config.getRmiTransportCompressionThreshold(), config.getRmiTransportCompressionLevel(),
+                config.isRmiTransportTcpNoDelay(), config.getRmiTransportBufferBytes());
+        serverSocketFactory = new CompressingServerSocketFactory(options);
+        clientSocketFactory = serverSocketFactory.clientSocketFactory();
+        Logger.log("SERVER", "RMI transport: " + options, "system");
+    }
+
+    public static RmiTransport getInstance() {
+        return INSTANCE;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // null when the transport is disabled
+    public CompressingServerSocketFactory getServerSocketFactory() {
+        return serverSocketFactory;
+    }
+
+    // null when the transport is disabled
+    public CompressingClientSocketFactory getClientSocketFactory() {
+        return clientSocketFactory;
+    }
+
+    public boolean isEnabled() {
+        return serverSocketFactory != null;
+    }
+}
@@ -0,0 +1,433 @@
+package server.util;
+
+import common.util.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The SchemaMigrator class brings the database schema up to date by applying versioned
+ * migration scripts, each at most once.
+ *
+ * Migrations are SQL scripts on the classpath, under the configured migration location,
+ * named "V&lt;version&gt;__&lt;description&gt;.sql" and listed in the location's
+ * "migrations.txt" index. Every applied migration is recorded in the schema_history table
+ * with the SHA-256 checksum of its script. On startup, the history is read in one query:
+ * recorded migrations are skipped after their checksum is verified, and the remaining ones
+ * are applied in version order. A script edited after it was applied fails the verification
+ * and stops the startup, since the database no longer matches what the script describes.
+ *
+ * Servers starting at the same time are serialized with a named MySQL lock, so a migration
+ * is never applied twice concurrently.
+ *
+ * MySQL commits DDL statements implicitly, so a migration that fails halfway is not rolled
+ * back and is not recorded; it runs again from its first statement on the next startup.
+ * Scripts should therefore use IF NOT EXISTS where MySQL supports it, and otherwise prepare
+ * the statement only when an information_schema query shows it is still needed.
+ *
+ * Index builds on large tables should be written as online DDL, e.g.
+ * "ALTER TABLE t ADD INDEX i (c), ALGORITHM=INPLACE, LOCK=NONE", so that the table stays
+ * readable and writable while the index is built. While such a statement runs, or an EXECUTE
+ * of a prepared statement (which may be a guarded online DDL statement), its progress is read
+ * from the performance schema (stage/innodb/alter% events) and logged periodically. The
+ * performance schema settings enabled for this are restored once the statement completes.
+ */
+public class SchemaMigrator {
+    private static final String INDEX_FILE = "migrations.txt";
+    private static final String LOCK_NAME = "inventory_db.schema_migration";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern ONLINE_DDL = Pattern.compile(
+            "^(ALTER\\s+TABLE|CREATE\\s+(UNIQUE\\s+|FULLTEXT\\s+|SPATIAL\\s+)?INDEX)\\b.*\\bALGORITHM\\s*=\\s*INPLACE\\b"
+                    + "|^EXECUTE\\s",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final String CREATE_HISTORY_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_history (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "script VARCHAR(255) NOT NULL, " +
+            "checksum CHAR(64) NOT NULL, " +
+            "execution_millis BIGINT NOT NULL, " +
+            "installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+    private final DatabaseConfig config;
+
+    public SchemaMigrator() {
+        this.config = DatabaseConfig.getInstance();
+    }
+
+    /**
+     * Applies the pending migrations.
+     *
+     * @return the number of migrations applied
+     * @throws SQLException if the history cannot be read, a checksum does not match or a migration fails
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = ConnectionPool.getDataSource().getConnection()) {
+            acquireLock(conn);
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_HISTORY_TABLE);
+                }
+                Map<Integer, String> applied = loadHistory(conn);
+                int count = 0;
+                for (Migration migration : migrations) {
+                    String checksum = applied.get(migration.version);
+                    if (checksum == null) {
+                        apply(conn, migration);
+                        count++;
+                    } else if (!checksum.equals(migration.checksum)) {
+                        throw new SQLException("Checksum mismatch for migration " + migration.script
+                                + ": applied " + checksum + ", found " + migration.checksum);
+                    }
+                }
+                Logger.log("DATABASE", count == 0
+                        ? "Schema is up to date at version " + latestVersion(migrations)
+                        : "Applied " + count + " migration(s), schema is at version " + latestVersion(migrations),
+                        "system");
+                return count;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        Logger.log("DATABASE", "Applying migration " + migration.script, "system");
+        long start = System.currentTimeMillis();
+        List<String> statements = SqlScriptSplitter.split(migration.sql);
+        try (Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < statements.size(); i++) {
+                String sql = statements.get(i);
+                try {
+                    if (ONLINE_DDL.matcher(sql).find()) {
+                        executeOnline(stmt, sql);
+                    } else {
+                        stmt.execute(sql);
+                    }
+                } catch (SQLException e) {
+                    Logger.log("ERROR", "Migration " + migration.script + " failed at statement " + (i + 1)
+                            + ": " + e.getMessage(), "system");
+                    throw e;
+                }
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+
+        String sql = "INSERT INTO schema_history (version, description, script, checksum, execution_millis) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setString(3, migration.script);
+            stmt.setString(4, migration.checksum);
+            stmt.setLong(5, elapsed);
+            stmt.executeUpdate();
+        }
+        Logger.log("DATABASE", "Applied migration " + migration.script + " in " + elapsed + " ms", "system");
+    }
+
+    /**
+     * Runs an online DDL statement while a background task logs its progress.
+     */
+    private void executeOnline(Statement stmt, String sql) throws SQLException {
+        long connectionId;
+        try (ResultSet rs = stmt.executeQuery("SELECT CONNECTION_ID()")) {
+            rs.next();
+            connectionId = rs.getLong(1);
+        }
+        StageInstrumentation instrumentation = StageInstrumentation.enable(stmt);
+        ProgressMonitor monitor = new ProgressMonitor(connectionId, firstLine(sql));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "migration-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getMigrationProgressIntervalMillis();
+        ScheduledFuture<?> task = scheduler.scheduleWithFixedDelay(monitor, interval, interval, TimeUnit.MILLISECONDS);
+        long start = System.currentTimeMillis();
+        try {
+            stmt.execute(sql);
+        } finally {
+            task.cancel(false);
+            scheduler.shutdownNow();
+            if (instrumentation != null) {
+                instrumentation.restore(stmt);
+            }
+        }
+        Logger.log("DATABASE", "Online DDL completed in " + (System.currentTimeMillis() - start) + " ms: "
+                + monitor.label, "system");
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, config.getMigrationLockTimeoutSeconds());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            Logger.log("ERROR", "Failed to release the schema migration lock: " + e.getMessage(), "system");
+        }
+    }
+
+    private Map<Integer, String> loadHistory(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private List<Migration> loadMigrations() throws SQLException {
+        String location = config.getMigrationLocation();
+        String index = readResource(location + "/" + INDEX_FILE);
+        if (index == null) {
+            throw new SQLException("Migration index not found: " + location + "/" + INDEX_FILE);
+        }
+        List<Migration> migrations = new ArrayList<>();
+        int previous = 0;
+        for (String line : index.split("\n")) {
+            String script = line.trim();
+            if (script.isEmpty() || script.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = SCRIPT_NAME.matcher(script);
+            if (!matcher.matches()) {
+                throw new SQLException("Invalid migration script name: " + script);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previous) {
+                throw new SQLException("Migration " + script + " is not listed in increasing version order");
+            }
+            String sql = readResource(location + "/" + script);
+            if (sql == null) {
+                throw new SQLException("Migration script not found: " + location + "/" + script);
+            }
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script, sql));
+            previous = version;
+        }
+        return migrations;
+    }
+
+    private String readResource(String name) {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(name)) {
+            if (is == null) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+                return reader.lines().collect(Collectors.joining("\n"));
+            }
+        } catch (IOException e) {
+            Logger.log("ERROR", "Failed to read migration resource " + name + ": " + e.getMessage(), "system");
+            return null;
+        }
+    }
+
+    private static int latestVersion(List<Migration> migrations) {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    private static String firstLine(String sql) {
+        int end = sql.indexOf('\n');
+        return end < 0 ? sql : sql.substring(0, end).trim() + " ...";
+    }
+
+    // Line endings are normalized so that a checkout with CRLF line endings has the same checksum
+    private static String checksum(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final String checksum;
+
+        Migration(int version, String description, String script, String sql) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.sql = sql;
+            this.checksum = checksum(sql);
+        }
+    }
+
+    /**
+     * The performance schema settings enabled to follow an online DDL statement. They apply to
+     * the whole MySQL server, so the instruments and consumers that were disabled are disabled
+     * again afterwards.
+     */
+    private static final class StageInstrumentation {
+        private static final String INSTRUMENTS = "FROM performance_schema.setup_instruments " +
+                "WHERE NAME LIKE 'stage/innodb/alter%' AND (ENABLED = 'NO' OR TIMED = 'NO')";
+        private static final String CONSUMERS = "FROM performance_schema.setup_consumers " +
+                "WHERE NAME LIKE 'events_stages_%' AND ENABLED = 'NO'";
+
+        // name, enabled, timed
+        private final List<String[]> instruments = new ArrayList<>();
+        // name
+        private final List<String> consumers = new ArrayList<>();
+
+        /**
+         * Enables the ALTER TABLE stages, which are not instrumented by default. This needs the
+         * UPDATE privilege on performance_schema; without it the statement simply runs without
+         * progress, and null is returned.
+         */
+        static StageInstrumentation enable(Statement stmt) {
+            StageInstrumentation saved = new StageInstrumentation();
+            try {
+                try (ResultSet rs = stmt.executeQuery("SELECT NAME, ENABLED, TIMED " + INSTRUMENTS)) {
+                    while (rs.next()) {
+                        saved.instruments.add(new String[] {rs.getString(1), rs.getString(2), rs.getString(3)});
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT NAME " + CONSUMERS)) {
+                    while (rs.next()) {
+                        saved.consumers.add(rs.getString(1));
+                    }
+                }
+                if (!saved.instruments.isEmpty()) {
+                    stmt.executeUpdate("UPDATE performance_schema.setup_instruments SET ENABLED = 'YES', TIMED = 'YES' " +
+                            "WHERE NAME LIKE 'stage/innodb/alter%'");
+                }
+                if (!saved.consumers.isEmpty()) {
+                    stmt.executeUpdate("UPDATE performance_schema.setup_consumers SET ENABLED = 'YES' " +
+                            "WHERE NAME LIKE 'events_stages_%'");
+                }
+                return saved;
+            } catch (SQLException e) {
+                Logger.log("DEBUG", "Could not enable ALTER TABLE stage instrumentation: " + e.getMessage(), "system");
+                // Whatever was enabled before the failure is put back
+                saved.restore(stmt);
+                return null;
+            }
+        }
+
+        void restore(Statement stmt) {
+            try {
+                restore(stmt.getConnection());
+            } catch (SQLException e) {
+                Logger.log("ERROR", "Failed to restore the performance schema settings: " + e.getMessage(), "system");
+            }
+        }
+
+        private void restore(Connection conn) {
+            try {
+                if (!instruments.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE performance_schema.setup_instruments SET ENABLED = ?, TIMED = ? WHERE NAME = ?")) {
+                        for (String[] instrument : instruments) {
+                            stmt.setString(1, instrument[1]);
+                            stmt.setString(2, instrument[2]);
+                            stmt.setString(3, instrument[0]);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                if (!consumers.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(
+                            "UPDATE performance_schema.setup_consumers SET ENABLED = 'NO' WHERE NAME = ?")) {
+                        for (String consumer : consumers) {
+                            stmt.setString(1, consumer);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+            } catch (SQLException e) {
+                Logger.log("ERROR", "Failed to restore the performance schema settings: " + e.getMessage(), "system");
+            }
+        }
+    }
+
+    /**
+     * Logs the progress of the online DDL statement running on another connection, as
+     * reported by the InnoDB ALTER TABLE stage events of the performance schema.
+     * Reporting stops quietly if the performance schema is unavailable.
+     */
+    private static final class ProgressMonitor implements Runnable {
+        private static final String PROGRESS_SQL =
+                "SELECT s.EVENT_NAME, s.WORK_COMPLETED, s.WORK_ESTIMATED " +
+                "FROM performance_schema.events_stages_current s " +
+                "JOIN performance_schema.threads t ON t.THREAD_ID = s.THREAD_ID " +
+                "WHERE t.PROCESSLIST_ID = ?";
+
+        private final long connectionId;
+        private final String label;
+        private boolean unavailable;
+
+        ProgressMonitor(long connectionId, String label) {
+            this.connectionId = connectionId;
+            this.label = label;
+        }
+
+        @Override
+        public void run() {
+            if (unavailable) {
+                return;
+            }
+            try (Connection conn = ConnectionPool.getDataSource().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(PROGRESS_SQL)) {
+                stmt.setLong(1, connectionId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        long completed = rs.getLong(2);
+                        long estimated = rs.getLong(3);
+                        String percent = estimated > 0 ? (100 * completed / estimated) + "%" : "n/a";
+                        Logger.log("DATABASE", "Online DDL progress " + percent + " ("
+                                + rs.getString(1) + "): " + label, "system");
+                    } else {
+                        Logger.log("DATABASE", "Online DDL running: " + label, "system");
+                    }
+                }
+            } catch (SQLException e) {
+                unavailable = true;
+                Logger.log("DEBUG", "Online DDL progress is not available: " + e.getMessage(), "system");
+            }
+        }
+    }
+}
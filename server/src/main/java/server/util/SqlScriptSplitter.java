@@ -0,0 +1,121 @@
+package server.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SqlScriptSplitter class splits an SQL script into the statements it contains,
+ * following the lexical rules of the MySQL command-line client rather than splitting
+ * on every semicolon.
+ *
+ * A statement ends at a delimiter (";" unless changed by a DELIMITER line) that is not
+ * inside a quoted string ('...', "..." or `...`), nor inside a comment.
+ * "-- " and "#" line comments and C-style block comments are removed from the statements,
+ * except MySQL executable comments (block comments opened with "/*!"), which are kept as
+ * part of the statement.
+ * Backslash escapes and doubled quotes inside strings are honoured.
+ * Statements are returned trimmed and without their delimiter; empty statements are dropped.
+ */
+public final class SqlScriptSplitter {
+    private static final String DEFAULT_DELIMITER = ";";
+
+    private SqlScriptSplitter() {
+    }
+
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String delimiter = DEFAULT_DELIMITER;
+        int length = script.length();
+        int i = 0;
+        boolean lineStart = true;
+
+        while (i < length) {
+            char c = script.charAt(i);
+
+            // DELIMITER is a client directive, only recognized at the start of a line
+            if (lineStart && startsWithIgnoreCase(script, i, "DELIMITER")
+                    && i + 9 < length && Character.isWhitespace(script.charAt(i + 9))
+                    && current.toString().isBlank()) {
+                int end = lineEnd(script, i);
+                delimiter = script.substring(i + 9, end).trim();
+                if (delimiter.isEmpty()) {
+                    throw new IllegalArgumentException("DELIMITER without a delimiter near offset " + i);
+                }
+                current.setLength(0);
+                i = end;
+                continue;
+            }
+            if (!Character.isWhitespace(c)) {
+                lineStart = false;
+            }
+
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = quotedEnd(script, i, c);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '#' || (c == '-' && script.startsWith("--", i)
+                    && (i + 2 == length || Character.isWhitespace(script.charAt(i + 2))))) {
+                i = lineEnd(script, i);
+            } else if (c == '/' && script.startsWith("/*", i)) {
+                int end = script.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                if (script.startsWith("/*!", i)) {
+                    current.append(script, i, end);
+                } else {
+                    current.append(' ');
+                }
+                i = end;
+            } else if (script.startsWith(delimiter, i)) {
+                add(statements, current);
+                i += delimiter.length();
+            } else {
+                current.append(c);
+                if (c == '\n') {
+                    lineStart = true;
+                }
+                i++;
+            }
+        }
+        add(statements, current);
+        return statements;
+    }
+
+    private static void add(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    // Index just after the closing quote, or the end of the script if the string is unterminated
+    private static int quotedEnd(String script, int start, char quote) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2; // Doubled quote
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    // Index of the newline ending the line, or the end of the script
+    private static int lineEnd(String script, int start) {
+        int end = script.indexOf('\n', start);
+        return end < 0 ? script.length() : end;
+    }
+
+    private static boolean startsWithIgnoreCase(String script, int offset, String prefix) {
+        return script.regionMatches(true, offset, prefix, 0, prefix.length());
+    }
+}
@@ -0,0 +1,419 @@
+package server.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The WriteAheadLog class is an append-only, memory-mapped log of opaque records, used to
+ * accept writes durably while they wait to be applied to the database.
+ *
+ * Records are appended to fixed-size segment files ("wal-&lt;first sequence&gt;.log") and
+ * numbered with an increasing sequence. Each record is laid out as:
+ * length (int), CRC32 of the payload (int), sequence (long), payload. The length is
+ * written last, so a record that was only partly written is detected on recovery.
+ *
+ * An append returns once its record has been forced to disk. Concurrent appenders share
+ * the forces: one of them forces the segment on behalf of every record written so far,
+ * while the others wait for it, so the number of fsyncs drops as the load grows.
+ *
+ * Durable records are handed to a consumer through {@link #takeBatch(int, long)} in
+ * sequence order. Once the consumer has applied them, it calls {@link #markApplied(long)},
+ * which persists the checkpoint and deletes the segments that are entirely applied.
+ * On startup, the records after the checkpoint are read back and handed out again.
+ *
+ * The number of records appended but not yet applied is bounded: when the bound is
+ * reached, appends wait for applied records, and fail if none are applied in time.
+ *
+ * An append that fails after its record was written (the force failed, or the caller was
+ * interrupted while waiting for it) cancels the record: it is never handed out, and its
+ * sequence is negated in the segment so that recovery skips it too.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String ID_FILE = "wal.id";
+    private static final int HEADER_BYTES = 16;
+    private static final long APPEND_TIMEOUT_MILLIS = 5000;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final String id;
+    private final Semaphore outstanding;
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final ArrayDeque<Record> ready = new ArrayDeque<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long nextSequence;
+    private long writtenSequence;
+    private long syncedSequence;
+    private long appliedSequence;
+    private long recoveredSequence;
+    private boolean syncing;
+    private boolean closed;
+
+    /**
+     * Opens the log in the given directory, creating it if needed, and recovers the
+     * records appended after the last checkpoint.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentBytes the size of each segment file
+     * @param maxOutstanding the maximum number of records appended but not yet applied
+     * @throws IOException if the log cannot be opened or recovered
+     */
+    public WriteAheadLog(Path directory, int segmentBytes, int maxOutstanding) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        this.id = readOrCreateId();
+        this.appliedSequence = readCheckpoint();
+        long unapplied = recover();
+        // Negative when more records were recovered than the bound: appends wait for them to be applied
+        this.outstanding = new Semaphore((int) Math.max(Integer.MIN_VALUE / 2, maxOutstanding - unapplied));
+    }
+
+    /**
+     * Returns the identifier of this log directory. It changes when the directory is
+     * recreated, which restarts the sequence numbers.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the sequence of the last record appended when the log was opened, not counting
+     * cancelled records. Every record recovered on startup has a sequence at or below this value.
+     */
+    public synchronized long getRecoveredSequence() {
+        return recoveredSequence;
+    }
+
+    /**
+     * Returns the sequence of the last record marked as applied.
+     */
+    public synchronized long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Appends a record and waits until it is durable.
+     *
+     * @param payload the record content
+     * @return the sequence assigned to the record
+     * @throws IOException if the log is full, closed, or the record cannot be written
+     */
+    public long append(byte[] payload) throws IOException {
+        if (payload.length + HEADER_BYTES > segmentBytes) {
+            throw new IOException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        try {
+            if (!outstanding.tryAcquire(APPEND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Write-ahead log is full: too many writes waiting to be applied");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for write-ahead log space", e);
+        }
+
+        long sequence;
+        Record record;
+        synchronized (this) {
+            if (closed) {
+                outstanding.release();
+                throw new IOException("Write-ahead log is closed");
+            }
+            if (position + HEADER_BYTES + payload.length > segmentBytes) {
+                rollSegment();
+            }
+            sequence = nextSequence++;
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putLong(position + 8, sequence);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.putInt(position, payload.length);
+            record = new Record(sequence, payload, position);
+            position += HEADER_BYTES + payload.length;
+            writtenSequence = sequence;
+            ready.addLast(record);
+        }
+        try {
+            awaitDurable(sequence);
+        } catch (IOException | RuntimeException e) {
+            if (cancel(record)) {
+                throw e;
+            }
+            // Forced by another appender in the meantime: the record is durable after all
+        }
+        return sequence;
+    }
+
+    /**
+     * Returns the next durable records that have not been handed out yet, in sequence order.
+     *
+     * @param maxRecords the maximum number of records to return
+     * @param timeoutMillis how long to wait when no record is available
+     * @return the records, or an empty list if none became available in time
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public synchronized List<Record> takeBatch(int maxRecords, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!closed && (ready.isEmpty() || ready.peekFirst().getSequence() > syncedSequence)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            wait(remaining);
+        }
+        List<Record> batch = new ArrayList<>(Math.min(maxRecords, ready.size()));
+        while (batch.size() < maxRecords && !ready.isEmpty() && ready.peekFirst().getSequence() <= syncedSequence) {
+            batch.add(ready.pollFirst());
+        }
+        return batch;
+    }
+
+    /**
+     * Records that every record up to the given sequence has been applied. The checkpoint is
+     * persisted, the corresponding space is released and fully applied segments are deleted.
+     *
+     * @param sequence the sequence of the last applied record
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void markApplied(long sequence) throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        int released;
+        synchronized (this) {
+            if (sequence <= appliedSequence) {
+                return;
+            }
+            writeCheckpoint(sequence);
+            released = (int) (sequence - appliedSequence);
+            appliedSequence = sequence;
+            // A segment is obsolete once the records of the segment after it start past the checkpoint
+            Long first = segments.firstKey();
+            Map.Entry<Long, Path> next = segments.higherEntry(first);
+            while (next != null && next.getKey() - 1 <= sequence) {
+                obsolete.add(segments.remove(first));
+                first = next.getKey();
+                next = segments.higherEntry(first);
+            }
+        }
+        outstanding.release(released);
+        for (Path segment : obsolete) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        channel.close();
+        notifyAll();
+    }
+
+    /**
+     * Withdraws a record whose append failed, unless it has become durable in the meantime.
+     * A record not durable yet is still in the current segment and has not been handed out.
+     * Its space is released with the next applied records, whose range covers its sequence.
+     *
+     * @return true if the record was cancelled, false if it is durable
+     */
+    private synchronized boolean cancel(Record record) {
+        if (syncedSequence >= record.getSequence()) {
+            return false;
+        }
+        ready.remove(record);
+        buffer.putLong(record.offset + 8, -record.getSequence());
+        return true;
+    }
+
+    private void awaitDurable(long sequence) throws IOException {
+        while (true) {
+            MappedByteBuffer toForce;
+            long target;
+            synchronized (this) {
+                while (syncedSequence < sequence && syncing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the write-ahead log", e);
+                    }
+                }
+                if (syncedSequence >= sequence) {
+                    return;
+                }
+                syncing = true;
+                toForce = buffer;
+                target = writtenSequence;
+            }
+            boolean forced = false;
+            try {
+                toForce.force();
+                forced = true;
+            } finally {
+                synchronized (this) {
+                    syncing = false;
+                    if (forced) {
+                        syncedSequence = Math.max(syncedSequence, target);
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    // Called with the monitor held: forces the full segment and starts a new one
+    private void rollSegment() throws IOException {
+        buffer.force();
+        channel.close();
+        syncedSequence = writtenSequence;
+        notifyAll();
+        openSegment(nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        segments.put(firstSequence, path);
+    }
+
+    // Returns the number of sequences after the checkpoint, including cancelled records
+    private long recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(f -> {
+                        String name = f.getFileName().toString();
+                        segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), f);
+                    });
+        }
+
+        long lastSequence = appliedSequence;
+        long lastLiveSequence = appliedSequence;
+        if (segments.isEmpty()) {
+            openSegment(lastSequence + 1);
+        } else {
+            for (Map.Entry<Long, Path> segment : new ArrayList<>(segments.entrySet())) {
+                boolean last = segment.getKey().equals(segments.lastKey());
+                channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+                position = 0;
+                long expected = segment.getKey();
+                while (position + HEADER_BYTES <= segmentBytes) {
+                    int length = buffer.getInt(position);
+                    if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+                        break;
+                    }
+                    long sequence = buffer.getLong(position + 8);
+                    byte[] payload = new byte[length];
+                    buffer.get(position + HEADER_BYTES, payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    boolean cancelled = sequence == -expected;
+                    if ((sequence != expected && !cancelled) || (int) crc.getValue() != buffer.getInt(position + 4)) {
+                        // Torn record: clear the tail so that it is never mistaken for a record
+                        for (int i = position; i < segmentBytes; i++) {
+                            buffer.put(i, (byte) 0);
+                        }
+                        break;
+                    }
+                    if (!cancelled && expected > appliedSequence) {
+                        ready.addLast(new Record(expected, payload, -1));
+                        lastLiveSequence = Math.max(lastLiveSequence, expected);
+                    }
+                    lastSequence = Math.max(lastSequence, expected);
+                    expected++;
+                    position += HEADER_BYTES + length;
+                }
+                if (!last) {
+                    channel.close();
+                }
+            }
+        }
+        nextSequence = lastSequence + 1;
+        recoveredSequence = lastLiveSequence;
+        writtenSequence = lastSequence;
+        syncedSequence = lastSequence;
+        return lastSequence - appliedSequence;
+    }
+
+    private String readOrCreateId() throws IOException {
+        Path file = directory.resolve(ID_FILE);
+        if (Files.exists(file)) {
+            return Files.readString(file, StandardCharsets.UTF_8).trim();
+        }
+        String newId = UUID.randomUUID().toString();
+        Files.writeString(file, newId, StandardCharsets.UTF_8);
+        return newId;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+            out.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A record read from or appended to the log.
+     */
+    public static final class Record {
+        private final long sequence;
+        private final byte[] payload;
+        private final int offset; // in the current segment, for appended records
+
+        private Record(long sequence, byte[] payload, int offset) {
+            this.sequence = sequence;
+            this.payload = payload;
+            this.offset = offset;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+-- Highest write-ahead log sequence applied to the database, per log directory.
+-- Updated in the same transaction as the writes it covers, so replayed entries are applied once.
+CREATE TABLE IF NOT EXISTS wal_checkpoint (
+    wal_id VARCHAR(36) PRIMARY KEY,
+    last_sequence BIGINT NOT NULL
+);
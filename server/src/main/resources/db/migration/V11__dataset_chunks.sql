@@ -0,0 +1,8 @@
+-- Index ranges of the rows written by DatasetGenerator, one per committed chunk and recorded
+-- in the same transaction, so that a rerun after a partial failure only writes the missing ranges.
+CREATE TABLE IF NOT EXISTS dataset_chunks (
+    table_name VARCHAR(64) NOT NULL,
+    first_index BIGINT NOT NULL,
+    end_index BIGINT NOT NULL,
+    PRIMARY KEY (table_name, first_index)
+);
@@ -0,0 +1,12 @@
+-- Serves category searches sorted by name without a filesort.
+-- Built online: products stays readable and writable while the index is built.
+-- MySQL has no ADD INDEX IF NOT EXISTS: the statement is only prepared when the index is
+-- missing, so that a run interrupted after the index was built can be repeated.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'products'
+                 AND index_name = 'idx_products_category_name') = 0,
+    'ALTER TABLE products ADD INDEX idx_products_category_name (category, name), ALGORITHM=INPLACE, LOCK=NONE',
+    'DO 0');
+PREPARE add_index FROM @ddl;
+EXECUTE add_index;
+DEALLOCATE PREPARE add_index;
@@ -0,0 +1,11 @@
+-- Serves product searches by name.
+-- Built online, and only when missing: MySQL has no ADD INDEX IF NOT EXISTS, and the
+-- index may predate this migration on databases where it was created by hand.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'products'
+                 AND index_name = 'idx_products_name') = 0,
+    'ALTER TABLE products ADD INDEX idx_products_name (name), ALGORITHM=INPLACE, LOCK=NONE',
+    'DO 0');
+PREPARE add_index FROM @ddl;
+EXECUTE add_index;
+DEALLOCATE PREPARE add_index;
@@ -0,0 +1,11 @@
+-- Covers the login lookup of EmployeeDAO.authenticate, which then never reads the table rows.
+-- Built online, and only when missing: MySQL has no ADD INDEX IF NOT EXISTS, and the
+-- index may predate this migration on databases where it was created by hand.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'employees'
+                 AND index_name = 'idx_employees_auth') = 0,
+    'ALTER TABLE employees ADD INDEX idx_employees_auth (username, password, role, fullname), ALGORITHM=INPLACE, LOCK=NONE',
+    'DO 0');
+PREPARE add_index FROM @ddl;
+EXECUTE add_index;
+DEALLOCATE PREPARE add_index;
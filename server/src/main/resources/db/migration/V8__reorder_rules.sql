@@ -0,0 +1,7 @@
+-- Per-product reorder points, read joined with products by the low-stock alerts.
+CREATE TABLE IF NOT EXISTS reorder_rules (
+    product_id INT PRIMARY KEY,
+    reorder_point INT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
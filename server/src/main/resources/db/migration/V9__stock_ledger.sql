@@ -0,0 +1,24 @@
+-- Append-only stock movement ledger, range-partitioned by month on created_at.
+-- Monthly partitions are split off p_future ahead of time by the ledger maintenance task.
+CREATE TABLE IF NOT EXISTS stock_movements (
+    id BIGINT AUTO_INCREMENT,
+    product_id INT NOT NULL,
+    delta INT NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    username VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    INDEX idx_movements_product (product_id, id)
+)
+PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- Periodic per-product quantity snapshots, last_movement_id is the newest ledger entry included
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    product_id INT NOT NULL,
+    taken_at TIMESTAMP NOT NULL,
+    quantity INT NOT NULL,
+    last_movement_id BIGINT NOT NULL,
+    PRIMARY KEY (product_id, taken_at)
+);
@@ -0,0 +1,100 @@
+package server.dao.embedded;
+
+import common.models.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedProductStoreTest {
+    @TempDir
+    Path directory;
+
+    private RecordLog productLog;
+    private RecordLog ledgerLog;
+    private EmbeddedStockLedgerStore ledger;
+    private EmbeddedProductStore products;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        productLog.close();
+        ledgerLog.close();
+    }
+
+    @Test
+    void idsOfDeletedProductsAreNotReusedAfterCompaction() throws Exception {
+        open();
+        products.addProduct(product("kept", 1), "alice");
+        int lastDeleted = 0;
+        for (int i = 0; i < 600; i++) {
+            Product removed = product("removed " + i, 3);
+            products.addProduct(removed, "alice");
+            products.deleteProduct(removed.getId(), "alice");
+            lastDeleted = removed.getId();
+        }
+        products.compact();
+        assertTrue(productLog.getRecordCount() <= 2, "the log was not compacted");
+        reopen();
+
+        Product added = product("new", 5);
+        products.addProduct(added, "bob");
+        assertEquals(lastDeleted + 1, added.getId());
+        assertEquals(1, ledger.getMovements(added.getId(), 0).size());
+        assertEquals(2, products.size());
+
+        // The next ID survives a second compaction, with no add in between
+        products.deleteProduct(added.getId(), "bob");
+        products.compact();
+        reopen();
+        Product again = product("again", 1);
+        products.addProduct(again, "bob");
+        assertEquals(added.getId() + 1, again.getId());
+    }
+
+    @Test
+    void changesAreUndoneWhenTheirStockMovementCannotBeRecorded() throws Exception {
+        open();
+        Product product = product("widget", 10);
+        products.addProduct(product, "alice");
+        ledgerLog.close();
+
+        Product update = product("widget", 25);
+        update.setId(product.getId());
+        assertThrows(SQLException.class, () -> products.updateProduct(update, "alice"));
+        assertThrows(SQLException.class, () -> products.deleteProduct(product.getId(), "alice"));
+        assertThrows(SQLException.class, () -> products.addProduct(product("gadget", 4), "alice"));
+        assertEquals(10, products.getProductById(product.getId()).getQuantity());
+        assertEquals(1, products.size());
+
+        reopen();
+        assertEquals(10, products.getProductById(product.getId()).getQuantity());
+        assertEquals(1, products.size());
+        assertNull(products.getProductById(product.getId() + 1));
+    }
+
+    private void open() throws IOException {
+        productLog = new RecordLog(directory.resolve("products.log"));
+        ledgerLog = new RecordLog(directory.resolve("stock_movements.log"));
+        ledger = new EmbeddedStockLedgerStore(ledgerLog);
+        products = new EmbeddedProductStore(productLog, ledger);
+    }
+
+    private void reopen() throws IOException {
+        productLog.close();
+        ledgerLog.close();
+        open();
+    }
+
+    private static Product product(String name, int quantity) {
+        return new Product(name, "tools", quantity, new BigDecimal("2.50"));
+    }
+}
@@ -0,0 +1,250 @@
+package server.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import server.dao.ProductStore;
+import server.dao.ReorderRuleStore;
+import server.util.WriteAheadLog;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that DurableWriteQueue rejects a failing write alone instead of retrying its batch
+ * forever. The writes go through a real log; the database is replaced by fakes.
+ */
+class DurableWriteQueueTest {
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog wal;
+    private DurableWriteQueue queue;
+    private final FakeBatches batches = new FakeBatches();
+    private final RecordingListener listener = new RecordingListener();
+    private final List<Integer> deleted = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        queue.close(1000);
+    }
+
+    @Test
+    void failingAndUndecodableWritesAreRejectedAndTheRestOfTheBatchIsApplied() throws Exception {
+        open(id -> {
+            if (id == 13) {
+                throw new IllegalStateException("product 13 is broken");
+            }
+        });
+        queue.submit(DurableWriteQueue.Write.deleteProduct(1, "alice"));
+        queue.submit(DurableWriteQueue.Write.deleteProduct(13, "alice"));
+        wal.append(new byte[]{99});
+        queue.submit(DurableWriteQueue.Write.deleteProduct(2, "alice"));
+
+        queue.replay(0);
+        listener.awaitOutcomes(4);
+
+        assertEquals(List.of(1, 2), deleted);
+        assertEquals(2, listener.applied.size());
+        assertEquals(2, listener.rejected.size());
+        assertEquals(13, listener.rejected.get(0).write.productId);
+        assertTrue(listener.rejected.get(0).cause instanceof IllegalStateException);
+        assertNull(listener.rejected.get(1).write);
+        assertTrue(listener.rejected.get(1).cause instanceof IOException);
+        assertEquals(2, batches.rollbacks.get());
+        assertEquals(4L, batches.checkpoint);
+        assertEquals(4L, wal.getAppliedSequence());
+    }
+
+    @Test
+    void transientFailuresRetryTheBatch() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        open(id -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SQLTransientConnectionException("connection lost", "08S01");
+            }
+        });
+        queue.submit(DurableWriteQueue.Write.deleteProduct(7, "bob"));
+
+        queue.replay(0);
+        listener.awaitOutcomes(1);
+
+        assertEquals(List.of(7), deleted);
+        assertEquals(1, listener.applied.size());
+        assertTrue(listener.rejected.isEmpty());
+        assertEquals(1L, batches.checkpoint);
+    }
+
+    @Test
+    void writesAlreadyCheckpointedAreNotAppliedAgain() throws Exception {
+        open(id -> { });
+        queue.submit(DurableWriteQueue.Write.deleteProduct(1, "alice"));
+        queue.submit(DurableWriteQueue.Write.deleteProduct(2, "alice"));
+        // Applied and checkpointed in the database before a crash, but not in the log
+        batches.checkpoint = 1;
+
+        queue.replay(0);
+        listener.awaitOutcomes(1);
+
+        assertEquals(List.of(2), deleted);
+        assertEquals(2L, batches.checkpoint);
+    }
+
+    @Test
+    void writesAreReportedOnceWhenMarkingThemAppliedFails() throws Exception {
+        AtomicInteger marks = new AtomicInteger();
+        open(new WriteAheadLog(directory, 4096, 64) {
+            @Override
+            public void markApplied(long sequence) throws IOException {
+                if (marks.incrementAndGet() == 1) {
+                    throw new IOException("disk full");
+                }
+                super.markApplied(sequence);
+            }
+        }, id -> { });
+        queue.submit(DurableWriteQueue.Write.deleteProduct(3, "carol"));
+
+        queue.replay(0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (wal.getAppliedSequence() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1L, wal.getAppliedSequence());
+        assertEquals(2, marks.get());
+        assertEquals(List.of(3), deleted);
+        assertEquals(1, listener.applied.size());
+        assertTrue(listener.rejected.isEmpty());
+    }
+
+    private void open(Deletion deletion) throws IOException {
+        open(new WriteAheadLog(directory, 4096, 64), deletion);
+    }
+
+    private void open(WriteAheadLog log, Deletion deletion) {
+        wal = log;
+        ProductStore products = (ProductStore) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProductStore.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("deleteProduct")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    deletion.delete((Integer) args[0]);
+                    deleted.add((Integer) args[0]);
+                    return null;
+                });
+        ReorderRuleStore rules = (ReorderRuleStore) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ReorderRuleStore.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        queue = new DurableWriteQueue(wal, products, rules, listener, 16, batches);
+    }
+
+    @FunctionalInterface
+    private interface Deletion {
+        void delete(int productId) throws SQLException;
+    }
+
+    // Stands in for the database transaction; the checkpoint only advances on commit
+    private static final class FakeBatches implements DurableWriteQueue.BatchFactory {
+        private volatile long checkpoint;
+        private final AtomicInteger rollbacks = new AtomicInteger();
+
+        @Override
+        public DurableWriteQueue.Batch begin() {
+            return new DurableWriteQueue.Batch() {
+                private long advanced = -1;
+
+                @Override
+                public long lockCheckpoint(String walId) {
+                    return checkpoint;
+                }
+
+                @Override
+                public void advanceCheckpoint(String walId, long sequence) {
+                    advanced = sequence;
+                }
+
+                @Override
+                public Savepoint setSavepoint(String name) {
+                    return new Savepoint() {
+                        @Override
+                        public int getSavepointId() throws SQLException {
+                            throw new SQLException("Named savepoint");
+                        }
+
+                        @Override
+                        public String getSavepointName() {
+                            return name;
+                        }
+                    };
+                }
+
+                @Override
+                public void rollbackTo(Savepoint savepoint) {
+                    rollbacks.incrementAndGet();
+                }
+
+                @Override
+                public void releaseSavepoint(Savepoint savepoint) {
+                }
+
+                @Override
+                public void commit() {
+                    if (advanced >= 0) {
+                        checkpoint = advanced;
+                    }
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    private static final class Outcome {
+        private final DurableWriteQueue.Write write;
+        private final Exception cause;
+
+        private Outcome(DurableWriteQueue.Write write, Exception cause) {
+            this.write = write;
+            this.cause = cause;
+        }
+    }
+
+    private static final class RecordingListener implements DurableWriteQueue.Listener {
+        private final List<Outcome> applied = Collections.synchronizedList(new ArrayList<>());
+        private final List<Outcome> rejected = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onApplied(DurableWriteQueue.Write write, Object result) {
+            applied.add(new Outcome(write, null));
+        }
+
+        @Override
+        public void onRejected(DurableWriteQueue.Write write, Exception cause) {
+            rejected.add(new Outcome(write, cause));
+        }
+
+        private void awaitOutcomes(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (applied.size() + rejected.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, applied.size() + rejected.size(), "writes reported by the queue");
+        }
+    }
+}
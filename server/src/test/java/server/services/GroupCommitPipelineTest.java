@@ -0,0 +1,90 @@
+package server.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that no caller of GroupCommitPipeline waits forever when the writer stops. None of
+ * these writes reaches the database: they fail before their group is committed.
+ */
+class GroupCommitPipelineTest {
+    private GroupCommitPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close(1000);
+    }
+
+    @Test
+    void writesOfAGroupBeingFilledFailWhenTheWriterIsInterrupted() throws Exception {
+        // A long delay keeps the writes in the group being filled
+        pipeline = new GroupCommitPipeline(64, 60_000, 16);
+        List<CompletableFuture<Object>> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            callers.add(submitAsync());
+        }
+        awaitTakenIntoGroup(callers.size());
+        pipeline.writerThread().interrupt();
+
+        for (CompletableFuture<Object> caller : callers) {
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> caller.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause().getCause() instanceof SQLException,
+                    "expected an SQLException, got " + failure.getCause());
+        }
+        pipeline.writerThread().join(5000);
+        assertThrows(SQLException.class, () -> pipeline.submit(() -> null));
+    }
+
+    @Test
+    void writesSubmittedAfterCloseAreRefused() {
+        pipeline = new GroupCommitPipeline(64, 2, 16);
+        pipeline.close(1000);
+        assertThrows(SQLException.class, () -> pipeline.submit(() -> null));
+    }
+
+    @Test
+    void writesSubmittedAfterTheWriterStoppedAreRefused() throws Exception {
+        pipeline = new GroupCommitPipeline(1, 60_000, 16);
+        pipeline.writerThread().interrupt();
+        pipeline.writerThread().join(5000);
+        // Submitted after the writer stopped: refused rather than queued forever
+        CompletableFuture<Object> late = submitAsync();
+        assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+    }
+
+    private CompletableFuture<Object> submitAsync() {
+        GroupCommitPipeline target = pipeline;
+        CompletableFuture<Object> caller = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                caller.complete(target.submit(() -> "written"));
+            } catch (Throwable t) {
+                caller.completeExceptionally(new RuntimeException(t));
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return caller;
+    }
+
+    private void awaitTakenIntoGroup(int writes) throws InterruptedException {
+        // The callers enqueue asynchronously; give them time, then wait for the queue to empty
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Thread.sleep(200);
+        while (pipeline.queuedWrites() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(pipeline.queuedWrites() == 0, "the writer did not take the " + writes + " writes");
+    }
+}
@@ -0,0 +1,65 @@
+package server.services;
+
+import common.models.CategoryStats;
+import common.models.InventoryStats;
+import common.models.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryStatsAggregatorTest {
+    private final InventoryStatsAggregator aggregator = new InventoryStatsAggregator();
+
+    @Test
+    void aDeletionAppliedBeforeItsAdditionCancelsOut() {
+        aggregator.load(List.of(new CategoryStats("tools", 1, 5, new BigDecimal("10.00"))));
+        Product hammer = product(2, "tools", 3, "4.00");
+
+        aggregator.onProductDeleted(hammer);
+        aggregator.onProductAdded(hammer);
+
+        InventoryStats stats = aggregator.snapshot();
+        assertEquals(1, stats.getCategories().size());
+        CategoryStats tools = stats.getCategories().get(0);
+        assertEquals(1, tools.getProductCount());
+        assertEquals(5, tools.getTotalUnits());
+        assertEquals(0, new BigDecimal("10.00").compareTo(tools.getStockValue()));
+    }
+
+    @Test
+    void aCategoryIsOnlyListedWhileItHoldsProducts() {
+        Product saw = product(1, "tools", 2, "7.50");
+
+        aggregator.onProductDeleted(saw);
+        assertTrue(aggregator.snapshot().getCategories().isEmpty());
+
+        aggregator.onProductAdded(saw);
+        assertTrue(aggregator.snapshot().getCategories().isEmpty());
+
+        aggregator.onProductAdded(saw);
+        assertEquals(1, aggregator.snapshot().getProductCount());
+        assertEquals(2, aggregator.snapshot().getTotalUnits());
+    }
+
+    @Test
+    void anUpdateMovesTheProductBetweenCategories() {
+        Product before = product(1, "tools", 4, "2.00");
+        Product after = product(1, "garden", 6, "2.00");
+        aggregator.onProductAdded(before);
+
+        aggregator.onProductUpdated(before, after);
+
+        List<CategoryStats> categories = aggregator.snapshot().getCategories();
+        assertEquals(1, categories.size());
+        assertEquals("garden", categories.get(0).getCategory());
+        assertEquals(6, categories.get(0).getTotalUnits());
+    }
+
+    private static Product product(int id, String category, int quantity, String price) {
+        return new Product(id, "product " + id, category, quantity, new BigDecimal(price), null);
+    }
+}
@@ -0,0 +1,125 @@
+package server.services;
+
+import common.models.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks when ProductQueryCache stores a result that raced with product changes, and which
+ * cached results a change evicts.
+ */
+class ProductQueryCacheTest {
+    private final AtomicLong now = new AtomicLong();
+    private final ProductQueryCache cache = new ProductQueryCache(16 * 1024 * 1024, 30_000, now::get);
+
+    @Test
+    void aResultIsNotStoredWhenAChangeDuringItsQueryCouldAffectIt() {
+        long started = cache.mutationCount();
+        cache.onProductAdded(product(1, "hammer", "tools", 5));
+
+        cache.put(ProductQueryCache.byCategory("tools"), List.of(), started);
+
+        assertNull(cache.get(ProductQueryCache.byCategory("tools")));
+    }
+
+    @Test
+    void aResultIsStoredWhenTheChangesDuringItsQueryCannotAffectIt() {
+        List<Product> tools = List.of(product(1, "hammer", "tools", 5));
+        long started = cache.mutationCount();
+        cache.onProductAdded(product(2, "rake", "garden", 3));
+        cache.onProductUpdated(product(2, "rake", "garden", 3), product(2, "rake", "garden", 4));
+
+        cache.put(ProductQueryCache.byCategory("tools"), tools, started);
+
+        assertSame(tools, cache.get(ProductQueryCache.byCategory("TOOLS")));
+    }
+
+    @Test
+    void aResultIsNotStoredAfterAChangeWhosePreviousStateIsUnknown() {
+        long started = cache.mutationCount();
+        cache.onProductUpdated(null, product(2, "rake", "garden", 3));
+
+        cache.put(ProductQueryCache.byCategory("tools"), List.of(), started);
+
+        assertNull(cache.get(ProductQueryCache.byCategory("tools")));
+    }
+
+    @Test
+    void aResultIsNotStoredWhenTooManyChangesHappenedDuringItsQuery() {
+        long started = cache.mutationCount();
+        for (int i = 0; i < 1000; i++) {
+            cache.onProductAdded(product(100 + i, "seed " + i, "garden", 1));
+        }
+
+        cache.put(ProductQueryCache.byCategory("tools"), List.of(), started);
+
+        assertNull(cache.get(ProductQueryCache.byCategory("tools")));
+    }
+
+    @Test
+    void aChangeEvictsOnlyTheResultsItCouldAffect() {
+        Product hammer = product(1, "hammer", "tools", 5);
+        cache.put(ProductQueryCache.all(), List.of(hammer), cache.mutationCount());
+        cache.put(ProductQueryCache.byCategory("tools"), List.of(hammer), cache.mutationCount());
+        cache.put(ProductQueryCache.byCategory("garden"), List.of(), cache.mutationCount());
+        cache.put(ProductQueryCache.byQuantity(5), List.of(hammer), cache.mutationCount());
+
+        cache.onProductUpdated(hammer, product(1, "hammer", "tools", 6));
+
+        assertNull(cache.get(ProductQueryCache.all()));
+        assertNull(cache.get(ProductQueryCache.byCategory("tools")));
+        assertNull(cache.get(ProductQueryCache.byQuantity(5)));
+        assertNotNull(cache.get(ProductQueryCache.byCategory("garden")));
+    }
+
+    @Test
+    void aChangeWhosePreviousStateIsUnknownEvictsTheResultsHoldingTheProduct() {
+        Product hammer = product(1, "hammer", "tools", 5);
+        cache.put(ProductQueryCache.byName("ham"), List.of(hammer), cache.mutationCount());
+        cache.put(ProductQueryCache.byName("saw"), List.of(), cache.mutationCount());
+
+        // Renamed outside the name of either query, from a state the cache never saw
+        cache.onProductUpdated(null, product(1, "mallet", "tools", 5));
+
+        assertNull(cache.get(ProductQueryCache.byName("ham")));
+        assertNotNull(cache.get(ProductQueryCache.byName("saw")));
+    }
+
+    @Test
+    void resultsExpireAfterTheirMaximumAge() {
+        List<Product> tools = List.of(product(1, "hammer", "tools", 5));
+        cache.put(ProductQueryCache.byCategory("tools"), tools, cache.mutationCount());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertSame(tools, cache.get(ProductQueryCache.byCategory("tools")));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.get(ProductQueryCache.byCategory("tools")));
+    }
+
+    @Test
+    void aNullTermIsAKeyOfItsOwn() {
+        ProductQueryCache.Query nullName = ProductQueryCache.byName(null);
+        assertEquals(nullName, ProductQueryCache.byName(null));
+        assertNotEquals(nullName, ProductQueryCache.byName("null"));
+        assertNotEquals(nullName, ProductQueryCache.byCategory(null));
+
+        cache.put(nullName, List.of(), cache.mutationCount());
+        assertNotNull(cache.get(ProductQueryCache.byName(null)));
+        cache.onProductAdded(product(1, "hammer", "tools", 5));
+        assertNull(cache.get(ProductQueryCache.byName(null)));
+    }
+
+    private static Product product(int id, String name, String category, int quantity) {
+        return new Product(id, name, category, quantity, new BigDecimal("9.90"), null);
+    }
+}
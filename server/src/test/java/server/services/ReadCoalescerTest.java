@@ -0,0 +1,132 @@
+package server.services;
+
+import org.junit.jupiter.api.Test;
+import server.dao.UnitOfWork;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadCoalescerTest {
+    private final ReadCoalescer coalescer = new ReadCoalescer();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+
+    @Test
+    void concurrentIdenticalReadsShareOneExecution() throws Exception {
+        List<String> result = List.of("shared");
+        CompletableFuture<Object> leader = readAsync("products", () -> blockingRead(result));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Thread[] follower = new Thread[1];
+        CompletableFuture<Object> joined = readAsync("products", () -> blockingRead(List.of("own")), follower);
+        awaitWaiting(follower[0]);
+        release.countDown();
+
+        assertSame(result, leader.get(5, TimeUnit.SECONDS));
+        assertSame(result, joined.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertTrue(coalescer.reportAndReset().contains("products 1/2"));
+    }
+
+    @Test
+    void callersOfASharedReadReceiveItsError() throws Exception {
+        CompletableFuture<Object> leader = readAsync("products", () -> {
+            blockingRead(null);
+            throw new SQLException("Lock wait timeout", "40001", 1205);
+        });
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Thread[] follower = new Thread[1];
+        CompletableFuture<Object> joined = readAsync("products", () -> blockingRead(null), follower);
+        awaitWaiting(follower[0]);
+        release.countDown();
+
+        assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> joined.get(5, TimeUnit.SECONDS));
+        SQLException cause = (SQLException) failure.getCause();
+        assertEquals("Lock wait timeout", cause.getMessage());
+        assertEquals("40001", cause.getSQLState());
+        assertEquals(1205, cause.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void aReadAfterAWriteDoesNotJoinAReadStartedBeforeIt() throws Exception {
+        CompletableFuture<Object> stale = readAsync("products", () -> blockingRead("before the write"));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        coalescer.invalidate();
+        Object fresh = coalescer.read("products", () -> {
+            executions.incrementAndGet();
+            return "after the write";
+        });
+        release.countDown();
+
+        assertEquals("after the write", fresh);
+        assertEquals("before the write", stale.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void resultsAreNotKeptOnceTheReadCompletes() throws Exception {
+        release.countDown();
+        coalescer.read("products", () -> blockingRead("first"));
+        Object second = coalescer.read("products", () -> blockingRead("second"));
+
+        assertEquals("second", second);
+        assertEquals(2, executions.get());
+        assertNull(coalescer.reportAndReset());
+    }
+
+    private Object blockingRead(Object result) throws SQLException {
+        executions.incrementAndGet();
+        leaderStarted.countDown();
+        try {
+            if (!release.await(5, TimeUnit.SECONDS)) {
+                throw new SQLException("Read was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted", e);
+        }
+        return result;
+    }
+
+    private CompletableFuture<Object> readAsync(String key, UnitOfWork.Work<Object> read) {
+        return readAsync(key, read, new Thread[1]);
+    }
+
+    private CompletableFuture<Object> readAsync(String key, UnitOfWork.Work<Object> read, Thread[] started) {
+        CompletableFuture<Object> caller = new CompletableFuture<>();
+        started[0] = new Thread(() -> {
+            try {
+                caller.complete(coalescer.read(key, read));
+            } catch (Throwable t) {
+                caller.completeExceptionally(t);
+            }
+        });
+        started[0].setDaemon(true);
+        started[0].start();
+        return caller;
+    }
+
+    // A caller that joined waits on the shared read (WAITING); one running its own read would
+    // be blocked in the timed latch wait instead (TIMED_WAITING)
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
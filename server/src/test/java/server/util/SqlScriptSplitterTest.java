@@ -0,0 +1,104 @@
+package server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlScriptSplitterTest {
+
+    @Test
+    void splitsOnSemicolonsAndDropsEmptyStatements() {
+        assertEquals(List.of("SELECT 1", "SELECT 2"), SqlScriptSplitter.split("SELECT 1;\n\n  SELECT 2 ;;\n;"));
+    }
+
+    @Test
+    void keepsTheLastStatementWithoutDelimiter() {
+        assertEquals(List.of("SELECT 1", "SELECT 2"), SqlScriptSplitter.split("SELECT 1; SELECT 2"));
+    }
+
+    @Test
+    void ignoresDelimitersInsideQuotes() {
+        String script = "INSERT INTO t VALUES ('a;b', \"c;d\");\n"
+                + "SELECT `odd;name` FROM t;\n"
+                + "SELECT 'it''s; fine', 'back\\'slash; too';";
+        assertEquals(List.of(
+                "INSERT INTO t VALUES ('a;b', \"c;d\")",
+                "SELECT `odd;name` FROM t",
+                "SELECT 'it''s; fine', 'back\\'slash; too'"), SqlScriptSplitter.split(script));
+    }
+
+    @Test
+    void commentMarkersInsideQuotesAreText() {
+        assertEquals(List.of("SELECT '-- not a comment', '# nor this', '/* nor this */'"),
+                SqlScriptSplitter.split("SELECT '-- not a comment', '# nor this', '/* nor this */';"));
+    }
+
+    @Test
+    void removesLineAndBlockComments() {
+        String script = "-- header; with a semicolon\n"
+                + "# another; comment\n"
+                + "SELECT 1 /* inline; comment */ + 2; -- trailing\n"
+                + "SELECT 3;";
+        List<String> statements = SqlScriptSplitter.split(script);
+        assertEquals(2, statements.size());
+        assertEquals("SELECT 1   + 2", statements.get(0));
+        assertEquals("SELECT 3", statements.get(1));
+    }
+
+    @Test
+    void doubleDashWithoutWhitespaceIsAnOperator() {
+        assertEquals(List.of("SELECT 5--1"), SqlScriptSplitter.split("SELECT 5--1;"));
+    }
+
+    @Test
+    void keepsExecutableComments() {
+        assertEquals(List.of("CREATE TABLE t (id INT) /*!50100 PARTITION BY HASH (id) */", "SELECT 1"),
+                SqlScriptSplitter.split("CREATE TABLE t (id INT) /*!50100 PARTITION BY HASH (id) */;\nSELECT 1;"));
+    }
+
+    @Test
+    void honoursDelimiterDirectives() {
+        String script = "DELIMITER //\n"
+                + "CREATE TRIGGER t BEFORE INSERT ON p FOR EACH ROW BEGIN\n"
+                + "  SET NEW.quantity = 0;\n"
+                + "END//\n"
+                + "delimiter ;\n"
+                + "SELECT 1;";
+        List<String> statements = SqlScriptSplitter.split(script);
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TRIGGER"));
+        assertTrue(statements.get(0).endsWith("SET NEW.quantity = 0;\nEND"));
+        assertEquals("SELECT 1", statements.get(1));
+    }
+
+    @Test
+    void delimiterIsOnlyADirectiveAtTheStartOfAStatement() {
+        assertEquals(List.of("SELECT 1 AS\nDELIMITER"), SqlScriptSplitter.split("SELECT 1 AS\nDELIMITER;"));
+    }
+
+    @Test
+    void rejectsADelimiterDirectiveWithoutDelimiter() {
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptSplitter.split("DELIMITER  \nSELECT 1;"));
+    }
+
+    @Test
+    void splitsAGuardedOnlineDdlMigration() {
+        String script = "-- Built online, and only when missing.\n"
+                + "SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics\n"
+                + "               WHERE index_name = 'idx') = 0,\n"
+                + "    'ALTER TABLE products ADD INDEX idx (name), ALGORITHM=INPLACE, LOCK=NONE',\n"
+                + "    'DO 0');\n"
+                + "PREPARE add_index FROM @ddl;\n"
+                + "EXECUTE add_index;\n"
+                + "DEALLOCATE PREPARE add_index;\n";
+        List<String> statements = SqlScriptSplitter.split(script);
+        assertEquals(4, statements.size());
+        assertTrue(statements.get(0).startsWith("SET @ddl"));
+        assertTrue(statements.get(0).endsWith("'DO 0')"));
+        assertEquals("EXECUTE add_index", statements.get(2));
+    }
+}
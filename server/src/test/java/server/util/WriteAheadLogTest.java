@@ -0,0 +1,84 @@
+package server.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog wal;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    @Test
+    void recordsNotAppliedAreRecoveredInOrder() throws Exception {
+        wal = new WriteAheadLog(directory, 4096, 16);
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, wal.append(new byte[]{(byte) i}));
+        }
+        wal.markApplied(1);
+        wal.close();
+
+        wal = new WriteAheadLog(directory, 4096, 16);
+        assertEquals(3L, wal.getRecoveredSequence());
+        assertEquals(1L, wal.getAppliedSequence());
+        List<WriteAheadLog.Record> batch = wal.takeBatch(16, 1000);
+        assertEquals(2, batch.size());
+        assertEquals(2L, batch.get(0).getSequence());
+        assertArrayEquals(new byte[]{3}, batch.get(1).getPayload());
+        assertEquals(4L, wal.append(new byte[]{4}));
+    }
+
+    @Test
+    void recordsAreRecoveredAcrossSegments() throws Exception {
+        wal = new WriteAheadLog(directory, 64, 64);
+        for (int i = 1; i <= 10; i++) {
+            wal.append(new byte[20]);
+        }
+        wal.markApplied(4);
+        wal.close();
+
+        wal = new WriteAheadLog(directory, 64, 64);
+        List<WriteAheadLog.Record> batch = wal.takeBatch(64, 1000);
+        assertEquals(6, batch.size());
+        assertEquals(5L, batch.get(0).getSequence());
+        assertEquals(10L, batch.get(5).getSequence());
+    }
+
+    @Test
+    void recoveringMoreRecordsThanTheBoundAllowsNoExtraAppends() throws Exception {
+        wal = new WriteAheadLog(directory, 4096, 16);
+        for (int i = 0; i < 10; i++) {
+            wal.append(new byte[]{1});
+        }
+        wal.close();
+
+        // Reopened with a smaller bound: the 10 recovered records already exceed it
+        wal = new WriteAheadLog(directory, 4096, 4);
+        assertEquals(10, wal.takeBatch(16, 1000).size());
+        wal.markApplied(10);
+        for (int i = 0; i < 4; i++) {
+            wal.append(new byte[]{2});
+        }
+        long start = System.nanoTime();
+        IOException full = assertThrows(IOException.class, () -> wal.append(new byte[]{3}));
+        assertTrue(full.getMessage().contains("full"), full.getMessage());
+        assertTrue(System.nanoTime() - start >= 4_000_000_000L, "the append did not wait for space");
+    }
+}